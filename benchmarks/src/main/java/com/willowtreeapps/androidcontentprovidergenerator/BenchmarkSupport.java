@@ -0,0 +1,157 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Helpers shared by the benchmarks: synthesizes schemas in the shape of {@code etc/sample}, and silences the
+ * generator's logs which would otherwise dominate the measurements.
+ */
+public class BenchmarkSupport {
+    public static final int MIN_FIELDS = 5;
+    public static final int MAX_FIELDS = 200;
+
+    private static final String[] TYPES = { "String", "Integer", "Long", "Float", "Double", "Boolean", "Date", "byte[]", "enum" };
+
+    private static PrintStream sOriginalOut;
+
+    /**
+     * Returns the folder in which the benchmarks should write files: the value of the {@code benchmark.dir} system
+     * property if set, otherwise {@code /dev/shm} (a tmpfs on most Linux systems) if present, otherwise the default
+     * temporary folder.
+     */
+    public static File getWorkDir() {
+        String dir = System.getProperty("benchmark.dir");
+        if (dir != null) return new File(dir);
+        File shm = new File("/dev/shm");
+        if (shm.isDirectory() && shm.canWrite()) return shm;
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    public static File createTempDir(String prefix) throws IOException {
+        File res = File.createTempFile(prefix, "", getWorkDir());
+        if (!res.delete() || !res.mkdirs()) throw new IOException("Could not create " + res);
+        return res;
+    }
+
+    /**
+     * Creates an input folder containing a {@code _config.json} and {@code entityCount} entity files, each one having
+     * between {@link #MIN_FIELDS} and {@link #MAX_FIELDS} fields of all the supported types.<br/>
+     * The schema only depends on {@code entityCount}, so that results are comparable between runs.
+     */
+    public static File createSchema(int entityCount) throws IOException, JSONException {
+        File inputDir = createTempDir("schema-" + entityCount + "-");
+
+        JSONObject config = new JSONObject();
+        config.put("toolVersion", Constants.VERSION);
+        config.put("projectPackageId", "com.test");
+        config.put("authority", "com.test.provider");
+        config.put("providerJavaPackage", "com.test.provider");
+        config.put("providerClassName", "ExampleProvider");
+        config.put("sqliteHelperClassName", "ExampleSQLiteOpenHelper");
+        config.put("databaseFileName", "example.db");
+        config.put("enableForeignKeys", true);
+        config.put("projectBaseUrl", "http://api.example.com");
+        config.put("generateProvider", true);
+        config.put("generateModels", true);
+        config.put("generateViews", true);
+        config.put("generateApi", true);
+        config.put("generateFragments", true);
+        FileUtils.writeStringToFile(new File(inputDir, "_config.json"), config.toString(4), "UTF-8");
+
+        Random random = new Random(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            String entityName = String.format("entity_%04d", i);
+            JSONObject entity = createEntity(random, entityName);
+            FileUtils.writeStringToFile(new File(inputDir, entityName + ".json"), entity.toString(4), "UTF-8");
+        }
+        return inputDir;
+    }
+
+    private static JSONObject createEntity(Random random, String entityName) throws JSONException {
+        JSONObject entity = new JSONObject();
+        JSONArray fields = new JSONArray();
+        int fieldCount = MIN_FIELDS + random.nextInt(MAX_FIELDS - MIN_FIELDS + 1);
+        for (int i = 0; i < fieldCount; i++) {
+            String type = TYPES[i % TYPES.length];
+            JSONObject field = new JSONObject();
+            field.put("name", String.format("field_%03d", i));
+            field.put("type", type);
+            if (i % 4 == 0) field.put("serializedName", String.format("Field%03d", i));
+            if (i % 3 == 0) field.put("nullable", false);
+            if (i % 10 == 0) field.put("index", true);
+            if ("Boolean".equals(type)) field.put("default_value", "1");
+            if ("enum".equals(type)) {
+                field.put("enumName", String.format("Kind%03d", i));
+                field.put("enumValues", new JSONArray().put("FIRST").put("SECOND").put("THIRD"));
+            }
+            fields.put(field);
+        }
+        entity.put("fields", fields);
+
+        JSONArray constraints = new JSONArray();
+        constraints.put(new JSONObject().put("name", "unique_fields").put("definition", "unique (field_000, field_001) on conflict replace"));
+        entity.put("constraints", constraints);
+
+        entity.put("urlPath", "/" + entityName + "/{user}/info");
+        JSONArray queryParams = new JSONArray();
+        queryParams.put(new JSONObject().put("name", "userId"));
+        queryParams.put(new JSONObject().put("name", "page"));
+        entity.put("queryParams", queryParams);
+        return entity;
+    }
+
+    public static void delete(File dir) {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    /**
+     * Discards everything written to {@code System.out} (the generator logs every entity and field it loads) until
+     * {@link #restoreOut()} is called.
+     */
+    public static synchronized void silenceOut() {
+        if (sOriginalOut != null) return;
+        sOriginalOut = System.out;
+        OutputStream nullOut = new NullOutputStream();
+        System.setOut(new PrintStream(nullOut));
+    }
+
+    public static synchronized void restoreOut() {
+        if (sOriginalOut == null) return;
+        System.setOut(sOriginalOut);
+        sOriginalOut = null;
+    }
+}
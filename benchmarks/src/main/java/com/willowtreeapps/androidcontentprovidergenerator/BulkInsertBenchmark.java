@@ -0,0 +1,197 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insertion of a batch of rows in one transaction, the way the generated {@code bulkInsert} used to do it and the way
+ * it does it now. Android is not available here, so both paths are reproduced on top of SQLite through JDBC:
+ * <ul>
+ * <li>{@code insert}: like {@code SQLiteDatabase.insert()}, builds the INSERT statement from the keys of the values of
+ * each row, looks it up in a statement cache keyed by its SQL (like {@code SQLiteConnection} does), and binds the values
+ * in iteration order.</li>
+ * <li>{@code compiled}: like the generated {@code ContentProvider.insert()}, compiles one statement per set of columns
+ * and binds the values by index, in the order of {@code FULL_PROJECTION}.</li>
+ * </ul>
+ * The transaction is rolled back after each batch so that the table is always empty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final String TABLE = "person";
+    private static final String[] FULL_PROJECTION = { "_id", "first_name", "last_name", "age", "is_blue_eyes", "date_of_birth", "height",
+            "company_id", "gender", "notes" };
+
+    @Param({ "1000", "10000" })
+    public int rowCount;
+
+    @Param({ "insert", "compiled" })
+    public String path;
+
+    private Connection mConnection;
+    private List<Map<String, Object>> mRows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mConnection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Statement statement = mConnection.createStatement();
+        statement.execute("CREATE TABLE " + TABLE + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, first_name TEXT, last_name TEXT, age INTEGER NOT NULL, "
+                + "is_blue_eyes INTEGER DEFAULT 1, date_of_birth INTEGER, height REAL, company_id INTEGER NOT NULL, gender INTEGER NOT NULL, notes TEXT)");
+        statement.close();
+        mConnection.setAutoCommit(false);
+
+        Random random = new Random(0);
+        mRows = new ArrayList<Map<String, Object>>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            // Like ContentValues, which is backed by a HashMap
+            Map<String, Object> row = new HashMap<String, Object>();
+            row.put("first_name", "First" + i);
+            row.put("last_name", "Last" + i);
+            row.put("age", random.nextInt(100));
+            row.put("is_blue_eyes", random.nextBoolean() ? 1 : 0);
+            row.put("date_of_birth", random.nextLong());
+            row.put("height", random.nextFloat());
+            row.put("company_id", (long) random.nextInt(1000));
+            row.put("gender", random.nextInt(3));
+            if (i % 2 == 0) row.put("notes", "Notes " + i);
+            mRows.add(row);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        mConnection.close();
+    }
+
+    @Benchmark
+    public int bulkInsert() throws SQLException {
+        Map<Object, PreparedStatement> statements = new HashMap<Object, PreparedStatement>();
+        int res = 0;
+        try {
+            boolean compiled = "compiled".equals(path);
+            for (Map<String, Object> row : mRows) {
+                int count = compiled ? insertCompiled(statements, row) : insert(statements, row);
+                if (count != 0) res++;
+            }
+        } finally {
+            mConnection.rollback();
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+        return res;
+    }
+
+    private int insert(Map<Object, PreparedStatement> statementCache, Map<String, Object> values) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT");
+        sql.append(" INTO ");
+        sql.append(TABLE);
+        sql.append('(');
+        Object[] bindArgs = new Object[values.size()];
+        int i = 0;
+        for (String colName : values.keySet()) {
+            sql.append((i > 0) ? "," : "");
+            sql.append(colName);
+            bindArgs[i++] = values.get(colName);
+        }
+        sql.append(')');
+        sql.append(" VALUES (");
+        for (i = 0; i < bindArgs.length; i++) {
+            sql.append((i > 0) ? ",?" : "?");
+        }
+        sql.append(')');
+
+        String key = sql.toString();
+        PreparedStatement statement = statementCache.get(key);
+        if (statement == null) {
+            statement = mConnection.prepareStatement(key);
+            statementCache.put(key, statement);
+        }
+        for (i = 0; i < bindArgs.length; i++) {
+            statement.setObject(i + 1, bindArgs[i]);
+        }
+        return statement.executeUpdate();
+    }
+
+    private int insertCompiled(Map<Object, PreparedStatement> statements, Map<String, Object> values) throws SQLException {
+        BitSet columnSet = new BitSet(FULL_PROJECTION.length);
+        for (int i = 0; i < FULL_PROJECTION.length; i++) {
+            if (values.containsKey(FULL_PROJECTION[i])) columnSet.set(i);
+        }
+
+        PreparedStatement statement = statements.get(columnSet);
+        if (statement == null) {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(TABLE).append(" (");
+            StringBuilder args = new StringBuilder();
+            for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                if (args.length() > 0) {
+                    sql.append(',');
+                    args.append(',');
+                }
+                sql.append(FULL_PROJECTION[i]);
+                args.append('?');
+            }
+            sql.append(") VALUES (").append(args).append(')');
+            statement = mConnection.prepareStatement(sql.toString());
+            statements.put(columnSet, statement);
+        }
+        int index = 1;
+        for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+            statement.setObject(index++, values.get(FULL_PROJECTION[i]));
+        }
+        return statement.executeUpdate();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullWriter;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.Emitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.JavaEmitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.TemplateEmitter;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+
+/**
+ * Rendering of the per-entity templates which have a Java equivalent, with the template and with the Java emitter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EmitterBenchmark {
+    @Param({ "100", "1000" })
+    public int entityCount;
+
+    @Param({ "cursor.ftl", "contentvalues.ftl", "selection.ftl" })
+    public String templateName;
+
+    @Param({ "template", "java" })
+    public String emitter;
+
+    private File mInputDir;
+    private Main mMain;
+    private JSONObject mConfig;
+    private Emitter mEmitter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mInputDir = BenchmarkSupport.createSchema(entityCount);
+        BenchmarkSupport.silenceOut();
+        mMain = new Main();
+        mConfig = mMain.getConfig(mInputDir);
+        mMain.loadModel(mInputDir);
+        if ("java".equals(emitter)) {
+            mEmitter = JavaEmitter.forTemplate(templateName);
+        } else {
+            mEmitter = new TemplateEmitter(mMain.getFreeMarkerConfig().getTemplate(templateName));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mMain.shutdown();
+        BenchmarkSupport.restoreOut();
+        BenchmarkSupport.delete(mInputDir);
+    }
+
+    @Benchmark
+    public void emit() throws Exception {
+        Writer out = new NullWriter();
+        for (Entity entity : mMain.getModel().getEntities()) {
+            mEmitter.emit(mMain.newRoot(mConfig, entity), out);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.willowtreeapps.androidcontentprovidergenerator.model.Model;
+
+/**
+ * Loading of the entity json files into the {@link Model}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadModelBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int entityCount;
+
+    private File mInputDir;
+    private Main mMain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mInputDir = BenchmarkSupport.createSchema(entityCount);
+        BenchmarkSupport.silenceOut();
+        // Reused for all the invocations, so that its worker threads are not created each time
+        mMain = new Main();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mMain.shutdown();
+        BenchmarkSupport.restoreOut();
+        BenchmarkSupport.delete(mInputDir);
+    }
+
+    @Benchmark
+    public Model loadModel() throws Exception {
+        mMain.loadModel(mInputDir);
+        return mMain.getModel();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JVM side cost of inserting API models, per row, from the model objects to the values bound to the insert statement.
+ * Run it with {@code -prof gc} and look at {@code gc.alloc.rate.norm} for the allocations per row.
+ * <ul>
+ * <li>{@code contentValues}: what {@code ${Entity}ContentValues.getContentValues()} followed by {@code bulkInsert} do
+ * (one {@code ${Entity}ContentValues} and one {@code ContentValues} per row, then binding by column set).</li>
+ * <li>{@code direct}: what the generated {@code ${Entity}ModelInserter.bind()} does.</li>
+ * </ul>
+ * The Android classes are replaced by minimal equivalents: {@code ContentValues} by a {@link HashMap}, and
+ * {@code SQLiteStatement} by {@link Statement}, which keeps the bound values in an {@code Object[]} like
+ * {@code SQLiteProgram} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(ModelInsertBenchmark.ROW_COUNT)
+public class ModelInsertBenchmark {
+    static final int ROW_COUNT = 1000;
+
+    private static final String[] FULL_PROJECTION = { "_id", "first_name", "last_name", "age", "is_blue_eyes", "date_of_birth", "height",
+            "company_id", "gender" };
+
+    public enum Gender {
+        MALE, FEMALE, OTHER
+    }
+
+    /**
+     * Same as the generated {@code PersonModel} of the sample.
+     */
+    public static class PersonModel {
+        public String firstName;
+        public String lastName;
+        public int age;
+        public Boolean isBlueEyes;
+        public Date dateOfBirth;
+        public Float height;
+        public long companyId;
+        public Gender gender;
+    }
+
+    /**
+     * Same as {@code android.content.ContentValues}: a map of the values by column.
+     */
+    private static class ContentValues extends HashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Same as the generated {@code PersonContentValues} of the sample.
+     */
+    private static class PersonContentValues {
+        private final ContentValues mContentValues = new ContentValues();
+
+        public ContentValues values() {
+            return mContentValues;
+        }
+    }
+
+    /**
+     * Keeps the bound values like {@code SQLiteProgram}.
+     */
+    private static class Statement {
+        private final Object[] mBindArgs;
+        private final Blackhole mBlackhole;
+
+        public Statement(int argCount, Blackhole blackhole) {
+            mBindArgs = new Object[argCount];
+            mBlackhole = blackhole;
+        }
+
+        public void bindNull(int index) {
+            mBindArgs[index - 1] = null;
+        }
+
+        public void bindLong(int index, long value) {
+            mBindArgs[index - 1] = value;
+        }
+
+        public void bindDouble(int index, double value) {
+            mBindArgs[index - 1] = value;
+        }
+
+        public void bindString(int index, String value) {
+            mBindArgs[index - 1] = value;
+        }
+
+        public void bindObject(int index, Object value) {
+            // Same as DatabaseUtils.bindObjectToProgram()
+            if (value == null) {
+                bindNull(index);
+            } else if (value instanceof Double || value instanceof Float) {
+                bindDouble(index, ((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                bindLong(index, ((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                bindLong(index, (Boolean) value ? 1 : 0);
+            } else {
+                bindString(index, value.toString());
+            }
+        }
+
+        public void executeInsert() {
+            mBlackhole.consume(mBindArgs);
+        }
+    }
+
+    private List<PersonModel> mItems;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        mItems = new ArrayList<PersonModel>(ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            PersonModel item = new PersonModel();
+            item.firstName = "First" + i;
+            item.lastName = "Last" + i;
+            item.age = random.nextInt(100);
+            item.isBlueEyes = random.nextBoolean();
+            item.dateOfBirth = new Date(random.nextLong());
+            item.height = random.nextFloat();
+            item.companyId = random.nextInt(1000);
+            item.gender = Gender.values()[random.nextInt(3)];
+            mItems.add(item);
+        }
+    }
+
+    @Benchmark
+    public void contentValues(Blackhole blackhole) {
+        // PersonContentValues.getContentValues()
+        List<ContentValues> list = new ArrayList<ContentValues>();
+        for (PersonModel item : mItems) {
+            PersonContentValues values = new PersonContentValues();
+            values.mContentValues.put("first_name", item.firstName);
+            values.mContentValues.put("last_name", item.lastName);
+            values.mContentValues.put("age", item.age);
+            values.mContentValues.put("is_blue_eyes", item.isBlueEyes);
+            values.mContentValues.put("date_of_birth", item.dateOfBirth == null ? null : item.dateOfBirth.getTime());
+            values.mContentValues.put("height", item.height);
+            values.mContentValues.put("company_id", item.companyId);
+            if (item.gender == null) throw new IllegalArgumentException("value for gender must not be null");
+            values.mContentValues.put("gender", item.gender.ordinal());
+            list.add(values.values());
+        }
+        ContentValues[] array = list.toArray(new ContentValues[list.size()]);
+
+        // ContentProvider.bulkInsert()
+        Statement statement = new Statement(FULL_PROJECTION.length - 1, blackhole);
+        for (ContentValues values : array) {
+            BitSet columnSet = new BitSet(FULL_PROJECTION.length);
+            for (int i = 0; i < FULL_PROJECTION.length; i++) {
+                if (values.containsKey(FULL_PROJECTION[i])) columnSet.set(i);
+            }
+            int index = 1;
+            for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                statement.bindObject(index++, values.get(FULL_PROJECTION[i]));
+            }
+            statement.executeInsert();
+        }
+    }
+
+    @Benchmark
+    public void direct(Blackhole blackhole) {
+        // PersonModelInserter.insert()
+        Statement statement = new Statement(FULL_PROJECTION.length - 1, blackhole);
+        for (PersonModel item : mItems) {
+            if (item.firstName == null) {
+                statement.bindNull(1);
+            } else {
+                statement.bindString(1, item.firstName);
+            }
+            if (item.lastName == null) {
+                statement.bindNull(2);
+            } else {
+                statement.bindString(2, item.lastName);
+            }
+            statement.bindLong(3, item.age);
+            if (item.isBlueEyes == null) {
+                statement.bindNull(4);
+            } else {
+                statement.bindLong(4, item.isBlueEyes ? 1 : 0);
+            }
+            if (item.dateOfBirth == null) {
+                statement.bindNull(5);
+            } else {
+                statement.bindLong(5, item.dateOfBirth.getTime());
+            }
+            if (item.height == null) {
+                statement.bindNull(6);
+            } else {
+                statement.bindDouble(6, item.height);
+            }
+            statement.bindLong(7, item.companyId);
+            if (item.gender == null) throw new IllegalArgumentException("value for gender must not be null");
+            statement.bindLong(8, item.gender.ordinal());
+            statement.executeInsert();
+        }
+    }
+}
@@ -41,4 +41,22 @@ public class Arguments {
 
     @Parameter(names = { "-o", "--output" }, description = "Output folder, where the resulting files will be generated")
     public File outputDir = new File("generated");
+
+    @Parameter(names = { "-t", "--threads" }, description = "Number of threads used to generate the files (defaults to the number of available processors)")
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = { "--incremental" }, description = "Only generate the files whose inputs changed since the previous incremental run, and delete the files which are not generated anymore")
+    public boolean incremental;
+
+    @Parameter(names = { "-w", "--watch" }, description = "After generating the files, keep running and generate them again each time an input file changes (implies --incremental)")
+    public boolean watch;
+
+    @Parameter(names = { "--record-schema" }, description = "Record the current database schema in _schema.json as a new version, with its migration, if it changed (not done by the generations of the watch mode). Without it, the generation fails if the schema changed, except in watch mode where the unrecorded version is only used for this generation, and a warning is logged")
+    public boolean recordSchema;
+
+    @Parameter(names = { "--check-schema" }, description = "Fail the generation if there is no _schema.json instead of recording its first version, and in watch mode if the database schema differs from the recorded version (for continuous integration)")
+    public boolean checkSchema;
+
+    @Parameter(names = { "--java-emitters" }, description = "Generate the cursor, content values and selection classes with Java code instead of interpreting their templates (faster, same output)")
+    public boolean javaEmitters;
 }
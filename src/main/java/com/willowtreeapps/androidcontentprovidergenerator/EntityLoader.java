@@ -0,0 +1,274 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.willowtreeapps.androidcontentprovidergenerator.model.Constraint;
+import com.willowtreeapps.androidcontentprovidergenerator.model.DeltaSync;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Index;
+import com.willowtreeapps.androidcontentprovidergenerator.model.ModelCache;
+
+/**
+ * Loads an entity json file into an {@link Entity}.<br/>
+ * The file is read as a stream of tokens, and only the json of the field (or constraint, index or query param) currently
+ * being read is kept in memory, instead of the whole file and its json tree.<br/>
+ * Instances are independent of each other, so several files can be loaded in parallel.
+ */
+public class EntityLoader implements Callable<Entity> {
+    private static String TAG = Constants.TAG + EntityLoader.class.getSimpleName();
+
+    public static class Json {
+        public static final String URL_PATH = "urlPath";
+        public static final String FIELDS = "fields";
+        public static final String CONSTRAINTS = "constraints";
+        public static final String INDEXES = "indexes";
+        public static final String QUERY_PARAMS = "queryParams";
+        public static final String NATURAL_KEY = "naturalKey";
+        public static final String DELTA_SYNC = "deltaSync";
+        public static final String MODEL_CACHE = "modelCache";
+        public static final String DELETE_DUPLICATES = "deleteDuplicates";
+    }
+
+    private interface ElementHandler {
+        void onElement(JSONObject elementJson);
+    }
+
+    private final File mFile;
+    private String mDigest;
+
+    public EntityLoader(File file) {
+        mFile = file;
+    }
+
+    @Override
+    public Entity call() throws IOException {
+        if (Config.LOGD) Log.d(TAG, mFile.getCanonicalPath());
+        String entityName = FilenameUtils.getBaseName(mFile.getCanonicalPath());
+        if (Config.LOGD) Log.d(TAG, "entityName=" + entityName);
+        MessageDigest digest = Manifest.newDigest();
+        InputStream in = new DigestInputStream(new FileInputStream(mFile), digest);
+        try {
+            JSONTokener x = new JSONTokener(new InputStreamReader(in));
+            Entity entity = readEntity(x, entityName);
+            // Consume the rest of the file (ignored by the parser), so that it is part of the digest
+            IOUtils.skip(in, Long.MAX_VALUE);
+            mDigest = Manifest.toHex(digest.digest());
+            return entity;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the digest of the file contents, only available once the file has been loaded.
+     */
+    public String getDigest() {
+        return mDigest;
+    }
+
+    /**
+     * Reads the entity object, with the same syntax rules as {@link JSONObject#JSONObject(JSONTokener)}.<br/>
+     * The values of the {@code fields}, {@code constraints}, {@code indexes} and {@code queryParams} arrays are read
+     * element by element as they come, the other values are kept in a small {@link JSONObject} to be validated at the end.
+     */
+    private Entity readEntity(JSONTokener x, String entityName) {
+        JSONObject entityJson = new JSONObject();
+        final List<Field> fields = new ArrayList<Field>();
+        final List<Constraint> constraints = new ArrayList<Constraint>();
+        final List<Index> indexes = new ArrayList<Index>();
+        final List<String> queryParams = new ArrayList<String>();
+        if (x.nextClean() != '{') throw x.syntaxError("A JSONObject text must begin with '{'");
+        for (;;) {
+            char c = x.nextClean();
+            if (c == 0) throw x.syntaxError("A JSONObject text must end with '}'");
+            if (c == '}') break;
+            x.back();
+            String key = x.nextValue().toString();
+            if (x.nextClean() != ':') throw x.syntaxError("Expected a ':' after a key");
+            if (entityJson.has(key)) throw new JSONException("Duplicate key \"" + key + "\"");
+
+            if (Json.FIELDS.equals(key) && isArrayNext(x)) {
+                readElements(x, new ElementHandler() {
+                    @Override
+                    public void onElement(JSONObject fieldJson) {
+                        fields.add(readField(fieldJson));
+                    }
+                });
+                entityJson.put(key, new JSONArray());
+            } else if (Json.CONSTRAINTS.equals(key) && isArrayNext(x)) {
+                readElements(x, new ElementHandler() {
+                    @Override
+                    public void onElement(JSONObject constraintJson) {
+                        if (Config.LOGD) Log.d(TAG, "constraintJson=" + constraintJson);
+                        String name = constraintJson.getString(Constraint.Json.NAME);
+                        String definition = constraintJson.getString(Constraint.Json.DEFINITION);
+                        constraints.add(new Constraint(name, definition));
+                    }
+                });
+                entityJson.put(key, new JSONArray());
+            } else if (Json.INDEXES.equals(key) && isArrayNext(x)) {
+                readElements(x, new ElementHandler() {
+                    @Override
+                    public void onElement(JSONObject indexJson) {
+                        indexes.add(readIndex(indexJson));
+                    }
+                });
+                entityJson.put(key, new JSONArray());
+            } else if (Json.QUERY_PARAMS.equals(key) && isArrayNext(x)) {
+                readElements(x, new ElementHandler() {
+                    @Override
+                    public void onElement(JSONObject paramJson) {
+                        queryParams.add(paramJson.getString(Constraint.Json.NAME));
+                    }
+                });
+                entityJson.put(key, new JSONArray());
+            } else {
+                entityJson.putOnce(key, x.nextValue());
+            }
+
+            // Pairs are separated by ','
+            c = x.nextClean();
+            if (c == '}') break;
+            if (c != ',' && c != ';') throw x.syntaxError("Expected a ',' or '}'");
+            if (x.nextClean() == '}') break;
+            x.back();
+        }
+
+        // Mandatory, and must be an array: fails with the same message as when reading the whole tree
+        entityJson.getJSONArray(Json.FIELDS);
+        List<String> naturalKey = new ArrayList<String>();
+        JSONArray naturalKeyJson = entityJson.optJSONArray(Json.NATURAL_KEY);
+        if (naturalKeyJson != null) {
+            for (int i = 0; i < naturalKeyJson.length(); i++) {
+                naturalKey.add(naturalKeyJson.getString(i));
+            }
+        }
+        DeltaSync deltaSync = null;
+        JSONObject deltaSyncJson = entityJson.optJSONObject(Json.DELTA_SYNC);
+        if (deltaSyncJson != null) {
+            deltaSync = new DeltaSync(deltaSyncJson.getString(DeltaSync.Json.FIELD), deltaSyncJson.getString(DeltaSync.Json.QUERY_PARAM),
+                    deltaSyncJson.optString(DeltaSync.Json.TOMBSTONE, null));
+        }
+        ModelCache modelCache = null;
+        JSONObject modelCacheJson = entityJson.optJSONObject(Json.MODEL_CACHE);
+        if (modelCacheJson != null) {
+            modelCache = new ModelCache(modelCacheJson.optInt(ModelCache.Json.MAX_ENTRIES), modelCacheJson.optInt(ModelCache.Json.MAX_BYTES));
+        }
+        return new Entity(entityName, entityJson.optString(Json.URL_PATH), fields, constraints, indexes, queryParams, naturalKey, deltaSync,
+                modelCache, entityJson.optBoolean(Json.DELETE_DUPLICATES));
+    }
+
+    private static boolean isArrayNext(JSONTokener x) {
+        char c = x.nextClean();
+        x.back();
+        return c == '[';
+    }
+
+    /**
+     * Reads an array of objects, with the same syntax rules as {@link JSONArray#JSONArray(JSONTokener)}, passing each
+     * element to the given handler as soon as it is read.
+     */
+    private static void readElements(JSONTokener x, ElementHandler handler) {
+        if (x.nextClean() != '[') throw x.syntaxError("A JSONArray text must start with '['");
+        if (x.nextClean() == ']') return;
+        x.back();
+        for (int i = 0;; i++) {
+            char c = x.nextClean();
+            x.back();
+            if (c != '{') {
+                if (c != ',') x.nextValue();
+                // Same message as JSONArray.getJSONObject()
+                throw new JSONException("JSONArray[" + i + "] is not a JSONObject.");
+            }
+            handler.onElement(new JSONObject(x));
+
+            // Elements are separated by ','
+            switch (x.nextClean()) {
+                case ',':
+                    if (x.nextClean() == ']') return;
+                    x.back();
+                    break;
+                case ']':
+                    return;
+                default:
+                    throw x.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+    private static Index readIndex(JSONObject indexJson) {
+        if (Config.LOGD) Log.d(TAG, "indexJson=" + indexJson);
+        String name = indexJson.getString(Index.Json.NAME);
+        JSONArray columnsJson = indexJson.getJSONArray(Index.Json.COLUMNS);
+        List<String> columns = new ArrayList<String>(columnsJson.length());
+        for (int i = 0; i < columnsJson.length(); i++) {
+            columns.add(columnsJson.getString(i));
+        }
+        boolean isUnique = indexJson.optBoolean(Index.Json.UNIQUE, false);
+        String where = indexJson.optString(Index.Json.WHERE, null);
+        return new Index(name, columns, isUnique, where);
+    }
+
+    private static Field readField(JSONObject fieldJson) {
+        if (Config.LOGD) Log.d(TAG, "fieldJson=" + fieldJson);
+        String name = fieldJson.getString(Field.Json.NAME);
+        String serializedName = fieldJson.optString(Field.Json.SERIALIZED_NAME);
+        String type = fieldJson.getString(Field.Json.TYPE);
+        boolean isIndex = fieldJson.optBoolean(Field.Json.INDEX, false);
+        boolean isFullText = fieldJson.optBoolean(Field.Json.FULL_TEXT, false);
+        boolean isNullable = fieldJson.optBoolean(Field.Json.NULLABLE, true);
+        String defaultValue = fieldJson.optString(Field.Json.DEFAULT_VALUE);
+        String enumName = fieldJson.optString(Field.Json.ENUM_NAME);
+        JSONArray enumValuesJson = fieldJson.optJSONArray(Field.Json.ENUM_VALUES);
+        List<String> enumValues = new ArrayList<String>();
+        if (enumValuesJson != null) {
+            int enumLen = enumValuesJson.length();
+            for (int j = 0; j < enumLen; j++) {
+                String valueName = enumValuesJson.getString(j);
+                enumValues.add(valueName);
+            }
+        }
+        return new Field(name, serializedName, type, isIndex, isFullText, isNullable, defaultValue, enumName, enumValues);
+    }
+}
@@ -29,7 +29,11 @@ import java.util.Date;
 public class Log {
     private static final SimpleDateFormat FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
-    public static void d(String tag, String string) {
+    public static synchronized void d(String tag, String string) {
         System.out.println(FORMAT.format(new Date()) + " D/" + tag + " " + string);
     }
+
+    public static synchronized void w(String tag, String string) {
+        System.err.println(FORMAT.format(new Date()) + " W/" + tag + " " + string);
+    }
 }
@@ -25,37 +25,50 @@
 package com.willowtreeapps.androidcontentprovidergenerator;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.beust.jcommander.JCommander;
-import com.willowtreeapps.androidcontentprovidergenerator.model.Constraint;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.Emitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.JavaEmitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.TemplateEmitter;
 import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
 import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
 import com.willowtreeapps.androidcontentprovidergenerator.model.Model;
 
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapper;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
 public class Main {
     private static String TAG = Constants.TAG + Main.class.getSimpleName();
 
     private static String FILE_CONFIG = "_config.json";
+    private static String FILE_HEADER = "header.txt";
+
+    private static final long WATCH_DEBOUNCE_MS = 100;
 
     public static class Json {
         public static final String TOOL_VERSION = "toolVersion";
@@ -73,102 +86,103 @@ public class Main {
         public static final String GENERATE_VIEWS = "generateViews";
         public static final String GENERATE_API = "generateApi";
         public static final String GENERATE_FRAGMENT = "generateFragments";
+
+        public static final String DATABASE_OPTIONS = "databaseOptions";
+        public static final String ENABLE_WRITE_AHEAD_LOGGING = "enableWriteAheadLogging";
+        public static final String SYNCHRONOUS = "synchronous";
+        public static final String TEMP_STORE = "tempStore";
+        public static final String CACHE_SIZE = "cacheSize";
+        public static final String MMAP_SIZE = "mmapSize";
+        public static final String PAGE_SIZE = "pageSize";
+        public static final String STATEMENT_CACHE_SIZE = "statementCacheSize";
+
+        public static final String SYNC_OPTIONS = "syncOptions";
+        public static final String MIN_REFRESH_INTERVAL = "minRefreshInterval";
     }
 
+    private static final List<String> SYNCHRONOUS_VALUES = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final List<String> TEMP_STORE_VALUES = Arrays.asList("DEFAULT", "FILE", "MEMORY");
+
     private Configuration mFreemarkerConfig;
     private JSONObject mConfig;
-
-    private Configuration getFreeMarkerConfig() {
+    private Model mModel;
+    private int mThreads = Runtime.getRuntime().availableProcessors();
+    private boolean mJavaEmitters;
+    private ExecutorService mExecutor;
+    private final OutputWriter mOutputWriter = new OutputWriter();
+    private Manifest mManifest;
+    private SchemaSnapshot mSchemaSnapshot;
+    private String mConfigDigest;
+    private String mHeaderDigest;
+    private final Map<Entity, String> mEntityDigests = new HashMap<Entity, String>();
+    private final Map<String, String> mTemplateDigests = new HashMap<String, String>();
+    private final List<Future<File>> mTasks = new ArrayList<Future<File>>();
+
+    Configuration getFreeMarkerConfig() {
         if (mFreemarkerConfig == null) {
             mFreemarkerConfig = new Configuration();
             mFreemarkerConfig.setClassForTemplateLoading(getClass(), "");
             mFreemarkerConfig.setObjectWrapper(new DefaultObjectWrapper());
+            // The templates are bundled with the tool and never change: don't check them for updates
+            mFreemarkerConfig.setTemplateUpdateDelay(Integer.MAX_VALUE);
         }
         return mFreemarkerConfig;
     }
 
-    private void loadModel(File inputDir) throws IOException, JSONException {
+    /**
+     * Whether the given file of the input folder is the json of an entity (the other json files, like {@code _config.json}
+     * and {@code _schema.json}, start with an underscore).
+     */
+    private static boolean isEntityFile(String fileName) {
+        return !fileName.startsWith("_") && fileName.endsWith(".json");
+    }
+
+    void loadModel(File inputDir) throws IOException, JSONException {
         File[] entityFiles = inputDir.listFiles(new FileFilter() {
             @Override
             public boolean accept(File pathname) {
-                return !pathname.getName().startsWith("_") && pathname.getName().endsWith(".json");
+                return isEntityFile(pathname.getName());
             }
         });
+        mEntityDigests.clear();
+        mHeaderDigest = null;
+        // Load the entities in parallel, but add them to the model in the order of the files
+        List<EntityLoader> loaders = new ArrayList<EntityLoader>();
+        List<Future<Entity>> tasks = new ArrayList<Future<Entity>>();
         for (File entityFile : entityFiles) {
-            if (Config.LOGD) Log.d(TAG, entityFile.getCanonicalPath());
-            String entityName = FilenameUtils.getBaseName(entityFile.getCanonicalPath());
-            if (Config.LOGD) Log.d(TAG, "entityName=" + entityName);
-            Entity entity = new Entity(entityName);
-            String fileContents = FileUtils.readFileToString(entityFile);
-            JSONObject entityJson = new JSONObject(fileContents);
-            entity.setUrl(entityJson.optString("urlPath"));
-            // Fields
-            JSONArray fieldsJson = entityJson.getJSONArray("fields");
-            int len = fieldsJson.length();
-            for (int i = 0; i < len; i++) {
-                JSONObject fieldJson = fieldsJson.getJSONObject(i);
-                if (Config.LOGD) Log.d(TAG, "fieldJson=" + fieldJson);
-                String name = fieldJson.getString(Field.Json.NAME);
-                String serializedName = fieldJson.optString(Field.Json.SERIALIZED_NAME);
-                String type = fieldJson.getString(Field.Json.TYPE);
-                boolean isIndex = fieldJson.optBoolean(Field.Json.INDEX, false);
-                boolean isNullable = fieldJson.optBoolean(Field.Json.NULLABLE, true);
-                String defaultValue = fieldJson.optString(Field.Json.DEFAULT_VALUE);
-                String enumName = fieldJson.optString(Field.Json.ENUM_NAME);
-                JSONArray enumValuesJson = fieldJson.optJSONArray(Field.Json.ENUM_VALUES);
-                List<String> enumValues = new ArrayList<String>();
-                if (enumValuesJson != null) {
-                    int enumLen = enumValuesJson.length();
-                    for (int j = 0; j < enumLen; j++) {
-                        String valueName = enumValuesJson.getString(j);
-                        enumValues.add(valueName);
-                    }
-                }
-                Field field = new Field(name, serializedName, type, isIndex, isNullable, defaultValue, enumName, enumValues);
-                entity.addField(field);
-            }
-
-            // Constraints (optional)
-            JSONArray constraintsJson = entityJson.optJSONArray("constraints");
-            if (constraintsJson != null) {
-                len = constraintsJson.length();
-                for (int i = 0; i < len; i++) {
-                    JSONObject constraintJson = constraintsJson.getJSONObject(i);
-                    if (Config.LOGD) Log.d(TAG, "constraintJson=" + constraintJson);
-                    String name = constraintJson.getString(Constraint.Json.NAME);
-                    String definition = constraintJson.getString(Constraint.Json.DEFINITION);
-                    Constraint constraint = new Constraint(name, definition);
-                    entity.addConstraint(constraint);
-                }
-            }
-
-            // QueryParams (optional)
-            JSONArray paramsJson = entityJson.optJSONArray("queryParams");
-            if (paramsJson != null) {
-                len = paramsJson.length();
-                for (int i = 0; i < len; i++) {
-                    JSONObject constraintJson = paramsJson.getJSONObject(i);
-                    String name = constraintJson.getString(Constraint.Json.NAME);
-                    entity.addQueryParam(name);
-                }
-            }
-
-            Model.get().addEntity(entity);
+            EntityLoader loader = new EntityLoader(entityFile);
+            loaders.add(loader);
+            tasks.add(getExecutor().submit(loader));
         }
+        List<Entity> entities = await(tasks);
+        for (int i = 0; i < entities.size(); i++) {
+            mEntityDigests.put(entities.get(i), loaders.get(i).getDigest());
+        }
+
         // Header (optional)
-        File headerFile = new File(inputDir, "header.txt");
+        String header = null;
+        File headerFile = new File(inputDir, FILE_HEADER);
         if (headerFile.exists()) {
-            String header = FileUtils.readFileToString(headerFile).trim();
-            Model.get().setHeader(header);
+            header = FileUtils.readFileToString(headerFile).trim();
+            mHeaderDigest = Manifest.digest(header);
         }
-        if (Config.LOGD) Log.d(TAG, Model.get().toString());
+        mModel = new Model(entities, header);
+        if (Config.LOGD) Log.d(TAG, mModel.toString());
     }
 
-    private JSONObject getConfig(File inputDir) throws IOException, JSONException {
+    /**
+     * Returns the model loaded by the last call to {@link #loadModel(File)}.
+     */
+    Model getModel() {
+        return mModel;
+    }
+
+    JSONObject getConfig(File inputDir) throws IOException, JSONException {
         if (mConfig == null) {
             File configFile = new File(inputDir, FILE_CONFIG);
             String fileContents = FileUtils.readFileToString(configFile);
             mConfig = new JSONObject(fileContents);
+            mConfigDigest = Manifest.digest(fileContents);
         }
 
         validateConfig();
@@ -198,14 +212,114 @@ public class Main {
             ensureString(Json.AUTHORITY);
             ensureString(Json.DATABASE_FILE_NAME);
             ensureBoolean(Json.ENABLE_FOREIGN_KEY);
+            validateDatabaseOptions();
         }
         if(mConfig.optBoolean(Json.GENERATE_API, true)){
             ensureString(Json.PROJECT_BASE_URL);
+            validateSyncOptions();
         }
         ensureString(Json.PROJECT_PACKAGE_ID);
 
     }
 
+    /**
+     * Validates the optional {@code databaseOptions} object, and sets the default values of the missing options, which
+     * favor reading while writing: write-ahead logging, {@code synchronous=NORMAL} (durable enough with write-ahead
+     * logging, {@code FULL} without it), and temporary tables in memory without write-ahead logging. The other options
+     * are left to SQLite unless specified.<br/>
+     * With write-ahead logging, the queries also use additional connections, which the helper can not configure: the
+     * options only applying to the connection they are set on, and used by the queries, are rejected.
+     */
+    private void validateDatabaseOptions() {
+        JSONObject options = mConfig.optJSONObject(Json.DATABASE_OPTIONS);
+        if (options == null) {
+            if (mConfig.has(Json.DATABASE_OPTIONS)) {
+                throw new IllegalArgumentException("Invalid '" + Json.DATABASE_OPTIONS + "' field in _config.json: it must be an object.");
+            }
+            options = new JSONObject();
+            mConfig.put(Json.DATABASE_OPTIONS, options);
+        }
+        if (!options.has(Json.ENABLE_WRITE_AHEAD_LOGGING)) options.put(Json.ENABLE_WRITE_AHEAD_LOGGING, true);
+        if (!(options.get(Json.ENABLE_WRITE_AHEAD_LOGGING) instanceof Boolean)) {
+            throw new IllegalArgumentException("Invalid '" + Json.ENABLE_WRITE_AHEAD_LOGGING + "' database option in _config.json: it must be a boolean.");
+        }
+        // NORMAL can lose the last transactions (or corrupt the database) on a power loss with a rollback journal
+        String synchronous = options.getBoolean(Json.ENABLE_WRITE_AHEAD_LOGGING) ? "NORMAL" : "FULL";
+        options.put(Json.SYNCHRONOUS, ensureOneOf(options, Json.SYNCHRONOUS, SYNCHRONOUS_VALUES, synchronous));
+        if (options.getBoolean(Json.ENABLE_WRITE_AHEAD_LOGGING)) {
+            for (String option : new String[] { Json.TEMP_STORE, Json.CACHE_SIZE, Json.MMAP_SIZE }) {
+                if (options.has(option)) {
+                    throw new IllegalArgumentException("Invalid '" + option + "' database option in _config.json: it can not be used with '"
+                            + Json.ENABLE_WRITE_AHEAD_LOGGING + "', since it would only apply to one of the connections used by the queries.");
+                }
+            }
+        } else {
+            options.put(Json.TEMP_STORE, ensureOneOf(options, Json.TEMP_STORE, TEMP_STORE_VALUES, "MEMORY"));
+        }
+        if (!options.has(Json.STATEMENT_CACHE_SIZE)) options.put(Json.STATEMENT_CACHE_SIZE, 25);
+        for (String option : new String[] { Json.CACHE_SIZE, Json.MMAP_SIZE, Json.PAGE_SIZE, Json.STATEMENT_CACHE_SIZE }) {
+            if (options.has(option) && !(options.get(option) instanceof Integer || options.get(option) instanceof Long)) {
+                throw new IllegalArgumentException("Invalid '" + option + "' database option in _config.json: it must be an integer.");
+            }
+        }
+        if (options.has(Json.PAGE_SIZE)) {
+            long pageSize = options.getLong(Json.PAGE_SIZE);
+            if (pageSize < 512 || pageSize > 65536 || Long.bitCount(pageSize) != 1) {
+                throw new IllegalArgumentException("Invalid '" + Json.PAGE_SIZE + "' database option in _config.json: it must be a power of two between 512 and 65536.");
+            }
+        }
+        // SQLiteDatabase.MAX_SQL_CACHE_SIZE
+        long statementCacheSize = options.getLong(Json.STATEMENT_CACHE_SIZE);
+        if (statementCacheSize < 1 || statementCacheSize > 100) {
+            throw new IllegalArgumentException("Invalid '" + Json.STATEMENT_CACHE_SIZE + "' database option in _config.json: it must be between 1 and 100.");
+        }
+    }
+
+    /**
+     * Validates the optional {@code syncOptions} object, and sets the default values of the missing options: by default
+     * the syncs are never skipped (their requests are still conditional).
+     */
+    private void validateSyncOptions() {
+        JSONObject options = mConfig.optJSONObject(Json.SYNC_OPTIONS);
+        if (options == null) {
+            if (mConfig.has(Json.SYNC_OPTIONS)) {
+                throw new IllegalArgumentException("Invalid '" + Json.SYNC_OPTIONS + "' field in _config.json: it must be an object.");
+            }
+            options = new JSONObject();
+            mConfig.put(Json.SYNC_OPTIONS, options);
+        }
+        if (!options.has(Json.MIN_REFRESH_INTERVAL)) options.put(Json.MIN_REFRESH_INTERVAL, 0);
+        Object minRefreshInterval = options.get(Json.MIN_REFRESH_INTERVAL);
+        if (!(minRefreshInterval instanceof Integer || minRefreshInterval instanceof Long) || options.getLong(Json.MIN_REFRESH_INTERVAL) < 0) {
+            throw new IllegalArgumentException("Invalid '" + Json.MIN_REFRESH_INTERVAL + "' sync option in _config.json: it must be a number of seconds, at least 0.");
+        }
+    }
+
+    /**
+     * Whether the {@code ApiService} keeps the state of its syncs in the database, which requires the provider.<br/>
+     * The table is created by the provider even when it does not (see {@link SchemaSnapshot#SYNC_STATE_TABLE_NAME}).
+     */
+    private static boolean hasSyncState(JSONObject config) {
+        return config.optBoolean(Json.GENERATE_PROVIDER, true) && config.optBoolean(Json.GENERATE_API, true)
+                && config.optBoolean(Json.GENERATE_MODELS, true);
+    }
+
+    /**
+     * Whether the provider invalidates the caches of models, which requires the models.
+     */
+    private boolean hasModelCaches(JSONObject config) {
+        return config.optBoolean(Json.GENERATE_MODELS, true) && mModel.getHasModelCache();
+    }
+
+    private static String ensureOneOf(JSONObject options, String option, List<String> values, String defaultValue) {
+        String value = options.optString(option, defaultValue).toUpperCase(Locale.US);
+        if (!values.contains(value)) {
+            throw new IllegalArgumentException("Invalid '" + option + "' database option in _config.json: found '" + value + "' but expected one of "
+                    + values + ".");
+        }
+        return value;
+    }
+
     private void ensureString(String field) {
         try {
             mConfig.getString(field);
@@ -222,255 +336,324 @@ public class Main {
         }
     }
 
-    private void generateColumns(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("columns.ftl");
+    Map<String, Object> newRoot(JSONObject config) {
+        Map<String, Object> root = new HashMap<String, Object>();
+        root.put("config", config);
+        root.put("header", mModel.getHeader());
+        return root;
+    }
+
+    Map<String, Object> newModelRoot(JSONObject config) {
+        Map<String, Object> root = newRoot(config);
+        root.put("model", mModel);
+        return root;
+    }
+
+    Map<String, Object> newRoot(JSONObject config, Entity entity) {
+        Map<String, Object> root = newRoot(config);
+        root.put("entity", entity);
+        return root;
+    }
+
+    /**
+     * Schedules the rendering of the given template into the given file on the worker pool.<br/>
+     * Each task must be given its own {@code root} map, since it is read by the worker thread.
+     */
+    private void generate(String templateName, Map<String, Object> root, File outputFile) throws IOException {
+        if (mManifest != null && mManifest.isUpToDate(outputFile, getInputsDigest(templateName, root))) return;
+        mTasks.add(getExecutor().submit(new GenerateTask(mOutputWriter, getEmitter(templateName), root, outputFile)));
+    }
+
+    /**
+     * Returns the emitter to use for the given template: its Java equivalent if there is one and they are enabled, the
+     * template itself otherwise.
+     */
+    Emitter getEmitter(String templateName) throws IOException {
+        if (mJavaEmitters) {
+            Emitter res = JavaEmitter.forTemplate(templateName);
+            if (res != null) return res;
+        }
+        return new TemplateEmitter(getFreeMarkerConfig().getTemplate(templateName));
+    }
+
+    /**
+     * Returns a digest of all the inputs the given template and root can depend on: per-entity outputs only depend on
+     * their entity, outputs using the whole model depend on all the entities.
+     */
+    private String getInputsDigest(String templateName, Map<String, Object> root) throws IOException {
+        List<String> parts = new ArrayList<String>();
+        parts.add(getTemplateDigest(templateName));
+        parts.add(mConfigDigest);
+        parts.add(mHeaderDigest);
+        Entity entity = (Entity) root.get("entity");
+        if (entity != null) {
+            parts.add(mEntityDigests.get(entity));
+        } else if (root.containsKey("model")) {
+            for (Entity e : mModel.getEntities()) {
+                parts.add(e.getNameLowerCase());
+                parts.add(mEntityDigests.get(e));
+            }
+        }
+        // Depends on all the entities, even when rendering only one of them
+        Object modelCaches = root.get("modelCaches");
+        if (modelCaches != null) parts.add(String.valueOf(modelCaches));
+        SchemaSnapshot schema = (SchemaSnapshot) root.get("schema");
+        if (schema != null) parts.add(schema.getDigest());
+        return Manifest.digest(parts.toArray(new String[parts.size()]));
+    }
+
+    private String getTemplateDigest(String templateName) throws IOException {
+        String res = mTemplateDigests.get(templateName);
+        if (res == null) {
+            InputStream in = getClass().getResourceAsStream(templateName);
+            try {
+                res = Manifest.digest(IOUtils.toString(in, "UTF-8"));
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            mTemplateDigests.put(templateName, res);
+        }
+        return res;
+    }
+
+    private static class GenerateTask implements Callable<File> {
+        private final OutputWriter mOutputWriter;
+        private final Emitter mEmitter;
+        private final Map<String, Object> mRoot;
+        private final File mOutputFile;
+
+        public GenerateTask(OutputWriter outputWriter, Emitter emitter, Map<String, Object> root, File outputFile) {
+            mOutputWriter = outputWriter;
+            mEmitter = emitter;
+            mRoot = root;
+            mOutputFile = outputFile;
+        }
+
+        @Override
+        public File call() throws Exception {
+            try {
+                mOutputWriter.write(mEmitter, mRoot, mOutputFile);
+            } catch (TemplateException e) {
+                throw new IOException("Could not generate " + mOutputFile + " from " + mEmitter, e);
+            }
+            return mOutputFile;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (mExecutor == null) {
+            mExecutor = Executors.newFixedThreadPool(mThreads);
+        }
+        return mExecutor;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    void shutdown() {
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+            mExecutor = null;
+        }
+    }
+
+    /**
+     * Waits for all the scheduled generation tasks to complete.
+     */
+    private void awaitTasks() throws IOException {
+        try {
+            await(mTasks);
+        } finally {
+            mTasks.clear();
+        }
+    }
+
+    /**
+     * Waits for all the given tasks to complete, and returns their results in the same order.  If one of them fails,
+     * the remaining ones are cancelled and the failure is rethrown.
+     */
+    private static <T> List<T> await(List<Future<T>> tasks) throws IOException {
+        List<T> res = new ArrayList<T>(tasks.size());
+        try {
+            for (Future<T> task : tasks) {
+                res.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the tasks to complete", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        } finally {
+            // Cancel the remaining tasks if one of them failed (no-op for the completed ones)
+            for (Future<T> task : tasks) {
+                task.cancel(true);
+            }
+        }
+        return res;
+    }
+
+    private void generateColumns(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String providerJavaPackage = config.getString(Json.PROVIDER_JAVA_PACKAGE);
-
         File providerDir = new File(arguments.outputDir, providerJavaPackage.replace('.', '/'));
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", getConfig(arguments.inputDir));
-        root.put("header", Model.get().getHeader());
 
         // Entities
-        for (Entity entity : Model.get().getEntities()) {
+        for (Entity entity : mModel.getEntities()) {
             File outputDir = new File(providerDir, entity.getNameLowerCase());
             outputDir.mkdirs();
             File outputFile = new File(outputDir, entity.getNameCamelCase() + "Columns.java");
-            Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-            root.put("entity", entity);
-
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("columns.ftl", newRoot(config, entity), outputFile);
         }
     }
 
-    private void generateWrappers(Arguments arguments) throws IOException, JSONException, TemplateException {
+    private void generateWrappers(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String providerJavaPackage = config.getString(Json.PROVIDER_JAVA_PACKAGE);
         File providerDir = new File(arguments.outputDir, providerJavaPackage.replace('.', '/'));
         File baseClassesDir = new File(providerDir, "base");
         baseClassesDir.mkdirs();
 
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", getConfig(arguments.inputDir));
-        root.put("header", Model.get().getHeader());
-
         // AbstractCursor
-        Template template = getFreeMarkerConfig().getTemplate("abstractcursor.ftl");
-        File outputFile = new File(baseClassesDir, "AbstractCursor.java");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-        template.process(root, out);
-        IOUtils.closeQuietly(out);
+        generate("abstractcursor.ftl", newRoot(config), new File(baseClassesDir, "AbstractCursor.java"));
 
         // AbstractContentValuesWrapper
-        template = getFreeMarkerConfig().getTemplate("abstractcontentvalues.ftl");
-        outputFile = new File(baseClassesDir, "AbstractContentValues.java");
-        out = new OutputStreamWriter(new FileOutputStream(outputFile));
-        template.process(root, out);
-        IOUtils.closeQuietly(out);
+        generate("abstractcontentvalues.ftl", newRoot(config), new File(baseClassesDir, "AbstractContentValues.java"));
 
         // AbstractSelection
-        template = getFreeMarkerConfig().getTemplate("abstractselection.ftl");
-        outputFile = new File(baseClassesDir, "AbstractSelection.java");
-        out = new OutputStreamWriter(new FileOutputStream(outputFile));
-        template.process(root, out);
-        IOUtils.closeQuietly(out);
-
-
+        generate("abstractselection.ftl", newRoot(config), new File(baseClassesDir, "AbstractSelection.java"));
 
         // Entities
-        for (Entity entity : Model.get().getEntities()) {
+        for (Entity entity : mModel.getEntities()) {
             File entityDir = new File(providerDir, entity.getNameLowerCase());
             entityDir.mkdirs();
 
             // Cursor wrapper
-            outputFile = new File(entityDir, entity.getNameCamelCase() + "Cursor.java");
-            out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            template = getFreeMarkerConfig().getTemplate("cursor.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("cursor.ftl", newRoot(config, entity), new File(entityDir, entity.getNameCamelCase() + "Cursor.java"));
 
             // ContentValues wrapper
-            outputFile = new File(entityDir, entity.getNameCamelCase() + "ContentValues.java");
-            out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            template = getFreeMarkerConfig().getTemplate("contentvalues.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("contentvalues.ftl", newRoot(config, entity), new File(entityDir, entity.getNameCamelCase() + "ContentValues.java"));
 
             // Selection builder
-            outputFile = new File(entityDir, entity.getNameCamelCase() + "Selection.java");
-            out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            template = getFreeMarkerConfig().getTemplate("selection.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("selection.ftl", newRoot(config, entity), new File(entityDir, entity.getNameCamelCase() + "Selection.java"));
 
+            // Model inserter
+            if (config.optBoolean(Json.GENERATE_MODELS, true)) {
+                Map<String, Object> root = newRoot(config, entity);
+                root.put("modelCaches", hasModelCaches(config));
+                generate("modelinserter.ftl", root, new File(entityDir, entity.getNameCamelCase() + "ModelInserter.java"));
+            }
+
+            // Model cache
+            if (config.optBoolean(Json.GENERATE_MODELS, true) && entity.getHasModelCache()) {
+                generate("modelcache.ftl", newRoot(config, entity), new File(entityDir, entity.getNameCamelCase() + "ModelCache.java"));
+            }
 
             // Enums (if any)
             for (Field field : entity.getFields()) {
                 if (field.isEnum()) {
-                    outputFile = new File(entityDir, field.getEnumName() + ".java");
-                    out = new OutputStreamWriter(new FileOutputStream(outputFile));
-                    root.put("entity", entity);
+                    Map<String, Object> root = newRoot(config, entity);
                     root.put("field", field);
-                    template = getFreeMarkerConfig().getTemplate("enum.ftl");
-                    template.process(root, out);
-                    IOUtils.closeQuietly(out);
+                    generate("enum.ftl", root, new File(entityDir, field.getEnumName() + ".java"));
                 }
             }
         }
     }
 
-    private void generateContentProvider(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("contentprovider.ftl");
+    private void generateContentProvider(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String providerJavaPackage = config.getString(Json.PROVIDER_JAVA_PACKAGE);
         File providerDir = new File(arguments.outputDir, providerJavaPackage.replace('.', '/'));
         providerDir.mkdirs();
         File outputFile = new File(providerDir, config.getString(Json.PROVIDER_CLASS_NAME) + ".java");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", config);
-        root.put("model", Model.get());
-        root.put("header", Model.get().getHeader());
-
-        template.process(root, out);
+        Map<String, Object> root = newModelRoot(config);
+        root.put("modelCaches", hasModelCaches(config));
+        generate("contentprovider.ftl", root, outputFile);
     }
 
-    private void generateIntentService(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("intentservice.ftl");
+    private void generateIntentService(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String apiJavaPackage = config.getString(Json.PROJECT_PACKAGE_ID) + ".api";
         File apiDir = new File(arguments.outputDir, apiJavaPackage.replace('.', '/'));
         apiDir.mkdirs();
         File outputFile = new File(apiDir, "ApiService.java");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", config);
-        root.put("model", Model.get());
-        root.put("header", Model.get().getHeader());
-
-        template.process(root, out);
+        Map<String, Object> root = newModelRoot(config);
+        root.put("syncState", hasSyncState(config));
+        generate("intentservice.ftl", root, outputFile);
+        generate("syncengine.ftl", newModelRoot(config), new File(apiDir, "SyncEngine.java"));
+        generate("syncsources.ftl", newModelRoot(config), new File(apiDir, "SyncSources.java"));
+        generate("syncstatestore.ftl", newRoot(config), new File(apiDir, "SyncStateStore.java"));
+        if (hasSyncState(config)) {
+            generate("databasesyncstatestore.ftl", newRoot(config), new File(apiDir, "DatabaseSyncStateStore.java"));
+        }
     }
 
-    private void generateRestService(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("retroservice.ftl");
+    private void generateRestService(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String apiJavaPackage = config.getString(Json.PROJECT_PACKAGE_ID) + ".api";
         File apiDir = new File(arguments.outputDir, apiJavaPackage.replace('.', '/'));
         apiDir.mkdirs();
         File outputFile = new File(apiDir, "RestService.java");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", config);
-        root.put("model", Model.get());
-        root.put("header", Model.get().getHeader());
-
-        template.process(root, out);
+        generate("retroservice.ftl", newModelRoot(config), outputFile);
     }
 
-    private void generateManifestItems(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("add_to_manifest.ftl");
+    private void generateManifestItems(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
+        arguments.outputDir.mkdirs();
         File outputFile = new File(arguments.outputDir, "__add_to_manifest.txt");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", config);
-        root.put("model", Model.get());
-        root.put("header", Model.get().getHeader());
-
-        template.process(root, out);
+        generate("add_to_manifest.ftl", newModelRoot(config), outputFile);
     }
 
-    private void generateSqliteHelper(Arguments arguments) throws IOException, JSONException, TemplateException {
-        Template template = getFreeMarkerConfig().getTemplate("sqlitehelper.ftl");
+    private void generateSqliteHelper(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         String providerJavaPackage = config.getString(Json.PROVIDER_JAVA_PACKAGE);
         File providerDir = new File(arguments.outputDir, providerJavaPackage.replace('.', '/'));
         providerDir.mkdirs();
         File outputFile = new File(providerDir, config.getString(Json.SQLITE_HELPER_CLASS_NAME) + ".java");
-        Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", config);
-        root.put("model", Model.get());
-        root.put("header", Model.get().getHeader());
-
-        template.process(root, out);
+        Map<String, Object> root = newModelRoot(config);
+        root.put("schema", mSchemaSnapshot);
+        generate("sqlitehelper.ftl", root, outputFile);
     }
 
-    private void generateModels(Arguments arguments) throws IOException, JSONException, TemplateException {
+    private void generateModels(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         File baseDir = new File(arguments.outputDir, config.getString(Json.PROJECT_PACKAGE_ID).replace('.', '/'));
         File modelClassesDir = new File(baseDir, "model");
         modelClassesDir.mkdirs();
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", getConfig(arguments.inputDir));
-        root.put("header", Model.get().getHeader());
-        for (Entity entity : Model.get().getEntities()) {
+        for (Entity entity : mModel.getEntities()) {
             File outputFile = new File(modelClassesDir, entity.getNameCamelCase() + "Model.java");
-            Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            Template template = getFreeMarkerConfig().getTemplate("model.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("model.ftl", newRoot(config, entity), outputFile);
         }
     }
 
-    private void generateFragments(Arguments arguments) throws IOException, JSONException, TemplateException {
+    private void generateFragments(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         File baseDir = new File(arguments.outputDir, config.getString(Json.PROJECT_PACKAGE_ID).replace('.', '/'));
         File fragmentClassDir = new File(baseDir, "fragment");
         fragmentClassDir.mkdirs();
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", getConfig(arguments.inputDir));
-        root.put("header", Model.get().getHeader());
-        for (Entity entity : Model.get().getEntities()) {
+        for (Entity entity : mModel.getEntities()) {
             File outputFile = new File(fragmentClassDir, entity.getNameCamelCase() + "ListFragment.java");
-            Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            Template template = getFreeMarkerConfig().getTemplate("fragment.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
+            generate("fragment.ftl", newRoot(config, entity), outputFile);
         }
     }
 
-    private void generateViews(Arguments arguments) throws IOException, JSONException, TemplateException {
+    private void generateViews(Arguments arguments) throws IOException, JSONException {
         JSONObject config = getConfig(arguments.inputDir);
         File baseDir = new File(arguments.outputDir, config.getString(Json.PROJECT_PACKAGE_ID).replace('.', '/'));
         File viewDir = new File(baseDir, "ui/viewmodel");
         File resDir = new File(arguments.outputDir+"/res", "layout");
         viewDir.mkdirs();
         resDir.mkdirs();
-        Map<String, Object> root = new HashMap<String, Object>();
-        root.put("config", getConfig(arguments.inputDir));
-        root.put("header", Model.get().getHeader());
-        for (Entity entity : Model.get().getEntities()) {
-            File outputFile = new File(viewDir, entity.getNameCamelCase() + "View.java");
-            Writer out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            Template template = getFreeMarkerConfig().getTemplate("view.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
-
-            outputFile = new File(resDir, "view_" + entity.getNameLowerCase() + ".xml");
-            out = new OutputStreamWriter(new FileOutputStream(outputFile));
-            root.put("entity", entity);
-            template = getFreeMarkerConfig().getTemplate("layout.ftl");
-            template.process(root, out);
-            IOUtils.closeQuietly(out);
-        }
-    }
-
-    private void go(String[] args) throws IOException, JSONException, TemplateException {
+        for (Entity entity : mModel.getEntities()) {
+            generate("view.ftl", newRoot(config, entity), new File(viewDir, entity.getNameCamelCase() + "View.java"));
+            generate("layout.ftl", newRoot(config, entity), new File(resDir, "view_" + entity.getNameLowerCase() + ".xml"));
+        }
+    }
+
+    void go(String[] args) throws IOException, JSONException {
         Arguments arguments = new Arguments();
         JCommander jCommander = new JCommander(arguments, args);
         jCommander.setProgramName("GenerateAndroidProvider");
@@ -479,11 +662,36 @@ public class Main {
             jCommander.usage();
             return;
         }
+        if (arguments.threads < 1) {
+            throw new IllegalArgumentException("Invalid '--threads' value: found '" + arguments.threads + "' but expected at least 1.");
+        }
 
+        mThreads = arguments.threads;
+        mJavaEmitters = arguments.javaEmitters;
+        try {
+            generateAll(arguments, arguments.recordSchema);
+            if (arguments.watch) {
+                watch(arguments);
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void generateAll(Arguments arguments, boolean recordSchema) throws IOException, JSONException {
+        // Always re-read the config, which may have changed since the previous run in watch mode
+        mConfig = null;
         JSONObject config = getConfig(arguments.inputDir);
 
         loadModel(arguments.inputDir);
+        mManifest = arguments.incremental || arguments.watch ? Manifest.load(arguments.outputDir) : null;
+        // The manifest is only saved back once the run completed: a non incremental or failed run may have overwritten
+        // some outputs since, which a later incremental run would otherwise consider up to date
+        Manifest.delete(arguments.outputDir);
+        mOutputWriter.resetCounts();
+
         if(config.optBoolean(Json.GENERATE_PROVIDER, true)) {
+            loadSchemaSnapshot(arguments, recordSchema);
             generateColumns(arguments);
             generateWrappers(arguments);
             generateContentProvider(arguments);
@@ -507,6 +715,117 @@ public class Main {
         if(config.optBoolean(Json.GENERATE_FRAGMENT)){
             generateFragments(arguments);
         }
+
+        awaitTasks();
+
+        if (mManifest != null) {
+            for (File staleFile : mManifest.deleteStaleOutputs()) {
+                if (Config.LOGD) Log.d(TAG, "Deleted " + staleFile);
+            }
+            mManifest.save();
+        }
+        Log.d(TAG, "Written files: " + mOutputWriter.getWrittenCount() + ", unchanged files: " + mOutputWriter.getSkippedCount());
+    }
+
+    /**
+     * Loads the snapshot of the schema kept in the input folder, and compares it with the schema of the model: if it
+     * changed, a new version of the snapshot is saved with the migration statements when {@code record} is
+     * {@code true}, and the generation fails otherwise. The first snapshot is saved, as version 1, unless
+     * {@code --check-schema} is given.<br/>
+     * In watch mode, a changed schema is only kept in memory instead, so that the sqlite helper (which creates the tables
+     * of the current model) still migrates the databases of the last recorded version. The generated helper is then
+     * marked as unrecorded, and a warning is logged: a build made from it must not be installed, since its databases
+     * would never be migrated to the version recorded later.
+     */
+    private void loadSchemaSnapshot(Arguments arguments, boolean record) throws IOException {
+        mSchemaSnapshot = SchemaSnapshot.load(arguments.inputDir);
+        if (!mSchemaSnapshot.isOutdated(mModel)) return;
+        if (!mSchemaSnapshot.exists() && arguments.checkSchema && !record) {
+            throw new IllegalArgumentException("No " + SchemaSnapshot.FILE_NAME
+                    + " in the input folder: run with --record-schema to record the first version of the database schema");
+        }
+        if (mSchemaSnapshot.exists() && !record) {
+            int recordedVersion = mSchemaSnapshot.getVersion();
+            if (!arguments.watch || arguments.checkSchema) {
+                throw new IllegalArgumentException("The database schema differs from version " + recordedVersion + " recorded in "
+                        + SchemaSnapshot.FILE_NAME + ": run with --record-schema to record a new version");
+            }
+            mSchemaSnapshot.update(mModel);
+            Log.w(TAG, "The database schema differs from version " + recordedVersion + " recorded in " + SchemaSnapshot.FILE_NAME
+                    + ": generated with an unrecorded version " + mSchemaSnapshot.getVersion()
+                    + ", do not install this build and run with --record-schema to record it");
+            return;
+        }
+        mSchemaSnapshot.update(mModel);
+        mSchemaSnapshot.save();
+        Log.d(TAG, "Database schema version: " + mSchemaSnapshot.getVersion());
+    }
+
+    /**
+     * Watches the input folder, and generates the files again each time an input file changes.<br/>
+     * The FreeMarker configuration (and its parsed templates) and the worker threads are kept between the runs, and
+     * since this mode is incremental only the outputs of the entities which changed are rendered again.<br/>
+     * This method only returns when the current thread is interrupted.
+     */
+    private void watch(Arguments arguments) throws IOException {
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        try {
+            arguments.inputDir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            Log.d(TAG, "Watching " + arguments.inputDir.getCanonicalPath() + " for changes");
+            while (true) {
+                boolean changed = pollEvents(watchService.take());
+
+                // Editors often save a file in several steps, or several files at once: wait for the changes to settle
+                WatchKey key;
+                while ((key = watchService.poll(WATCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= pollEvents(key);
+                }
+                if (!changed) continue;
+
+                long start = System.currentTimeMillis();
+                try {
+                    // Each save would otherwise record a new version of the schema: a changed schema is only kept in memory
+                    // (see loadSchemaSnapshot)
+                    generateAll(arguments, false);
+                    Log.d(TAG, "Generated in " + (System.currentTimeMillis() - start) + " ms");
+                } catch (JSONException e) {
+                    // The file may be incomplete or invalid while being edited: keep watching
+                    Log.d(TAG, "Could not generate: " + e.getMessage());
+                } catch (IOException e) {
+                    Log.d(TAG, "Could not generate: " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    Log.d(TAG, "Could not generate: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Consumes the events of the given key.
+     *
+     * @return {@code true} if at least one of the events concerns an input file. The {@code _schema.json} file is not one,
+     *         since it is written by the generator itself.
+     */
+    private boolean pollEvents(WatchKey key) {
+        boolean res = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                res = true;
+                continue;
+            }
+            String fileName = event.context().toString();
+            if (isEntityFile(fileName) || fileName.equals(FILE_CONFIG) || fileName.equals(FILE_HEADER)) {
+                if (Config.LOGD) Log.d(TAG, "Changed: " + fileName);
+                res = true;
+            }
+        }
+        key.reset();
+        return res;
     }
 
     public static void main(String[] args) throws Exception {
@@ -0,0 +1,172 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Keeps track of the outputs generated by the previous run, along with a digest of all the inputs (entity json,
+ * {@code _config.json}, {@code header.txt}, template) each of them was generated from.<br/>
+ * This allows an incremental run to re-render only the outputs whose inputs changed, and to delete the outputs which
+ * are not generated anymore.
+ */
+public class Manifest {
+    private static String TAG = Constants.TAG + Manifest.class.getSimpleName();
+
+    public static final String FILE_NAME = ".generator_manifest.json";
+
+    public static class Json {
+        public static final String TOOL_VERSION = "toolVersion";
+        public static final String OUTPUTS = "outputs";
+    }
+
+    private final File mOutputDir;
+    private final File mFile;
+    private final Map<String, String> mPreviousOutputs = new HashMap<String, String>();
+    private final Map<String, String> mOutputs = new HashMap<String, String>();
+
+    private Manifest(File outputDir) {
+        mOutputDir = outputDir;
+        mFile = new File(outputDir, FILE_NAME);
+    }
+
+    /**
+     * Loads the manifest written by the previous run in the given output folder, if any.
+     */
+    public static Manifest load(File outputDir) throws IOException {
+        Manifest res = new Manifest(outputDir);
+        if (!res.mFile.exists()) return res;
+        try {
+            JSONObject manifestJson = new JSONObject(FileUtils.readFileToString(res.mFile, "UTF-8"));
+            // Outputs generated by another version of the tool are always considered outdated
+            if (!Constants.VERSION.equals(manifestJson.optString(Json.TOOL_VERSION))) return res;
+            JSONObject outputsJson = manifestJson.getJSONObject(Json.OUTPUTS);
+            for (Iterator<?> i = outputsJson.keys(); i.hasNext();) {
+                String path = (String) i.next();
+                res.mPreviousOutputs.put(path, outputsJson.getString(path));
+            }
+        } catch (JSONException e) {
+            if (Config.LOGD) Log.d(TAG, "Ignoring invalid manifest " + res.mFile + ": " + e.getMessage());
+        }
+        return res;
+    }
+
+    /**
+     * Deletes the manifest of the given output folder, if any.
+     */
+    public static void delete(File outputDir) throws IOException {
+        File file = new File(outputDir, FILE_NAME);
+        if (file.exists() && !file.delete()) throw new IOException("Could not delete " + file);
+    }
+
+    /**
+     * Records that the given output file is generated from inputs with the given digest during this run.
+     *
+     * @return {@code true} if the file already exists and was generated from the same inputs by the previous run, in
+     *         which case it does not need to be rendered again.
+     */
+    public boolean isUpToDate(File outputFile, String inputsDigest) {
+        String path = getRelativePath(outputFile);
+        mOutputs.put(path, inputsDigest);
+        return inputsDigest.equals(mPreviousOutputs.get(path)) && outputFile.exists();
+    }
+
+    /**
+     * Deletes the files that were generated by the previous run but were not generated by this one (for instance
+     * because their entity has been removed).
+     */
+    public List<File> deleteStaleOutputs() {
+        List<File> res = new ArrayList<File>();
+        for (String path : mPreviousOutputs.keySet()) {
+            if (mOutputs.containsKey(path)) continue;
+            File staleFile = new File(mOutputDir, path);
+            if (staleFile.delete()) res.add(staleFile);
+            // Also delete the folders left empty (File.delete() fails on non empty folders)
+            for (File dir = staleFile.getParentFile(); !dir.equals(mOutputDir) && dir.delete(); dir = dir.getParentFile());
+        }
+        return res;
+    }
+
+    public void save() throws IOException {
+        JSONObject manifestJson = new JSONObject();
+        try {
+            manifestJson.put(Json.TOOL_VERSION, Constants.VERSION);
+            manifestJson.put(Json.OUTPUTS, new JSONObject(mOutputs));
+            FileUtils.writeStringToFile(mFile, manifestJson.toString(4), "UTF-8");
+        } catch (JSONException e) {
+            throw new IOException("Could not write " + mFile, e);
+        }
+    }
+
+    private String getRelativePath(File outputFile) {
+        return mOutputDir.toURI().relativize(outputFile.toURI()).getPath();
+    }
+
+    /**
+     * Returns the hex-encoded SHA-1 digest of the given strings.
+     */
+    public static String digest(String... parts) {
+        MessageDigest digest = newDigest();
+        try {
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes("UTF-8"));
+                // Separator, so that ("ab", "c") and ("a", "bc") give different results
+                digest.update((byte) 0);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return toHex(digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        StringBuilder res = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            res.append(String.format("%02x", b));
+        }
+        return res.toString();
+    }
+}
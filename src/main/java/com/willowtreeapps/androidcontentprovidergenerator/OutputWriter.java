@@ -0,0 +1,159 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.Emitter;
+
+import freemarker.template.TemplateException;
+
+/**
+ * Renders templates into a per-thread in-memory buffer, and only writes the result to the output file when it differs
+ * from the file's current contents, so that the files which did not change keep their modification time.<br/>
+ * Files are written to a temporary file first, which is then renamed to the output file, so that a file is never seen
+ * half written.<br/>
+ * This class is thread safe.
+ */
+public class OutputWriter {
+    private static final int COMPARE_BUFFER_SIZE = 8 * 1024;
+
+    private static class Buffer extends ByteArrayOutputStream {
+        public Buffer() {
+            super(16 * 1024);
+        }
+
+        public byte[] getBytes() {
+            return buf;
+        }
+    }
+
+    private final ThreadLocal<Buffer> mBuffers = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() {
+            return new Buffer();
+        }
+    };
+
+    private final ThreadLocal<byte[]> mCompareBuffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[COMPARE_BUFFER_SIZE];
+        }
+    };
+
+    private final AtomicInteger mWrittenCount = new AtomicInteger();
+    private final AtomicInteger mSkippedCount = new AtomicInteger();
+
+    /**
+     * Renders the given emitter and writes the result to the given file, unless the file already has exactly this
+     * contents.
+     *
+     * @return {@code true} if the file was written, {@code false} if it was left untouched.
+     */
+    public boolean write(Emitter emitter, Map<String, Object> root, File outputFile) throws IOException, TemplateException {
+        Buffer buffer = mBuffers.get();
+        buffer.reset();
+        Writer out = new OutputStreamWriter(buffer);
+        emitter.emit(root, out);
+        out.flush();
+
+        if (hasContents(outputFile, buffer.getBytes(), buffer.size())) {
+            mSkippedCount.incrementAndGet();
+            return false;
+        }
+        writeAtomically(outputFile, buffer.getBytes(), buffer.size());
+        mWrittenCount.incrementAndGet();
+        return true;
+    }
+
+    private boolean hasContents(File file, byte[] contents, int length) throws IOException {
+        // Compare the sizes first, which is cheap
+        if (!file.isFile() || file.length() != length) return false;
+
+        // Then compare the contents, one chunk at a time
+        byte[] chunk = mCompareBuffers.get();
+        InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                if (offset + read > length) return false;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] != contents[offset + i]) return false;
+                }
+                offset += read;
+            }
+            return offset == length;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private void writeAtomically(File file, byte[] contents, int length) throws IOException {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        OutputStream out = new FileOutputStream(tempFile);
+        try {
+            out.write(contents, 0, length);
+            out.close();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(out);
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            // On some platforms (e.g. Windows) renaming over an existing file is not possible
+            if (!file.delete() || !tempFile.renameTo(file)) {
+                tempFile.delete();
+                throw new IOException("Could not rename " + tempFile + " to " + file);
+            }
+        }
+    }
+
+    public void resetCounts() {
+        mWrittenCount.set(0);
+        mSkippedCount.set(0);
+    }
+
+    public int getWrittenCount() {
+        return mWrittenCount.get();
+    }
+
+    public int getSkippedCount() {
+        return mSkippedCount.get();
+    }
+}
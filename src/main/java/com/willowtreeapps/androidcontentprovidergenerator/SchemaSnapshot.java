@@ -0,0 +1,664 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.willowtreeapps.androidcontentprovidergenerator.model.Constraint;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Index;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Model;
+
+/**
+ * The database schema the sqlite helper was last generated for, kept in the input folder along with the migrations
+ * from each version to the next one.<br/>
+ * Each time the schema of the model differs from the snapshot, a new version is created with the statements migrating
+ * the previous one: new tables and indexes are created, new columns are added with {@code ALTER TABLE}, and the tables
+ * whose columns can not simply be added to are rebuilt, keeping their rows. The full text tables are re-indexed when
+ * their columns change. Unique indexes are only added to existing tables whose entity allows their duplicate rows to be
+ * deleted.<br/>
+ * The migrations are kept as SQL, since they must not change once they have been released.
+ */
+public class SchemaSnapshot {
+    private static String TAG = Constants.TAG + SchemaSnapshot.class.getSimpleName();
+
+    public static final String FILE_NAME = "_schema.json";
+
+    /**
+     * The table in which the {@code ApiService} keeps the state of its syncs.
+     */
+    public static final String SYNC_STATE_TABLE_NAME = "sync_state";
+
+    public static class Json {
+        public static final String VERSION = "version";
+        public static final String TABLES = "tables";
+        public static final String NAME = "name";
+        public static final String COLUMNS = "columns";
+        public static final String CONSTRAINTS = "constraints";
+        public static final String INDEXES = "indexes";
+        public static final String SQL = "sql";
+        public static final String FULL_TEXT = "fullText";
+        public static final String TRIGGERS = "triggers";
+        public static final String MIGRATIONS = "migrations";
+        public static final String STATEMENTS = "statements";
+    }
+
+    private static final String ID_COLUMN = "_id INTEGER PRIMARY KEY AUTOINCREMENT";
+    private static final String NEW_TABLE_SUFFIX = "__new";
+    // Table, columns and optional condition of the statements creating the unique indexes (see Table.fromEntity())
+    private static final Pattern UNIQUE_INDEX_PATTERN = Pattern.compile("CREATE UNIQUE INDEX IF NOT EXISTS (\\S+) ON (\\S+) \\( (.+?) \\)(?: WHERE (.+))?");
+    // Column and table of a foreign key constraint referencing the _id of a table
+    private static final Pattern FOREIGN_KEY_PATTERN = Pattern.compile("FOREIGN\\s+KEY\\s*\\(\\s*(\\w+)\\s*\\)\\s*REFERENCES\\s+(\\w+)\\s*(?:\\(\\s*_ID\\s*\\)|(?!\\())",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The statements migrating the database from the previous version to a given one.
+     */
+    public static class Migration {
+        private final int mVersion;
+        private final List<String> mStatements;
+
+        public Migration(int version, List<String> statements) {
+            mVersion = version;
+            mStatements = Collections.unmodifiableList(new ArrayList<String>(statements));
+        }
+
+        public int getVersion() {
+            return mVersion;
+        }
+
+        public List<String> getStatements() {
+            return mStatements;
+        }
+    }
+
+    private static class Table {
+        final String name;
+        // Column name -> definition (type and constraints of the column), in order
+        final Map<String, String> columns = new LinkedHashMap<String, String>();
+        final List<String> constraints = new ArrayList<String>();
+        // Index name -> statement creating the index
+        final Map<String, String> indexes = new LinkedHashMap<String, String>();
+        // Statement creating the full text table, or null if the table has no full text fields
+        String fullText;
+        // Trigger name -> statement creating the trigger which keeps the full text table up to date
+        final Map<String, String> triggers = new LinkedHashMap<String, String>();
+        // Whether the migration creating a unique index may delete the rows it would reject (not part of the snapshot)
+        boolean deleteDuplicates;
+
+        Table(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Same definitions as the ones of {@code sqlitehelper.ftl} (checked by {@code SchemaSnapshotTest}).
+         */
+        static Table fromEntity(Entity entity) {
+            Table res = new Table(entity.getNameLowerCase());
+            res.deleteDuplicates = entity.getDeleteDuplicates();
+            res.columns.put("_id", ID_COLUMN.substring("_id ".length()));
+            for (Field field : entity.getFields()) {
+                res.columns.put(field.getNameLowerCase(), getDefinition(field));
+            }
+            for (Constraint constraint : entity.getConstraints()) {
+                res.constraints.add("CONSTRAINT " + constraint.getNameUpperCase() + " " + constraint.getDefinitionUpperCase());
+            }
+            for (Field field : entity.getFields()) {
+                if (!field.getIsIndex()) continue;
+                String name = "IDX_" + entity.getNameUpperCase() + "_" + field.getNameUpperCase();
+                res.indexes.put(name, "CREATE INDEX IF NOT EXISTS " + name + " ON " + res.name + " ( " + field.getNameLowerCase() + " )");
+            }
+            for (Index index : entity.getIndexes()) {
+                String name = "IDX_" + entity.getNameUpperCase() + "_" + index.getNameUpperCase();
+                String sql = "CREATE " + (index.getIsUnique() ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + name + " ON " + res.name + " ( "
+                        + StringUtils.join(index.getColumns(), ", ") + " )";
+                if (index.getHasWhere()) sql += " WHERE " + index.getWhere();
+                res.indexes.put(name, sql);
+            }
+            if (entity.getHasNaturalKey()) {
+                String name = "UIDX_" + entity.getNameUpperCase() + "_NATURAL_KEY";
+                List<String> columns = new ArrayList<String>();
+                for (Field field : entity.getNaturalKey()) {
+                    columns.add(field.getNameLowerCase());
+                }
+                res.indexes.put(name, "CREATE UNIQUE INDEX IF NOT EXISTS " + name + " ON " + res.name + " ( " + StringUtils.join(columns, ", ") + " )");
+            }
+            if (entity.getHasFullText()) {
+                String ftsName = res.getFullTextTableName();
+                List<String> columns = new ArrayList<String>();
+                List<String> values = new ArrayList<String>();
+                for (Field field : entity.getFullTextFields()) {
+                    columns.add(field.getNameLowerCase());
+                    values.add("new." + field.getNameLowerCase());
+                }
+                res.fullText = "CREATE VIRTUAL TABLE IF NOT EXISTS " + ftsName + " USING fts4(content='" + res.name + "', "
+                        + StringUtils.join(columns, ", ") + ")";
+                // Same triggers as the ones of sqlitehelper.ftl
+                String delete = " BEGIN DELETE FROM " + ftsName + " WHERE docid=old._id; END";
+                String insert = " BEGIN INSERT INTO " + ftsName + "(docid, " + StringUtils.join(columns, ", ") + ") VALUES(new._id, "
+                        + StringUtils.join(values, ", ") + "); END";
+                res.putTrigger("bu", "BEFORE UPDATE", delete);
+                res.putTrigger("bd", "BEFORE DELETE", delete);
+                res.putTrigger("au", "AFTER UPDATE", insert);
+                res.putTrigger("ai", "AFTER INSERT", insert);
+            }
+            return res;
+        }
+
+        /**
+         * Same definition as the one of {@code sqlitehelper.ftl} (checked by {@code SchemaSnapshotTest}).
+         */
+        static Table syncState() {
+            Table res = new Table(SYNC_STATE_TABLE_NAME);
+            res.columns.put("_id", ID_COLUMN.substring("_id ".length()));
+            res.columns.put("endpoint", "TEXT NOT NULL");
+            res.columns.put("etag", "TEXT");
+            res.columns.put("last_modified", "TEXT");
+            res.columns.put("last_sync", "INTEGER NOT NULL");
+            res.columns.put("delta", "TEXT");
+            String name = "UIDX_SYNC_STATE_ENDPOINT";
+            res.indexes.put(name, "CREATE UNIQUE INDEX IF NOT EXISTS " + name + " ON " + res.name + " ( endpoint )");
+            return res;
+        }
+
+        private void putTrigger(String suffix, String event, String body) {
+            String triggerName = getFullTextTableName() + "_" + suffix;
+            triggers.put(triggerName, "CREATE TRIGGER IF NOT EXISTS " + triggerName + " " + event + " ON " + name + body);
+        }
+
+        String getFullTextTableName() {
+            return name + "_fts";
+        }
+
+        /**
+         * Same definition as the one of {@code sqlitehelper.ftl}.
+         */
+        private static String getDefinition(Field field) {
+            String res = field.getType().getSqlType();
+            if (!field.getIsNullable()) return res + " NOT NULL";
+            if (field.getHasDefaultValue()) return res + " DEFAULT '" + field.getDefaultValue() + "'";
+            return res;
+        }
+
+        static Table fromJson(JSONObject tableJson) {
+            Table res = new Table(tableJson.getString(Json.NAME));
+            JSONArray columnsJson = tableJson.getJSONArray(Json.COLUMNS);
+            for (int i = 0; i < columnsJson.length(); i++) {
+                String[] column = columnsJson.getString(i).split(" ", 2);
+                res.columns.put(column[0], column.length > 1 ? column[1] : "");
+            }
+            JSONArray constraintsJson = tableJson.getJSONArray(Json.CONSTRAINTS);
+            for (int i = 0; i < constraintsJson.length(); i++) {
+                res.constraints.add(constraintsJson.getString(i));
+            }
+            JSONArray indexesJson = tableJson.getJSONArray(Json.INDEXES);
+            for (int i = 0; i < indexesJson.length(); i++) {
+                JSONObject indexJson = indexesJson.getJSONObject(i);
+                res.indexes.put(indexJson.getString(Json.NAME), indexJson.getString(Json.SQL));
+            }
+            // Absent from the snapshots of the versions of the generator without full text search
+            res.fullText = tableJson.optString(Json.FULL_TEXT, null);
+            JSONArray triggersJson = tableJson.optJSONArray(Json.TRIGGERS);
+            for (int i = 0; triggersJson != null && i < triggersJson.length(); i++) {
+                JSONObject triggerJson = triggersJson.getJSONObject(i);
+                res.triggers.put(triggerJson.getString(Json.NAME), triggerJson.getString(Json.SQL));
+            }
+            return res;
+        }
+
+        JSONObject toJson() {
+            JSONObject res = new JSONObject();
+            res.put(Json.NAME, name);
+            JSONArray columnsJson = new JSONArray();
+            for (Map.Entry<String, String> column : columns.entrySet()) {
+                columnsJson.put((column.getKey() + " " + column.getValue()).trim());
+            }
+            res.put(Json.COLUMNS, columnsJson);
+            res.put(Json.CONSTRAINTS, new JSONArray(constraints));
+            JSONArray indexesJson = new JSONArray();
+            for (Map.Entry<String, String> index : indexes.entrySet()) {
+                JSONObject indexJson = new JSONObject();
+                indexJson.put(Json.NAME, index.getKey());
+                indexJson.put(Json.SQL, index.getValue());
+                indexesJson.put(indexJson);
+            }
+            res.put(Json.INDEXES, indexesJson);
+            if (fullText != null) {
+                res.put(Json.FULL_TEXT, fullText);
+                JSONArray triggersJson = new JSONArray();
+                for (Map.Entry<String, String> trigger : triggers.entrySet()) {
+                    JSONObject triggerJson = new JSONObject();
+                    triggerJson.put(Json.NAME, trigger.getKey());
+                    triggerJson.put(Json.SQL, trigger.getValue());
+                    triggersJson.put(triggerJson);
+                }
+                res.put(Json.TRIGGERS, triggersJson);
+            }
+            return res;
+        }
+
+        String getCreateSql(String tableName) {
+            List<String> definitions = new ArrayList<String>();
+            for (Map.Entry<String, String> column : columns.entrySet()) {
+                definitions.add((column.getKey() + " " + column.getValue()).trim());
+            }
+            definitions.addAll(constraints);
+            return "CREATE TABLE IF NOT EXISTS " + tableName + " ( " + StringUtils.join(definitions, ", ") + " )";
+        }
+
+        boolean hasSameColumns(Table other) {
+            return columns.equals(other.columns) && constraints.equals(other.constraints);
+        }
+
+        /**
+         * Returns the columns of this table referencing the {@code _id} of the given table with a foreign key.
+         */
+        List<String> getForeignKeyColumns(String referencedTable) {
+            List<String> res = new ArrayList<String>();
+            for (String constraint : constraints) {
+                Matcher matcher = FOREIGN_KEY_PATTERN.matcher(constraint);
+                while (matcher.find()) {
+                    if (matcher.group(2).equalsIgnoreCase(referencedTable)) res.add(matcher.group(1).toLowerCase());
+                }
+            }
+            return res;
+        }
+    }
+
+    private final File mFile;
+    private int mVersion = 1;
+    // null until the schema has been snapshot for the first time
+    private List<Table> mTables;
+    private final List<Migration> mMigrations = new ArrayList<Migration>();
+    // Whether the snapshot changed since it was loaded or saved
+    private boolean mUnrecorded;
+
+    private SchemaSnapshot(File inputDir) {
+        mFile = new File(inputDir, FILE_NAME);
+    }
+
+    /**
+     * Loads the snapshot from the given input folder, if it exists.
+     */
+    public static SchemaSnapshot load(File inputDir) throws IOException {
+        SchemaSnapshot res = new SchemaSnapshot(inputDir);
+        if (!res.mFile.exists()) return res;
+        try {
+            JSONObject snapshotJson = new JSONObject(FileUtils.readFileToString(res.mFile, "UTF-8"));
+            res.mVersion = snapshotJson.getInt(Json.VERSION);
+            res.mTables = new ArrayList<Table>();
+            JSONArray tablesJson = snapshotJson.getJSONArray(Json.TABLES);
+            for (int i = 0; i < tablesJson.length(); i++) {
+                res.mTables.add(Table.fromJson(tablesJson.getJSONObject(i)));
+            }
+            JSONArray migrationsJson = snapshotJson.getJSONArray(Json.MIGRATIONS);
+            for (int i = 0; i < migrationsJson.length(); i++) {
+                JSONObject migrationJson = migrationsJson.getJSONObject(i);
+                JSONArray statementsJson = migrationJson.getJSONArray(Json.STATEMENTS);
+                List<String> statements = new ArrayList<String>();
+                for (int j = 0; j < statementsJson.length(); j++) {
+                    statements.add(statementsJson.getString(j));
+                }
+                res.mMigrations.add(new Migration(migrationJson.getInt(Json.VERSION), statements));
+            }
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid " + FILE_NAME + ": " + e.getMessage(), e);
+        }
+        return res;
+    }
+
+    /**
+     * Whether the snapshot was loaded from its file, or has been created since.
+     */
+    public boolean exists() {
+        return mTables != null;
+    }
+
+    /**
+     * Compares the schema of the given model to this snapshot, and if it differs, creates a new version migrating the
+     * database to it.
+     * 
+     * @return {@code true} if the snapshot changed and must be saved.
+     */
+    public boolean update(Model model) {
+        List<Table> tables = getTables(model);
+        if (mTables == null) {
+            // First snapshot: the current schema is the one of the current version
+            mTables = tables;
+            mUnrecorded = true;
+            return true;
+        }
+        List<String> statements = getMigrationStatements(mTables, tables);
+        if (statements.isEmpty()) return false;
+        mVersion++;
+        mMigrations.add(new Migration(mVersion, statements));
+        mTables = tables;
+        mUnrecorded = true;
+        if (Config.LOGD) Log.d(TAG, "New schema version " + mVersion + ": " + statements);
+        return true;
+    }
+
+    /**
+     * Whether the schema of the given model differs from this snapshot (or there is no snapshot yet), in which case
+     * {@link #update(Model)} would create a new version.
+     */
+    public boolean isOutdated(Model model) {
+        return mTables == null || !getMigrationStatements(mTables, getTables(model)).isEmpty();
+    }
+
+    /**
+     * Returns the tables of the given model, and the {@link #SYNC_STATE_TABLE_NAME} table. It is always part of the
+     * schema, even when the {@code ApiService} is not generated, so that enabling or disabling the generation of the
+     * api or models does not drop the state of the syncs.
+     */
+    private static List<Table> getTables(Model model) {
+        List<Table> tables = new ArrayList<Table>();
+        for (Entity entity : model.getEntities()) {
+            tables.add(Table.fromEntity(entity));
+        }
+        if (model.getEntity(SYNC_STATE_TABLE_NAME) != null) {
+            throw new IllegalArgumentException("The entity '" + SYNC_STATE_TABLE_NAME + "' is reserved for the state of the syncs of the api");
+        }
+        tables.add(Table.syncState());
+        return tables;
+    }
+
+    private static List<String> getMigrationStatements(List<Table> oldTables, List<Table> newTables) {
+        Map<String, Table> oldTablesByName = new LinkedHashMap<String, Table>();
+        for (Table table : oldTables) {
+            oldTablesByName.put(table.name, table);
+        }
+        List<String> res = new ArrayList<String>();
+        for (Table table : newTables) {
+            Table oldTable = oldTablesByName.remove(table.name);
+            boolean fullTextChanged = oldTable == null || !StringUtils.equals(oldTable.fullText, table.fullText);
+            if (fullTextChanged && oldTable != null && oldTable.fullText != null) addDropFullTextStatements(res, oldTable);
+            if (oldTable == null) {
+                res.add(table.getCreateSql(table.name));
+                res.addAll(table.indexes.values());
+            } else if (oldTable.hasSameColumns(table)) {
+                addIndexStatements(res, oldTable, table, oldTables, newTables);
+            } else if (canAddColumns(oldTable, table)) {
+                for (Map.Entry<String, String> column : table.columns.entrySet()) {
+                    if (oldTable.columns.containsKey(column.getKey())) continue;
+                    res.add(("ALTER TABLE " + table.name + " ADD COLUMN " + column.getKey() + " " + column.getValue()).trim());
+                }
+                addIndexStatements(res, oldTable, table, oldTables, newTables);
+            } else {
+                addRebuildStatements(res, oldTable, table, oldTables, newTables);
+                // Dropping the old table also dropped its triggers, but the full text table is still valid since the
+                // rows kept their ids
+                if (!fullTextChanged) res.addAll(table.triggers.values());
+            }
+            if (fullTextChanged && table.fullText != null) {
+                res.add(table.fullText);
+                if (oldTable != null) res.add("INSERT INTO " + table.getFullTextTableName() + "(" + table.getFullTextTableName() + ") VALUES('rebuild')");
+                res.addAll(table.triggers.values());
+            }
+        }
+        for (Table removedTable : oldTablesByName.values()) {
+            if (removedTable.fullText != null) res.add("DROP TABLE IF EXISTS " + removedTable.getFullTextTableName());
+            res.add("DROP TABLE IF EXISTS " + removedTable.name);
+        }
+        return res;
+    }
+
+    /**
+     * Drops the full text table and its triggers, which must be created again from the rows of the table.
+     */
+    private static void addDropFullTextStatements(List<String> res, Table oldTable) {
+        for (String trigger : oldTable.triggers.keySet()) {
+            res.add("DROP TRIGGER IF EXISTS " + trigger);
+        }
+        res.add("DROP TABLE IF EXISTS " + oldTable.getFullTextTableName());
+    }
+
+    /**
+     * Whether the new table only adds columns to the old one, which can be added with {@code ALTER TABLE}: they must be
+     * nullable, or have a default value.
+     */
+    private static boolean canAddColumns(Table oldTable, Table newTable) {
+        if (!oldTable.constraints.equals(newTable.constraints)) return false;
+        for (Map.Entry<String, String> column : oldTable.columns.entrySet()) {
+            if (!column.getValue().equals(newTable.columns.get(column.getKey()))) return false;
+        }
+        for (Map.Entry<String, String> column : newTable.columns.entrySet()) {
+            if (oldTable.columns.containsKey(column.getKey())) continue;
+            if (isNotNull(column.getValue()) && !column.getValue().contains(" DEFAULT ")) return false;
+        }
+        return true;
+    }
+
+    private static void addIndexStatements(List<String> res, Table oldTable, Table newTable, List<Table> oldTables, List<Table> newTables) {
+        for (Map.Entry<String, String> index : oldTable.indexes.entrySet()) {
+            if (!index.getValue().equals(newTable.indexes.get(index.getKey()))) res.add("DROP INDEX IF EXISTS " + index.getKey());
+        }
+        for (Map.Entry<String, String> index : newTable.indexes.entrySet()) {
+            if (!index.getValue().equals(oldTable.indexes.get(index.getKey()))) {
+                addCreateIndexStatements(res, newTable, index.getValue(), oldTables, newTables);
+            }
+        }
+    }
+
+    /**
+     * Creates an index on a table which may already have rows, which a unique index could reject.<br/>
+     * Unless the entity allows it with {@code deleteDuplicates}, the migration is not recorded: the rows would otherwise
+     * be deleted without the developer knowing. If it does, the duplicates are deleted first, keeping the last inserted
+     * one of each set, and the rows of the tables referencing the deleted ones with a foreign key are repointed to the
+     * kept one (the foreign keys are not enforced during the migration, so their {@code ON DELETE} actions would not
+     * run). Like in the index, rows having a {@code NULL} value are never duplicates.
+     */
+    private static void addCreateIndexStatements(List<String> res, Table newTable, String createIndexSql, List<Table> oldTables,
+            List<Table> newTables) {
+        Matcher matcher = UNIQUE_INDEX_PATTERN.matcher(createIndexSql);
+        if (matcher.matches()) {
+            String table = matcher.group(2);
+            if (!newTable.deleteDuplicates) {
+                throw new IllegalArgumentException("Adding the unique index " + matcher.group(1) + " to the existing table '" + table
+                        + "' fails if it has duplicate rows: remove them before upgrading with an explicit migration, or set \""
+                        + EntityLoader.Json.DELETE_DUPLICATES + "\": true in the entity to delete them (keeping the last inserted one)");
+            }
+            List<String> columns = new ArrayList<String>();
+            List<String> notNull = new ArrayList<String>();
+            for (String column : matcher.group(3).split(", ")) {
+                // Without asc / desc
+                String name = column.split(" ")[0];
+                columns.add(name);
+                notNull.add(name + " IS NOT NULL");
+            }
+            String condition = matcher.group(4);
+            String where = condition == null ? "" : " WHERE " + condition;
+            String duplicates = "SELECT _id FROM " + table + " WHERE " + StringUtils.join(notNull, " AND ") + (condition == null ? "" : " AND " + condition)
+                    + " AND _id NOT IN ( SELECT MAX(_id) FROM " + table + where + " GROUP BY " + StringUtils.join(columns, ", ") + " )";
+            for (String[] foreignKey : getForeignKeys(table, oldTables, newTables)) {
+                // The kept row having the same values as the referenced one
+                List<String> sameValues = new ArrayList<String>();
+                for (String column : columns) {
+                    sameValues.add("k." + column + " = ( SELECT o." + column + " FROM " + table + " AS o WHERE o._id = " + foreignKey[0] + "."
+                            + foreignKey[1] + " )");
+                }
+                if (condition != null) sameValues.add(condition);
+                res.add("UPDATE " + foreignKey[0] + " SET " + foreignKey[1] + " = ( SELECT MAX(k._id) FROM " + table + " AS k WHERE "
+                        + StringUtils.join(sameValues, " AND ") + " ) WHERE " + foreignKey[1] + " IN ( " + duplicates + " )");
+            }
+            res.add("DELETE FROM " + table + " WHERE _id IN ( " + duplicates + " )");
+        }
+        res.add(createIndexSql);
+    }
+
+    /**
+     * Returns the table and column of the foreign keys referencing the given table, in the tables which exist before
+     * and after the migration.
+     */
+    private static List<String[]> getForeignKeys(String referencedTable, List<Table> oldTables, List<Table> newTables) {
+        Map<String, Table> oldTablesByName = new LinkedHashMap<String, Table>();
+        for (Table table : oldTables) {
+            oldTablesByName.put(table.name, table);
+        }
+        List<String[]> res = new ArrayList<String[]>();
+        for (Table table : newTables) {
+            Table oldTable = oldTablesByName.get(table.name);
+            if (oldTable == null) continue;
+            for (String column : table.getForeignKeyColumns(referencedTable)) {
+                if (oldTable.getForeignKeyColumns(referencedTable).contains(column)) res.add(new String[] { table.name, column });
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Creates the new table under a temporary name, copies the rows of the old one into it, then replaces the old one
+     * (which also drops its indexes) and creates the indexes of the new one.<br/>
+     * Columns which became {@code NOT NULL} are given a zero value ({@code 0}, {@code ''} or an empty blob) instead of
+     * {@code NULL}.
+     */
+    private static void addRebuildStatements(List<String> res, Table oldTable, Table newTable, List<Table> oldTables, List<Table> newTables) {
+        String newTableName = newTable.name + NEW_TABLE_SUFFIX;
+        res.add(newTable.getCreateSql(newTableName));
+        List<String> columns = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+        // The columns whose values change, so that their unique indexes may now reject some rows
+        List<String> changedColumns = new ArrayList<String>();
+        for (Map.Entry<String, String> column : newTable.columns.entrySet()) {
+            String name = column.getKey();
+            String definition = column.getValue();
+            String oldDefinition = oldTable.columns.get(name);
+            if (oldDefinition != null) {
+                columns.add(name);
+                if (isNotNull(definition) && !isNotNull(oldDefinition)) {
+                    values.add("COALESCE(" + name + ", " + getZeroValue(definition) + ")");
+                    changedColumns.add(name);
+                } else {
+                    values.add(name);
+                }
+            } else if (isNotNull(definition)) {
+                columns.add(name);
+                values.add(getZeroValue(definition));
+            }
+        }
+        res.add("INSERT INTO " + newTableName + " ( " + StringUtils.join(columns, ", ") + " ) SELECT " + StringUtils.join(values, ", ") + " FROM "
+                + oldTable.name);
+        res.add("DROP TABLE " + oldTable.name);
+        res.add("ALTER TABLE " + newTableName + " RENAME TO " + newTable.name);
+        for (Map.Entry<String, String> index : newTable.indexes.entrySet()) {
+            if (index.getValue().equals(oldTable.indexes.get(index.getKey())) && !hasColumn(index.getValue(), changedColumns)) {
+                // The rows were already unique
+                res.add(index.getValue());
+            } else {
+                addCreateIndexStatements(res, newTable, index.getValue(), oldTables, newTables);
+            }
+        }
+    }
+
+    /**
+     * Whether the given statement creating an index indexes one of the given columns.
+     */
+    private static boolean hasColumn(String createIndexSql, List<String> columns) {
+        Matcher matcher = UNIQUE_INDEX_PATTERN.matcher(createIndexSql);
+        if (!matcher.matches()) return false;
+        for (String column : matcher.group(3).split(", ")) {
+            if (columns.contains(column.split(" ")[0])) return true;
+        }
+        return false;
+    }
+
+    private static boolean isNotNull(String definition) {
+        return definition.contains(" NOT NULL") || definition.contains(" PRIMARY KEY");
+    }
+
+    private static String getZeroValue(String definition) {
+        if (definition.startsWith("TEXT")) return "''";
+        if (definition.startsWith("BLOB")) return "X''";
+        return "0";
+    }
+
+    public void save() throws IOException {
+        JSONObject snapshotJson = new JSONObject();
+        snapshotJson.put(Json.VERSION, mVersion);
+        JSONArray tablesJson = new JSONArray();
+        for (Table table : mTables) {
+            tablesJson.put(table.toJson());
+        }
+        snapshotJson.put(Json.TABLES, tablesJson);
+        JSONArray migrationsJson = new JSONArray();
+        for (Migration migration : mMigrations) {
+            JSONObject migrationJson = new JSONObject();
+            migrationJson.put(Json.VERSION, migration.getVersion());
+            migrationJson.put(Json.STATEMENTS, new JSONArray(migration.getStatements()));
+            migrationsJson.put(migrationJson);
+        }
+        snapshotJson.put(Json.MIGRATIONS, migrationsJson);
+        FileUtils.writeStringToFile(mFile, snapshotJson.toString(4), "UTF-8");
+        mUnrecorded = false;
+    }
+
+    /**
+     * Whether the current version is the one saved in {@code _schema.json}, as opposed to a version created by
+     * {@link #update(Model)} which was not saved.
+     */
+    public boolean isRecorded() {
+        return !mUnrecorded;
+    }
+
+    /**
+     * Returns the version of the schema, which is the database version.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    public List<Migration> getMigrations() {
+        return Collections.unmodifiableList(mMigrations);
+    }
+
+    /**
+     * Returns a digest of the version, whether it is recorded, and the migrations, which are the parts of the snapshot used by the generated code.
+     */
+    public String getDigest() {
+        List<String> parts = new ArrayList<String>();
+        parts.add(String.valueOf(mVersion));
+        parts.add(String.valueOf(mUnrecorded));
+        for (Migration migration : mMigrations) {
+            parts.add(String.valueOf(migration.getVersion()));
+            parts.addAll(migration.getStatements());
+        }
+        return Manifest.digest(parts.toArray(new String[parts.size()]));
+    }
+}
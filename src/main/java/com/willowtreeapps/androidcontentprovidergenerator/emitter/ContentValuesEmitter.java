@@ -0,0 +1,175 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.emitter;
+
+import java.io.IOException;
+
+import org.json.JSONObject;
+
+import com.willowtreeapps.androidcontentprovidergenerator.Main;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
+
+/**
+ * Java equivalent of {@code contentvalues.ftl}.
+ */
+public class ContentValuesEmitter extends JavaEmitter {
+    @Override
+    protected void emit(JSONObject config, Entity entity, Appendable out) throws IOException {
+        String providerJavaPackage = config.getString(Main.Json.PROVIDER_JAVA_PACKAGE);
+        String providerClassName = config.getString(Main.Json.PROVIDER_CLASS_NAME);
+        boolean generateModels = config.getBoolean(Main.Json.GENERATE_MODELS);
+        String entityCamelCase = entity.getNameCamelCase();
+        String contentValues = entityCamelCase + "ContentValues";
+        String columns = entityCamelCase + "Columns.";
+
+        out.append("package ").append(providerJavaPackage).append('.').append(entity.getNameLowerCase()).append(";\n");
+        out.append("\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import java.util.Date;\n");
+        out.append("import java.util.List;\n");
+        out.append("\n");
+        out.append("import android.content.ContentResolver;\n");
+        out.append("import android.content.ContentValues;\n");
+        out.append("import android.net.Uri;\n");
+        if (generateModels) {
+            out.append("import ").append(config.getString(Main.Json.PROJECT_PACKAGE_ID)).append(".model.").append(entityCamelCase).append("Model;\n");
+        }
+        out.append("import ").append(providerJavaPackage).append(".base.AbstractContentValues;\n");
+        if (entity.getHasNaturalKey()) {
+            out.append("import ").append(providerJavaPackage).append('.').append(providerClassName).append(";\n");
+        }
+        out.append("\n");
+        out.append("/**\n");
+        out.append(" * Content values wrapper for the {@code ").append(entity.getNameLowerCase()).append("} table.\n");
+        out.append(" */\n");
+        out.append("public class ").append(contentValues).append(" extends AbstractContentValues {\n");
+        out.append("    @Override\n");
+        out.append("    public Uri uri() {\n");
+        out.append("        return ").append(columns).append("CONTENT_URI;\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Update row(s) using the values stored by this object and the given selection.\n");
+        out.append("     * \n");
+        out.append("     * @param contentResolver The content resolver to use.\n");
+        out.append("     * @param where The selection to use (can be {@code null}).\n");
+        out.append("     */\n");
+        out.append("    public int update(ContentResolver contentResolver, ").append(entityCamelCase).append("Selection where) {\n");
+        out.append("        return contentResolver.update(uri(), values(), where == null ? null : where.sel(), where == null ? null : where.args());\n");
+        out.append("    }\n");
+        if (entity.getHasNaturalKey()) {
+            StringBuilder naturalKey = new StringBuilder();
+            for (Field field : entity.getNaturalKey()) {
+                if (naturalKey.length() > 0) naturalKey.append(", ");
+                naturalKey.append(field.getNameLowerCase());
+            }
+            out.append("\n");
+            out.append("    /**\n");
+            out.append("     * Inserts a row using the values stored by this object, or updates the row having the same natural key\n");
+            out.append("     * ({@code ").append(naturalKey).append("}).\n");
+            out.append("     * \n");
+            out.append("     * @param contentResolver The content resolver to use.\n");
+            out.append("     */\n");
+            out.append("    public Uri upsert(ContentResolver contentResolver) {\n");
+            out.append("        return contentResolver.insert(").append(providerClassName).append(".upsert(uri()), values());\n");
+            out.append("    }\n");
+            out.append("\n");
+            out.append("    /**\n");
+            out.append("     * Inserts rows using the given values, or updates the rows having the same natural key\n");
+            out.append("     * ({@code ").append(naturalKey).append("}), in one transaction.\n");
+            out.append("     * \n");
+            out.append("     * @param contentResolver The content resolver to use.\n");
+            out.append("     * @return The number of inserted or updated rows.\n");
+            out.append("     */\n");
+            out.append("    public static int bulkUpsert(ContentResolver contentResolver, ").append(contentValues).append("... values) {\n");
+            out.append("        ContentValues[] contentValues = new ContentValues[values.length];\n");
+            out.append("        for (int i = 0; i < values.length; i++) {\n");
+            out.append("            contentValues[i] = values[i].values();\n");
+            out.append("        }\n");
+            out.append("        return contentResolver.bulkInsert(").append(providerClassName).append(".upsert(").append(columns).append("CONTENT_URI), contentValues);\n");
+            out.append("    }\n");
+        }
+        for (Field field : entity.getFields()) {
+            String column = columns + field.getNameUpperCase();
+            String nullCheck = field.getIsNullable() ? "value == null ? null : " : "";
+            out.append("\n");
+            out.append("    public ").append(contentValues).append(" put").append(field.getNameCamelCase()).append("(").append(field.getJavaTypeSimpleName())
+                    .append(" value) {\n");
+            if (!field.getIsNullable() && !field.getType().hasNotNullableJavaType()) {
+                out.append("        if (value == null) throw new IllegalArgumentException(\"value for ").append(field.getNameCamelCaseLowerCase())
+                        .append(" must not be null\");\n");
+            }
+            switch (field.getType()) {
+                case DATE:
+                    out.append("        mContentValues.put(").append(column).append(", ").append(nullCheck).append("value.getTime());\n");
+                    break;
+                case ENUM:
+                    out.append("        mContentValues.put(").append(column).append(", ").append(nullCheck).append("value.ordinal());\n");
+                    break;
+                default:
+                    out.append("        mContentValues.put(").append(column).append(", value);\n");
+                    break;
+            }
+            out.append("        return this;\n");
+            out.append("    }\n");
+            out.append("\n");
+            if (field.getIsNullable()) {
+                out.append("    public ").append(contentValues).append(" put").append(field.getNameCamelCase()).append("Null() {\n");
+                out.append("        mContentValues.putNull(").append(column).append(");\n");
+                out.append("        return this;\n");
+                out.append("    }\n");
+            }
+            out.append("\n");
+            if (field.getType() == Field.Type.DATE) {
+                out.append("    public ").append(contentValues).append(" put").append(field.getNameCamelCase()).append("(")
+                        .append(field.getIsNullable() ? "Long" : "long").append(" value) {\n");
+                out.append("        mContentValues.put(").append(column).append(", value);\n");
+                out.append("        return this;\n");
+                out.append("    }\n");
+                out.append("\n");
+            }
+        }
+        out.append("\n");
+        if (generateModels) {
+            out.append("    public static ContentValues[] getContentValues(").append(entityCamelCase).append("Model... items){\n");
+            out.append("        List<ContentValues> values = new ArrayList<ContentValues>();\n");
+            out.append("        for(").append(entityCamelCase).append("Model item : items){\n");
+            out.append("            values.add(getSingleContentValue(item));\n");
+            out.append("        }\n");
+            out.append("        return values.toArray(new ContentValues[values.size()]);\n");
+            out.append("    }\n");
+            out.append("\n");
+            out.append("    public static ContentValues getSingleContentValue(").append(entityCamelCase).append("Model item){\n");
+            out.append("        ").append(contentValues).append(" values = new ").append(contentValues).append("();\n");
+            for (Field field : entity.getFields()) {
+                out.append("        values.put").append(field.getNameCamelCase()).append("(item.").append(field.getNameCamelCaseLowerCase()).append(");\n");
+            }
+            out.append("        return values.values();\n");
+            out.append("    }\n");
+        }
+        out.append("}\n");
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.emitter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.json.JSONObject;
+
+import com.willowtreeapps.androidcontentprovidergenerator.Main;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
+
+/**
+ * Java equivalent of {@code cursor.ftl}.
+ */
+public class CursorEmitter extends JavaEmitter {
+    @Override
+    protected void emit(JSONObject config, Entity entity, Appendable out) throws IOException {
+        String providerJavaPackage = config.getString(Main.Json.PROVIDER_JAVA_PACKAGE);
+        String entityCamelCase = entity.getNameCamelCase();
+        String columns = entityCamelCase + "Columns.";
+
+        out.append("package ").append(providerJavaPackage).append('.').append(entity.getNameLowerCase()).append(";\n");
+        out.append("\n");
+        out.append("import java.util.Date;\n");
+        out.append("\n");
+        out.append("import android.database.Cursor;\n");
+        out.append("\n");
+        out.append("import ").append(providerJavaPackage).append(".base.AbstractCursor;\n");
+        out.append("\n");
+        out.append("/**\n");
+        out.append(" * Cursor wrapper for the {@code ").append(entity.getNameLowerCase()).append("} table.<br/>\n");
+        out.append(" * The index of each column is only resolved once, the first time it is read.\n");
+        out.append(" */\n");
+        out.append("public class ").append(entityCamelCase).append("Cursor extends AbstractCursor {\n");
+        List<Field> fields = entity.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            out.append("    private static final int INDEX_").append(fields.get(i).getNameUpperCase()).append(" = ").append(String.valueOf(i + 1)).append(";\n");
+        }
+        if (!fields.isEmpty()) {
+            out.append("\n");
+        }
+        out.append("    public ").append(entityCamelCase).append("Cursor(Cursor cursor) {\n");
+        out.append("        super(cursor, ").append(entityCamelCase).append("Columns.FULL_PROJECTION);\n");
+        out.append("    }\n");
+        for (Field field : fields) {
+            String index = "getCachedColumnIndexOrThrow(INDEX_" + field.getNameUpperCase() + ")";
+            Field.Type type = field.getType();
+            out.append("\n");
+            out.append("    /**\n");
+            out.append("     * Get the {@code ").append(field.getNameLowerCase()).append("} value.\n");
+            if (field.getIsNullable()) {
+                out.append("     * Can be {@code null}.\n");
+            } else if (!type.hasNotNullableJavaType()) {
+                out.append("     * Cannot be {@code null}.\n");
+            }
+            out.append("     */\n");
+            out.append("    public ").append(field.getJavaTypeSimpleName()).append(" get").append(field.getNameCamelCase()).append("() {\n");
+            switch (type) {
+                case STRING:
+                    out.append("        return getString(").append(index).append(");\n");
+                    break;
+                case INTEGER:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                    if (field.getIsNullable()) {
+                        out.append("        return get").append(type.getNullableJavaType().getSimpleName()).append("OrNull(").append(index).append(");\n");
+                    } else {
+                        out.append("        return get").append(getPrimitiveName(type)).append("OrThrow(").append(index).append(");\n");
+                    }
+                    break;
+                case BOOLEAN:
+                    if (field.getIsNullable()) {
+                        out.append("        return getBooleanOrNull(").append(index).append(");\n");
+                    } else {
+                        out.append("        return getBooleanOrThrow(").append(index).append(");\n");
+                    }
+                    break;
+                case DATE:
+                    out.append("        return getDate(").append(index).append(");\n");
+                    break;
+                case BYTE_ARRAY:
+                    out.append("        return getBlob(").append(index).append(");\n");
+                    break;
+                case ENUM:
+                    out.append("        int index = ").append(index).append(";\n");
+                    out.append("        if (isNull(index)) return null;\n");
+                    out.append("        return ").append(field.getJavaTypeSimpleName()).append(".values()[getInt(index)];\n");
+                    break;
+            }
+            out.append("    }\n");
+            if (field.getIsNullable()) {
+                out.append("\n");
+                out.append("    /**\n");
+                out.append("     * Whether the {@code ").append(field.getNameLowerCase()).append("} value is {@code null}.\n");
+                out.append("     */\n");
+                out.append("    public boolean is").append(field.getNameCamelCase()).append("Null() {\n");
+                out.append("        return isNull(").append(index).append(");\n");
+                out.append("    }\n");
+            }
+            switch (type) {
+                case INTEGER:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case BOOLEAN:
+                    if (field.getIsNullable()) {
+                        String primitive = type.getNotNullableJavaType().getSimpleName();
+                        out.append("\n");
+                        out.append("    /**\n");
+                        out.append("     * Get the {@code ").append(field.getNameLowerCase()).append("} value, without boxing it.\n");
+                        out.append("     * Returns {@code defaultValue} if it is {@code null}.\n");
+                        out.append("     */\n");
+                        out.append("    public ").append(primitive).append(" get").append(field.getNameCamelCase()).append("As").append(getPrimitiveName(type))
+                                .append('(').append(primitive).append(" defaultValue) {\n");
+                        out.append("        return get").append(getPrimitiveName(type)).append('(').append(index).append(", defaultValue);\n");
+                        out.append("    }\n");
+                    }
+                    break;
+                case DATE:
+                    out.append("\n");
+                    out.append("    /**\n");
+                    out.append("     * Get the {@code ").append(field.getNameLowerCase()).append("} value in milliseconds, without allocating a {@code Date}.\n");
+                    out.append("     * Returns {@code defaultValue} if it is {@code null}.\n");
+                    out.append("     */\n");
+                    out.append("    public long get").append(field.getNameCamelCase()).append("AsLong(long defaultValue) {\n");
+                    out.append("        return getLong(").append(index).append(", defaultValue);\n");
+                    out.append("    }\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+        out.append("}\n");
+    }
+
+    /**
+     * Returns the capitalized name of the primitive type of the given type, e.g. {@code Int} for {@link Field.Type#INTEGER}.
+     */
+    private static String getPrimitiveName(Field.Type type) {
+        String res = type.getNotNullableJavaType().getSimpleName();
+        return Character.toUpperCase(res.charAt(0)) + res.substring(1);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.emitter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+
+/**
+ * Base class for the emitters written in Java, which produce exactly the same output as their template, without the
+ * cost of interpreting it.<br/>
+ * Instances are stateless and can be used by several threads.
+ */
+public abstract class JavaEmitter implements Emitter {
+    private static final Map<String, JavaEmitter> EMITTERS = new HashMap<String, JavaEmitter>();
+
+    static {
+        EMITTERS.put("cursor.ftl", new CursorEmitter());
+        EMITTERS.put("contentvalues.ftl", new ContentValuesEmitter());
+        EMITTERS.put("selection.ftl", new SelectionEmitter());
+    }
+
+    /**
+     * Returns the Java emitter equivalent to the given template, or {@code null} if there is none.
+     */
+    public static JavaEmitter forTemplate(String templateName) {
+        return EMITTERS.get(templateName);
+    }
+
+    @Override
+    public void emit(Map<String, Object> root, Writer out) throws IOException {
+        JSONObject config = (JSONObject) root.get("config");
+        String header = (String) root.get("header");
+        Entity entity = (Entity) root.get("entity");
+        if (header != null) {
+            out.append(header).append('\n');
+        }
+        emit(config, entity, out);
+    }
+
+    protected abstract void emit(JSONObject config, Entity entity, Appendable out) throws IOException;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2012 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.emitter;
+
+import java.io.IOException;
+
+import org.json.JSONObject;
+
+import com.willowtreeapps.androidcontentprovidergenerator.Main;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Field;
+
+/**
+ * Java equivalent of {@code selection.ftl}.
+ */
+public class SelectionEmitter extends JavaEmitter {
+    @Override
+    protected void emit(JSONObject config, Entity entity, Appendable out) throws IOException {
+        String providerJavaPackage = config.getString(Main.Json.PROVIDER_JAVA_PACKAGE);
+        String entityCamelCase = entity.getNameCamelCase();
+        String selection = entityCamelCase + "Selection";
+        String columns = entityCamelCase + "Columns";
+
+        out.append("package ").append(providerJavaPackage).append('.').append(entity.getNameLowerCase()).append(";\n");
+        out.append("\n");
+        out.append("import java.util.Date;\n");
+        out.append("\n");
+        out.append("import android.content.ContentResolver;\n");
+        out.append("import android.database.Cursor;\n");
+        out.append("import android.net.Uri;\n");
+        out.append("\n");
+        out.append("import ").append(providerJavaPackage).append(".base.AbstractSelection;\n");
+        out.append("\n");
+        out.append("/**\n");
+        out.append(" * Selection for the {@code ").append(entity.getNameLowerCase()).append("} table.\n");
+        out.append(" */\n");
+        out.append("public class ").append(selection).append(" extends AbstractSelection<").append(selection).append("> {\n");
+        out.append("    @Override\n");
+        out.append("    public Uri uri() {\n");
+        out.append("        return ").append(entityCamelCase).append("Columns.CONTENT_URI;\n");
+        out.append("    }\n");
+        out.append("    \n");
+        out.append("    /**\n");
+        out.append("     * Query the given content resolver using this selection.\n");
+        out.append("     * \n");
+        out.append("     * @param contentResolver The content resolver to query.\n");
+        out.append("     * @param projection A list of which columns to return. Passing null will return all columns, which is inefficient.\n");
+        out.append("     * @param sortOrder How to order the rows, formatted as an SQL ORDER BY clause (excluding the ORDER BY itself). Passing null will use the\n");
+        out.append("     *            {@link ").append(columns).append("#DEFAULT_ORDER} then the id, which is the order expected by {@link #after(Object, long)}.\n");
+        out.append("     * @return A {@code ").append(entityCamelCase).append("Cursor} object, which is positioned before the first entry, or null.\n");
+        out.append("     */\n");
+        out.append("    public ").append(entityCamelCase).append("Cursor query(ContentResolver contentResolver, String[] projection, String sortOrder) {\n");
+        out.append("        if (sortOrder == null) sortOrder = defaultOrder(").append(columns).append(".DEFAULT_ORDER, ").append(columns).append("._ID);\n");
+        out.append("        Cursor cursor = contentResolver.query(queryUri(), projection, sel(), args(), sortOrder);\n");
+        out.append("        if (cursor == null) return null;\n");
+        out.append("        return new ").append(entityCamelCase).append("Cursor(cursor);\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Equivalent of calling {@code query(contentResolver, projection, null}.\n");
+        out.append("     */\n");
+        out.append("    public ").append(entityCamelCase).append("Cursor query(ContentResolver contentResolver, String[] projection) {\n");
+        out.append("        return query(contentResolver, projection, null);\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Equivalent of calling {@code query(contentResolver, projection, null, null}.\n");
+        out.append("     */\n");
+        out.append("    public ").append(entityCamelCase).append("Cursor query(ContentResolver contentResolver) {\n");
+        out.append("        return query(contentResolver, null, null);\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Query the given content resolver using this selection, for the columns of the given projection only (the getters of\n");
+        out.append("     * the returned cursor can only be used for these columns).\n");
+        out.append("     */\n");
+        out.append("    public ").append(entityCamelCase).append("Cursor queryProjection(ContentResolver contentResolver, ").append(columns)
+                .append(".Projection projection, String sortOrder) {\n");
+        out.append("        return query(contentResolver, projection.columns(), sortOrder);\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Equivalent of calling {@code queryProjection(contentResolver, projection, null)}.\n");
+        out.append("     */\n");
+        out.append("    public ").append(entityCamelCase).append("Cursor queryProjection(ContentResolver contentResolver, ").append(columns)
+                .append(".Projection projection) {\n");
+        out.append("        return queryProjection(contentResolver, projection, null);\n");
+        out.append("    }\n");
+        out.append("\n");
+        out.append("    /**\n");
+        out.append("     * Restricts this selection to the rows following the given row, in the {@link ").append(columns)
+                .append("#DEFAULT_ORDER} then id order\n");
+        out.append("     * (keyset pagination). To get the next page of a query, call this method again with the values of the last row of the\n");
+        out.append("     * current page, then query again.<br/>\n");
+        out.append("     * {@code DEFAULT_ORDER} must be a single column sorted in ascending order.\n");
+        out.append("     *\n");
+        out.append("     * @param sortKey The value of the {@code DEFAULT_ORDER} column of the row (ignored if it is the id).\n");
+        out.append("     * @param id The id of the row.\n");
+        out.append("     */\n");
+        out.append("    public ").append(selection).append(" after(Object sortKey, long id) {\n");
+        out.append("        setAfter(").append(columns).append(".DEFAULT_ORDER, ").append(columns).append("._ID, sortKey, id);\n");
+        out.append("        return this;\n");
+        out.append("    }\n");
+        if (entity.getHasFullText()) {
+            out.append("\n");
+            out.append("    /**\n");
+            out.append("     * Restricts this selection to the rows whose full text fields match the given full text query (for instance\n");
+            out.append("     * {@code \"john*\"}), using the full text index of the table. Unless another order is given, the rows are ordered by\n");
+            out.append("     * rank (the number of matches) rather than in the order expected by {@link #after(Object, long)}: use\n");
+            out.append("     * {@link #limit(int)} to get the best results only.\n");
+            out.append("     */\n");
+            out.append("    public ").append(selection).append(" match(String query) {\n");
+            out.append("        setMatch(").append(columns).append(".SEARCH_URI, query);\n");
+            out.append("        return this;\n");
+            out.append("    }\n");
+        }
+        out.append("    \n");
+        out.append("    \n");
+        out.append("    public ").append(selection).append(" id(long... value) {\n");
+        out.append("        addEquals(").append(entityCamelCase).append("Columns._ID, toObjectArray(value));\n");
+        out.append("        return this;\n");
+        out.append("    }\n");
+        for (Field field : entity.getFields()) {
+            String column = entityCamelCase + "Columns." + field.getNameUpperCase();
+            String name = field.getNameCamelCaseLowerCase();
+            String value = field.getIsConvertionNeeded() ? "toObjectArray(value)" : "value";
+            out.append("\n");
+            appendMethod(out, selection, name, field.getJavaTypeSimpleName() + "...", "addEquals", column, value);
+            out.append("    \n");
+            appendMethod(out, selection, name + "Not", field.getJavaTypeSimpleName() + "...", "addNotEquals", column, value);
+            out.append("\n");
+            switch (field.getType()) {
+                case DATE:
+                    appendMethod(out, selection, name, field.getIsNullable() ? "Long..." : "long...", "addEquals", column,
+                            field.getIsNullable() ? "value" : "toObjectArray(value)");
+                    out.append("\n");
+                    appendComparisons(out, selection, name, "After", "AfterEq", "Before", "BeforeEq", "Date", column);
+                    break;
+                case INTEGER:
+                    appendComparisons(out, selection, name, "Gt", "GtEq", "Lt", "LtEq", "int", column);
+                    break;
+                case LONG:
+                    appendComparisons(out, selection, name, "Gt", "GtEq", "Lt", "LtEq", "long", column);
+                    break;
+                case FLOAT:
+                    appendComparisons(out, selection, name, "Gt", "GtEq", "Lt", "LtEq", "float", column);
+                    break;
+                case DOUBLE:
+                    appendComparisons(out, selection, name, "Gt", "GtEq", "Lt", "LtEq", "double", column);
+                    break;
+                default:
+                    break;
+            }
+        }
+        out.append("}\n");
+    }
+
+    private static void appendComparisons(Appendable out, String selection, String name, String gt, String gtEq, String lt, String ltEq,
+            String type, String column) throws IOException {
+        appendMethod(out, selection, name + gt, type, "addGreaterThan", column, "value");
+        out.append("\n");
+        appendMethod(out, selection, name + gtEq, type, "addGreaterThanOrEquals", column, "value");
+        out.append("\n");
+        appendMethod(out, selection, name + lt, type, "addLessThan", column, "value");
+        out.append("\n");
+        appendMethod(out, selection, name + ltEq, type, "addLessThanOrEquals", column, "value");
+    }
+
+    private static void appendMethod(Appendable out, String selection, String methodName, String type, String addMethod, String column,
+            String value) throws IOException {
+        out.append("    public ").append(selection).append(' ').append(methodName).append('(').append(type).append(" value) {\n");
+        out.append("        ").append(addMethod).append('(').append(column).append(", ").append(value).append(");\n");
+        out.append("        return this;\n");
+        out.append("    }\n");
+    }
+}
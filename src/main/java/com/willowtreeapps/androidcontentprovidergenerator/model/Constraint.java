@@ -31,18 +31,22 @@ public class Constraint {
 
     private final String mName;
     private final String mDefinition;
+    private final String mNameUpperCase;
+    private final String mDefinitionUpperCase;
 
     public Constraint(String name, String definition) {
         mName = name.toLowerCase();
         mDefinition = definition.toLowerCase();
+        mNameUpperCase = mName.toUpperCase();
+        mDefinitionUpperCase = mDefinition.toUpperCase();
     }
 
     public String getNameUpperCase() {
-        return mName.toUpperCase();
+        return mNameUpperCase;
     }
 
     public String getDefinitionUpperCase() {
-        return mDefinition.toUpperCase();
+        return mDefinitionUpperCase;
     }
 
     @Override
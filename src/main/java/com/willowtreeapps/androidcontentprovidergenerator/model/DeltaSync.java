@@ -0,0 +1,70 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.model;
+
+/**
+ * The delta sync of an entity: the server can return only the rows which changed since a given value of a field (a
+ * version or a timestamp), including the deleted ones, which are flagged by a tombstone field.
+ */
+public class DeltaSync {
+    public static class Json {
+        public static final String FIELD = "field";
+        public static final String QUERY_PARAM = "queryParam";
+        public static final String TOMBSTONE = "tombstone";
+    }
+
+    private final String mField;
+    private final String mQueryParam;
+    private final String mTombstone;
+
+    /**
+     * @param field The name of the field whose largest value is sent back to get the next changes.
+     * @param queryParam The query parameter giving that value to the server.
+     * @param tombstone The name of the boolean field flagging the deleted rows, or {@code null} if the server does not
+     *            send them.
+     */
+    public DeltaSync(String field, String queryParam, String tombstone) {
+        mField = field.toLowerCase();
+        mQueryParam = queryParam;
+        mTombstone = tombstone == null ? null : tombstone.toLowerCase();
+    }
+
+    public String getField() {
+        return mField;
+    }
+
+    public String getQueryParam() {
+        return mQueryParam;
+    }
+
+    public String getTombstone() {
+        return mTombstone;
+    }
+
+    @Override
+    public String toString() {
+        return "DeltaSync [mField=" + mField + ", mQueryParam=" + mQueryParam + ", mTombstone=" + mTombstone + "]";
+    }
+}
@@ -25,51 +25,279 @@
 package com.willowtreeapps.androidcontentprovidergenerator.model;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.WordUtils;
 
 public class Entity {
+    // The table referenced by a foreign key constraint
+    private static final Pattern REFERENCES = Pattern.compile("REFERENCES\\s+(\\w+)");
+    // A constraint making an insert replace the conflicting rows
+    private static final Pattern ON_CONFLICT_REPLACE = Pattern.compile("ON\\s+CONFLICT\\s+REPLACE");
+
     private final String mName;
-    private String url = "null";
-    private final List<Field> mFields = new ArrayList<Field>();
-    private final List<Constraint> mConstraints = new ArrayList<Constraint>();
-    private final List<String> mQueryParams = new ArrayList<String>();
+    private final String mNameCamelCase;
+    private final String mNameCamelCaseLowerCase;
+    private final String mNameUpperCase;
+    private final String mUrl;
+    private final List<String> mUrlPathParams;
+    private final List<Field> mFields;
+    private final Map<String, Field> mFieldsByName;
+    private final List<Constraint> mConstraints;
+    private final List<String> mReferencedTables;
+    private final boolean mHasReplaceConflict;
+    private final List<Index> mIndexes;
+    private final List<String> mQueryParams;
+    private final List<Field> mNaturalKey;
+    private final List<Field> mFullTextFields;
+    private final DeltaSync mDeltaSync;
+    private final Field mDeltaSyncField;
+    private final Field mTombstoneField;
+    private final ModelCache mModelCache;
+    private final boolean mDeleteDuplicates;
 
-    public void setUrl(String url){
-        this.url = url;
+    /**
+     * @param naturalKey The names of the fields identifying a row, used to update existing rows instead of inserting
+     *            duplicates. Can be empty.
+     * @param deltaSync The delta sync of the entity, or {@code null} if the server always returns all its rows.
+     * @param modelCache The cache of the models of the entity, or {@code null} if they are not cached.
+     * @param deleteDuplicates Whether the migration adding a unique index (or a natural key) to the existing table may
+     *            delete the rows it would reject.
+     */
+    public Entity(String name, String url, List<Field> fields, List<Constraint> constraints, List<Index> indexes, List<String> queryParams,
+            List<String> naturalKey, DeltaSync deltaSync, ModelCache modelCache, boolean deleteDuplicates) {
+        mName = name.toLowerCase();
+        mNameCamelCase = WordUtils.capitalizeFully(mName, new char[] { '_' }).replaceAll("_", "");
+        mNameCamelCaseLowerCase = WordUtils.uncapitalize(mNameCamelCase);
+        mNameUpperCase = mName.toUpperCase();
+        mUrl = url;
+        List<String> urlPathParams = new ArrayList<String>();
+        if (url != null) {
+            for (String segment : url.split("/")) {
+                if (segment.startsWith("{") && segment.endsWith("}")) urlPathParams.add(segment.substring(1, segment.length() - 1));
+            }
+        }
+        mUrlPathParams = Collections.unmodifiableList(urlPathParams);
+        mFields = Collections.unmodifiableList(new ArrayList<Field>(fields));
+        Map<String, Field> fieldsByName = new HashMap<String, Field>();
+        for (Field field : mFields) {
+            fieldsByName.put(field.getNameLowerCase(), field);
+        }
+        mFieldsByName = Collections.unmodifiableMap(fieldsByName);
+        mConstraints = Collections.unmodifiableList(new ArrayList<Constraint>(constraints));
+        List<String> referencedTables = new ArrayList<String>();
+        boolean hasReplaceConflict = false;
+        for (Constraint constraint : mConstraints) {
+            Matcher matcher = REFERENCES.matcher(constraint.getDefinitionUpperCase());
+            while (matcher.find()) {
+                referencedTables.add(matcher.group(1).toLowerCase());
+            }
+            if (ON_CONFLICT_REPLACE.matcher(constraint.getDefinitionUpperCase()).find()) hasReplaceConflict = true;
+        }
+        mReferencedTables = Collections.unmodifiableList(referencedTables);
+        mHasReplaceConflict = hasReplaceConflict;
+        for (Index index : indexes) {
+            for (Index.Column column : index.getColumns()) {
+                if (!column.getNameLowerCase().equals("_id") && !mFieldsByName.containsKey(column.getNameLowerCase())) {
+                    throw new IllegalArgumentException("The column '" + column.getNameLowerCase() + "' of the index '" + index.getNameLowerCase()
+                            + "' of the entity '" + mName + "' is unknown");
+                }
+            }
+            // The statements creating the indexes are named after the index or the indexed field
+            Field field = mFieldsByName.get(index.getNameLowerCase());
+            if (field != null && field.getIsIndex()) {
+                throw new IllegalArgumentException("The index '" + index.getNameLowerCase() + "' of the entity '" + mName
+                        + "' has the same name as an indexed field");
+            }
+        }
+        mIndexes = Collections.unmodifiableList(new ArrayList<Index>(indexes));
+        mQueryParams = Collections.unmodifiableList(new ArrayList<String>(queryParams));
+        List<Field> naturalKeyFields = new ArrayList<Field>(naturalKey.size());
+        for (String fieldName : naturalKey) {
+            Field field = mFieldsByName.get(fieldName.toLowerCase());
+            if (field == null) throw new IllegalArgumentException("The natural key field '" + fieldName + "' of the entity '" + mName + "' is unknown");
+            naturalKeyFields.add(field);
+        }
+        mNaturalKey = Collections.unmodifiableList(naturalKeyFields);
+        List<Field> fullTextFields = new ArrayList<Field>();
+        for (Field field : mFields) {
+            if (field.getIsFullText()) fullTextFields.add(field);
+        }
+        mFullTextFields = Collections.unmodifiableList(fullTextFields);
+        mDeltaSync = deltaSync;
+        if (deltaSync == null) {
+            mDeltaSyncField = null;
+            mTombstoneField = null;
+        } else {
+            mDeltaSyncField = getDeltaSyncField(deltaSync);
+            mTombstoneField = getTombstoneField(deltaSync);
+        }
+        if (modelCache != null && !modelCache.isValid()) {
+            throw new IllegalArgumentException("The model cache of the entity '" + mName + "' must have either a positive '" + ModelCache.Json.MAX_ENTRIES
+                    + "' or a positive '" + ModelCache.Json.MAX_BYTES + "'");
+        }
+        mModelCache = modelCache;
+        mDeleteDuplicates = deleteDuplicates;
     }
 
-    public String getUrl(){
-        return this.url;
+    private Field getDeltaSyncField(DeltaSync deltaSync) {
+        if (mUrl == null || mUrl.isEmpty()) throw new IllegalArgumentException("The entity '" + mName + "' has a delta sync but no url");
+        // The changed rows must be found to be updated, and the deleted ones to be deleted
+        if (mNaturalKey.isEmpty()) throw new IllegalArgumentException("The entity '" + mName + "' has a delta sync but no natural key");
+        if (mQueryParams.contains(deltaSync.getQueryParam()) || getUrlPathParams().contains(deltaSync.getQueryParam())) {
+            throw new IllegalArgumentException("The delta sync query parameter '" + deltaSync.getQueryParam() + "' of the entity '" + mName
+                    + "' is already a parameter of its url");
+        }
+        Field res = mFieldsByName.get(deltaSync.getField());
+        if (res == null) throw new IllegalArgumentException("The delta sync field '" + deltaSync.getField() + "' of the entity '" + mName + "' is unknown");
+        // Values which can be compared, and sent back as they were received
+        if (res.getType() != Field.Type.INTEGER && res.getType() != Field.Type.LONG && res.getType() != Field.Type.STRING) {
+            throw new IllegalArgumentException("The delta sync field '" + deltaSync.getField() + "' of the entity '" + mName
+                    + "' must be an Integer, a Long or a String");
+        }
+        return res;
     }
 
-    public Entity(String name) {
-        mName = name.toLowerCase();
+    private Field getTombstoneField(DeltaSync deltaSync) {
+        if (deltaSync.getTombstone() == null) return null;
+        Field res = mFieldsByName.get(deltaSync.getTombstone());
+        if (res == null) throw new IllegalArgumentException("The tombstone field '" + deltaSync.getTombstone() + "' of the entity '" + mName + "' is unknown");
+        if (res.getType() != Field.Type.BOOLEAN) {
+            throw new IllegalArgumentException("The tombstone field '" + deltaSync.getTombstone() + "' of the entity '" + mName + "' must be a Boolean");
+        }
+        return res;
     }
 
-    public void addField(Field field) {
-        mFields.add(field);
+    public String getUrl() {
+        return mUrl;
     }
 
     public List<Field> getFields() {
-        return Collections.unmodifiableList(mFields);
+        return mFields;
     }
 
-    public List<String> getQueryParams(){return Collections.unmodifiableList(mQueryParams);}
+    /**
+     * Returns the field with the given (lower case) name, or {@code null} if there is none.
+     */
+    public Field getField(String name) {
+        return mFieldsByName.get(name);
+    }
 
-    public void addQueryParam(String queryParam){mQueryParams.add(queryParam);}
+    public List<String> getQueryParams() {
+        return mQueryParams;
+    }
 
-    public void addConstraint(Constraint constraint) {
-        mConstraints.add(constraint);
+    /**
+     * Returns the names of the parameters of the url path (the {@code {name}} segments), in order.
+     */
+    public List<String> getUrlPathParams() {
+        return mUrlPathParams;
     }
 
     public List<Constraint> getConstraints() {
-        return Collections.unmodifiableList(mConstraints);
+        return mConstraints;
+    }
+
+    public List<Index> getIndexes() {
+        return mIndexes;
+    }
+
+    /**
+     * Returns the fields identifying a row, or an empty list if the entity has no natural key.
+     */
+    public List<Field> getNaturalKey() {
+        return mNaturalKey;
+    }
+
+    public boolean getHasNaturalKey() {
+        return !mNaturalKey.isEmpty();
+    }
+
+    /**
+     * Returns the fields indexed for full text search, or an empty list if the entity has none.
+     */
+    public List<Field> getFullTextFields() {
+        return mFullTextFields;
+    }
+
+    public boolean getHasFullText() {
+        return !mFullTextFields.isEmpty();
+    }
+
+    /**
+     * Returns the delta sync of the entity, or {@code null} if it has none.
+     */
+    public DeltaSync getDeltaSync() {
+        return mDeltaSync;
+    }
+
+    public boolean getHasDeltaSync() {
+        return mDeltaSync != null;
+    }
+
+    /**
+     * Returns the field whose largest value is sent back to get the next changes, or {@code null} if the entity has no
+     * delta sync.
+     */
+    public Field getDeltaSyncField() {
+        return mDeltaSyncField;
+    }
+
+    /**
+     * Returns the field flagging the deleted rows, or {@code null} if the entity has none.
+     */
+    public Field getTombstoneField() {
+        return mTombstoneField;
+    }
+
+    public boolean getHasTombstone() {
+        return mTombstoneField != null;
+    }
+
+    /**
+     * Returns the cache of the models of the entity, or {@code null} if they are not cached.
+     */
+    public ModelCache getModelCache() {
+        return mModelCache;
+    }
+
+    public boolean getHasModelCache() {
+        return mModelCache != null;
+    }
+
+    /**
+     * Whether the migration adding a unique index (or a natural key) to the existing table may delete the rows it would
+     * reject, keeping the last inserted one of each set of duplicates.
+     */
+    public boolean getDeleteDuplicates() {
+        return mDeleteDuplicates;
+    }
+
+    /**
+     * Returns the (lower case) names of the tables referenced by the foreign keys of the entity.
+     */
+    public List<String> getReferencedTables() {
+        return mReferencedTables;
+    }
+
+    /**
+     * Whether one of the constraints of the entity replaces the conflicting rows, in which case a plain insert can delete
+     * existing rows.
+     */
+    public boolean getHasReplaceConflict() {
+        return mHasReplaceConflict;
     }
 
     public String getNameCamelCase() {
-        return WordUtils.capitalizeFully(mName, new char[] { '_' }).replaceAll("_", "");
+        return mNameCamelCase;
+    }
+
+    public String getNameCamelCaseLowerCase() {
+        return mNameCamelCaseLowerCase;
     }
 
     public String getNameLowerCase() {
@@ -77,11 +305,11 @@ public class Entity {
     }
 
     public String getNameUpperCase() {
-        return mName.toUpperCase();
+        return mNameUpperCase;
     }
 
     @Override
     public String toString() {
-        return "Entity [mName=" + mName + ", mFields=" + mFields + ", mConstraints=" + mConstraints + "]";
+        return "Entity [mName=" + mName + ", mFields=" + mFields + ", mConstraints=" + mConstraints + ", mIndexes=" + mIndexes + "]";
     }
 }
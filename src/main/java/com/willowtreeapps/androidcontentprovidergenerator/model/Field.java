@@ -25,6 +25,7 @@
 package com.willowtreeapps.androidcontentprovidergenerator.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +37,7 @@ public class Field {
         public static final String NAME = "name";
         public static final String TYPE = "type";
         public static final String INDEX = "index";
+        public static final String FULL_TEXT = "fullText";
         public static final String SERIALIZED_NAME = "serializedName";
         public static final String NULLABLE = "nullable";
         public static final String DEFAULT_VALUE = "default_value";
@@ -105,23 +107,46 @@ public class Field {
     private static HashMap<String, Type> sJsonNames = new HashMap<String, Type>();
 
     private final String mName;
+    private final String mNameUpperCase;
+    private final String mNameCamelCase;
+    private final String mNameCamelCaseLowerCase;
     private final String mSerializedName;
     private final Type mType;
     private final boolean mIsIndex;
+    private final boolean mIsFullText;
     private final boolean mIsNullable;
     private final String mDefaultValue;
     private final String mEnumName;
-    private final List<String> mEnumValues = new ArrayList<String>();
-
-    public Field(String name, String serializedName, String type, boolean isIndex, boolean isNullable, String defaultValue, String enumName, List<String> enumValues) {
+    private final List<String> mEnumValues;
+    private final String mJavaTypeSimpleName;
+
+    /**
+     * @param isFullText Whether the field is indexed for full text search. Only supported by {@code String} fields.
+     */
+    public Field(String name, String serializedName, String type, boolean isIndex, boolean isFullText, boolean isNullable, String defaultValue,
+            String enumName, List<String> enumValues) {
         mName = name.toLowerCase();
+        mNameUpperCase = mName.toUpperCase();
+        mNameCamelCase = WordUtils.capitalizeFully(mName, new char[] { '_' }).replaceAll("_", "");
+        mNameCamelCaseLowerCase = WordUtils.uncapitalize(mNameCamelCase);
         mSerializedName = serializedName;
         mType = Type.fromJsonName(type);
         mIsIndex = isIndex;
+        if (isFullText && mType != Type.STRING) {
+            throw new IllegalArgumentException("The field '" + mName + "' cannot be full text: only String fields can be");
+        }
+        mIsFullText = isFullText;
         mIsNullable = isNullable;
         mDefaultValue = defaultValue;
         mEnumName = enumName;
-        mEnumValues.addAll(enumValues);
+        mEnumValues = Collections.unmodifiableList(new ArrayList<String>(enumValues));
+        if (mType == Type.ENUM) {
+            mJavaTypeSimpleName = mEnumName;
+        } else if (mIsNullable) {
+            mJavaTypeSimpleName = mType.getNullableJavaType().getSimpleName();
+        } else {
+            mJavaTypeSimpleName = mType.getNotNullableJavaType().getSimpleName();
+        }
     }
 
     public String getSerializedName(){
@@ -129,7 +154,7 @@ public class Field {
     }
 
     public String getNameUpperCase() {
-        return mName.toUpperCase();
+        return mNameUpperCase;
     }
 
     public String getNameLowerCase() {
@@ -137,11 +162,11 @@ public class Field {
     }
 
     public String getNameCamelCase() {
-        return WordUtils.capitalizeFully(mName, new char[] { '_' }).replaceAll("_", "");
+        return mNameCamelCase;
     }
 
     public String getNameCamelCaseLowerCase() {
-        return WordUtils.uncapitalize(getNameCamelCase());
+        return mNameCamelCaseLowerCase;
     }
 
     public String getEnumName() {
@@ -160,6 +185,10 @@ public class Field {
         return mIsIndex;
     }
 
+    public boolean getIsFullText() {
+        return mIsFullText;
+    }
+
     public boolean getIsNullable() {
         return mIsNullable;
     }
@@ -173,13 +202,7 @@ public class Field {
     }
 
     public String getJavaTypeSimpleName() {
-        if (mType == Type.ENUM) {
-            return mEnumName;
-        }
-        if (mIsNullable) {
-            return mType.getNullableJavaType().getSimpleName();
-        }
-        return mType.getNotNullableJavaType().getSimpleName();
+        return mJavaTypeSimpleName;
     }
 
     public boolean getIsConvertionNeeded() {
@@ -193,7 +216,7 @@ public class Field {
 
     @Override
     public String toString() {
-        return "Field [mName=" + mName + ", mType=" + mType + ", mIsIndex=" + mIsIndex + ", mIsNullable=" + mIsNullable + ", mDefaultValue=" + mDefaultValue
+        return "Field [mName=" + mName + ", mType=" + mType + ", mIsIndex=" + mIsIndex + ", mIsFullText=" + mIsFullText + ", mIsNullable=" + mIsNullable + ", mDefaultValue=" + mDefaultValue
                 + ", mEnumName=" + mEnumName + ", mEnumValues=" + mEnumValues + "]";
     }
 }
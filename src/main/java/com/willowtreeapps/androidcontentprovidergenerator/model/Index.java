@@ -0,0 +1,133 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index on one or several columns of a table, optionally unique and/or partial (restricted to the rows matching a
+ * {@code WHERE} clause).
+ */
+public class Index {
+    public static class Json {
+        public static final String NAME = "name";
+        public static final String COLUMNS = "columns";
+        public static final String UNIQUE = "unique";
+        public static final String WHERE = "where";
+    }
+
+    /**
+     * A column of an index, with its sort order.
+     */
+    public static class Column {
+        private final String mName;
+        private final String mOrder;
+
+        /**
+         * @param definition The name of the column, optionally followed by {@code asc} or {@code desc}.
+         */
+        public Column(String definition) {
+            String[] parts = definition.trim().toLowerCase().split("\\s+");
+            if (parts.length > 2 || parts.length == 2 && !parts[1].equals("asc") && !parts[1].equals("desc")) {
+                throw new IllegalArgumentException("Invalid index column '" + definition + "': expected a column name optionally followed by asc or desc");
+            }
+            mName = parts[0];
+            mOrder = parts.length == 2 ? parts[1].toUpperCase() : null;
+        }
+
+        public String getNameLowerCase() {
+            return mName;
+        }
+
+        public String getNameUpperCase() {
+            return mName.toUpperCase();
+        }
+
+        /**
+         * Returns {@code ASC}, {@code DESC}, or {@code null} if the order is not specified.
+         */
+        public String getOrder() {
+            return mOrder;
+        }
+
+        @Override
+        public String toString() {
+            return mOrder == null ? mName : mName + " " + mOrder;
+        }
+    }
+
+    private final String mName;
+    private final String mNameUpperCase;
+    private final List<Column> mColumns;
+    private final boolean mIsUnique;
+    private final String mWhere;
+
+    /**
+     * @param where The condition of a partial index, or {@code null}.
+     */
+    public Index(String name, List<String> columns, boolean isUnique, String where) {
+        mName = name.toLowerCase();
+        mNameUpperCase = mName.toUpperCase();
+        if (columns.isEmpty()) throw new IllegalArgumentException("The index '" + mName + "' has no columns");
+        List<Column> indexColumns = new ArrayList<Column>(columns.size());
+        for (String column : columns) {
+            indexColumns.add(new Column(column));
+        }
+        mColumns = Collections.unmodifiableList(indexColumns);
+        mIsUnique = isUnique;
+        mWhere = where == null || where.trim().isEmpty() ? null : where.trim();
+    }
+
+    public String getNameLowerCase() {
+        return mName;
+    }
+
+    public String getNameUpperCase() {
+        return mNameUpperCase;
+    }
+
+    public List<Column> getColumns() {
+        return mColumns;
+    }
+
+    public boolean getIsUnique() {
+        return mIsUnique;
+    }
+
+    public boolean getHasWhere() {
+        return mWhere != null;
+    }
+
+    public String getWhere() {
+        return mWhere;
+    }
+
+    @Override
+    public String toString() {
+        return "Index [mName=" + mName + ", mColumns=" + mColumns + ", mIsUnique=" + mIsUnique + ", mWhere=" + mWhere + "]";
+    }
+}
@@ -25,30 +25,72 @@
 package com.willowtreeapps.androidcontentprovidergenerator.model;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The entities loaded from the input folder.<br/>
+ * Instances are immutable, and can therefore be shared by several threads, or kept between several runs.
+ */
 public class Model {
-    private static final Model INSTANCE = new Model();
+    private final List<Entity> mEntities;
+    private final Map<String, Entity> mEntitiesByName;
+    private final String mHeader;
 
-    public static Model get() {
-        return INSTANCE;
+    public Model(List<Entity> entities, String header) {
+        mEntities = Collections.unmodifiableList(new ArrayList<Entity>(entities));
+        Map<String, Entity> entitiesByName = new HashMap<String, Entity>();
+        for (Entity entity : mEntities) {
+            if (entitiesByName.put(entity.getNameLowerCase(), entity) != null) {
+                throw new IllegalArgumentException("The entity '" + entity.getNameLowerCase() + "' is declared more than once");
+            }
+        }
+        mEntitiesByName = Collections.unmodifiableMap(entitiesByName);
+        mHeader = header;
     }
 
-    private Model() {}
+    public List<Entity> getEntities() {
+        return mEntities;
+    }
 
-    private final List<Entity> mEntities = new ArrayList<Entity>();
-    private String mHeader;
+    /**
+     * Returns the entity with the given (lower case) name, or {@code null} if there is none.
+     */
+    public Entity getEntity(String name) {
+        return mEntitiesByName.get(name);
+    }
 
-    public void addEntity(Entity entity) {
-        mEntities.add(entity);
+    /**
+     * Whether at least one entity has fields indexed for full text search.
+     */
+    public boolean getHasFullText() {
+        for (Entity entity : mEntities) {
+            if (entity.getHasFullText()) return true;
+        }
+        return false;
     }
 
-    public List<Entity> getEntities() {
-        return Collections.unmodifiableList(mEntities);
+    /**
+     * Whether at least one entity caches its models.
+     */
+    public boolean getHasModelCache() {
+        for (Entity entity : mEntities) {
+            if (entity.getHasModelCache()) return true;
+        }
+        return false;
     }
 
-    public void setHeader(String header) {
-        mHeader = header;
+    /**
+     * Returns the other entities having a foreign key to the given one, whose rows can be changed by a change of its rows
+     * (cascades).
+     */
+    public List<Entity> getReferencingEntities(Entity entity) {
+        List<Entity> res = new ArrayList<Entity>();
+        for (Entity other : mEntities) {
+            if (other != entity && other.getReferencedTables().contains(entity.getNameLowerCase())) res.add(other);
+        }
+        return res;
     }
 
     public String getHeader() {
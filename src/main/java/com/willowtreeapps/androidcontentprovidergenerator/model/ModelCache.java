@@ -0,0 +1,76 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator.model;
+
+/**
+ * The in-memory cache of the models of an entity, bounded either by a number of models or by their approximate size.
+ */
+public class ModelCache {
+    public static class Json {
+        public static final String MAX_ENTRIES = "maxEntries";
+        public static final String MAX_BYTES = "maxBytes";
+    }
+
+    private final int mMaxEntries;
+    private final int mMaxBytes;
+
+    /**
+     * Exactly one of the bounds must be given, the other one being 0.
+     */
+    public ModelCache(int maxEntries, int maxBytes) {
+        mMaxEntries = maxEntries;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the maximum number of models kept, or 0 if the cache is bounded by size.
+     */
+    public int getMaxEntries() {
+        return mMaxEntries;
+    }
+
+    /**
+     * Returns the maximum approximate size of the models kept, in bytes, or 0 if the cache is bounded by count.
+     */
+    public int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * Whether exactly one of the bounds is given, and positive.
+     */
+    public boolean isValid() {
+        return mMaxEntries >= 0 && mMaxBytes >= 0 && (mMaxEntries == 0) != (mMaxBytes == 0);
+    }
+
+    public boolean getIsBoundedBySize() {
+        return mMaxBytes > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelCache [mMaxEntries=" + mMaxEntries + ", mMaxBytes=" + mMaxBytes + "]";
+    }
+}
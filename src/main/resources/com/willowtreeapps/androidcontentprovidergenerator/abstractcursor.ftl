@@ -3,6 +3,7 @@ ${header}
 </#if>
 package ${config.providerJavaPackage}.base;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 
@@ -11,13 +12,36 @@ import android.database.CursorWrapper;
 import android.provider.BaseColumns;
 
 public abstract class AbstractCursor extends CursorWrapper {
+    // Index of a column of the projection which has not been looked up yet (-1 means missing from the cursor)
+    private static final int UNRESOLVED = -2;
+
 	private HashMap<String, Integer> mColumnIndexes = new HashMap<String, Integer>();
+    private final String[] mProjection;
+    private final int[] mProjectionIndexes;
 	
     public AbstractCursor(Cursor cursor) {
         super(cursor);
+        mProjection = null;
+        mProjectionIndexes = null;
+    }
+
+    /**
+     * The columns of the given projection can then be accessed with {@link #getCachedColumnIndexOrThrow(int)}, which
+     * only looks up the index of each column the first time it is accessed (a wrapper made for each row of a list
+     * only pays for the columns it reads).
+     * 
+     * @param projection The columns of the table, starting with {@code _id}. Columns missing from the cursor are
+     *            allowed, as long as they are not accessed.
+     */
+    protected AbstractCursor(Cursor cursor, String[] projection) {
+        super(cursor);
+        mProjection = projection;
+        mProjectionIndexes = new int[projection.length];
+        Arrays.fill(mProjectionIndexes, UNRESOLVED);
     }
 
     public long getId() {
+        if (mProjectionIndexes != null) return getLong(getCachedColumnIndexOrThrow(0));
         return getLongOrNull(BaseColumns._ID);
     }
 
@@ -30,6 +54,19 @@ public abstract class AbstractCursor extends CursorWrapper {
         return index;
     }
 
+    /**
+     * Returns the index in this cursor of the column at the given position of the projection given to the constructor.
+     */
+    protected int getCachedColumnIndexOrThrow(int projectionIndex) {
+        int index = mProjectionIndexes[projectionIndex];
+        if (index == UNRESOLVED) {
+            index = getColumnIndex(mProjection[projectionIndex]);
+            mProjectionIndexes[projectionIndex] = index;
+        }
+        if (index == -1) throw new IllegalArgumentException("column '" + mProjection[projectionIndex] + "' does not exist");
+        return index;
+    }
+
     public Integer getIntegerOrNull(String colName) {
         Integer index = getCachedColumnIndexOrThrow(colName);
         if (isNull(index)) return null;
@@ -65,4 +102,87 @@ public abstract class AbstractCursor extends CursorWrapper {
         if (isNull(index)) return null;
         return new Date(getLong(index));
     }
-}
\ No newline at end of file
+
+    public Integer getIntegerOrNull(int index) {
+        if (isNull(index)) return null;
+        return getInt(index);
+    }
+
+    public Long getLongOrNull(int index) {
+        if (isNull(index)) return null;
+        return getLong(index);
+    }
+
+    public Float getFloatOrNull(int index) {
+        if (isNull(index)) return null;
+        return getFloat(index);
+    }
+
+    public Double getDoubleOrNull(int index) {
+        if (isNull(index)) return null;
+        return getDouble(index);
+    }
+
+    public Boolean getBooleanOrNull(int index) {
+        if (isNull(index)) return null;
+        return getInt(index) != 0;
+    }
+
+    public Date getDate(int index) {
+        if (isNull(index)) return null;
+        return new Date(getLong(index));
+    }
+
+    public int getInt(int index, int defaultValue) {
+        return isNull(index) ? defaultValue : getInt(index);
+    }
+
+    public long getLong(int index, long defaultValue) {
+        return isNull(index) ? defaultValue : getLong(index);
+    }
+
+    public float getFloat(int index, float defaultValue) {
+        return isNull(index) ? defaultValue : getFloat(index);
+    }
+
+    public double getDouble(int index, double defaultValue) {
+        return isNull(index) ? defaultValue : getDouble(index);
+    }
+
+    public boolean getBoolean(int index, boolean defaultValue) {
+        return isNull(index) ? defaultValue : getInt(index) != 0;
+    }
+
+    /**
+     * Returns the value of a column which cannot be {@code null}. Throws if it is {@code null} anyway (the data does not
+     * match the schema), rather than returning 0 like {@link #getInt(int)}.
+     */
+    public int getIntOrThrow(int index) {
+        checkNotNull(index);
+        return getInt(index);
+    }
+
+    public long getLongOrThrow(int index) {
+        checkNotNull(index);
+        return getLong(index);
+    }
+
+    public float getFloatOrThrow(int index) {
+        checkNotNull(index);
+        return getFloat(index);
+    }
+
+    public double getDoubleOrThrow(int index) {
+        checkNotNull(index);
+        return getDouble(index);
+    }
+
+    public boolean getBooleanOrThrow(int index) {
+        checkNotNull(index);
+        return getInt(index) != 0;
+    }
+
+    private void checkNotNull(int index) {
+        if (isNull(index)) throw new NullPointerException("column '" + getColumnName(index) + "' is null");
+    }
+}
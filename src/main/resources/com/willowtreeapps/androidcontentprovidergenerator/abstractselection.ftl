@@ -10,6 +10,8 @@ import java.util.List;
 import android.content.ContentResolver;
 import android.net.Uri;
 
+import ${config.providerJavaPackage}.${config.providerClassName};
+
 public abstract class AbstractSelection <T extends AbstractSelection<?>> {
     private static final String EQ = "=?";
     private static final String PAREN_OPEN = "(";
@@ -31,7 +33,21 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
     private StringBuilder mSelection = new StringBuilder();
     private List<String> mSelectionArgs = new ArrayList<String>(5);
 
+    // Once frozen, the selection is built once and only its arguments can change
+    private String mFrozenSelection;
+    private String[] mFrozenSelectionArgs;
+
+    // Keyset pagination: restriction to the rows following a given one, kept apart so that it can be moved to the next page
+    private String mAfterSelection;
+    private String[] mAfterSelectionArgs;
+    private int mLimit = -1;
+
+    // Full text search: the query, and the uri of the search on the table
+    private String mMatch;
+    private Uri mSearchUri;
+
     protected void addEquals(String column, Object[] value) {
+        checkNotFrozen();
         mSelection.append(column);
 
         if (value == null) {
@@ -62,6 +78,7 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
     }
 
     protected void addNotEquals(String column, Object[] value) {
+        checkNotFrozen();
         mSelection.append(column);
 
         if (value == null) {
@@ -92,30 +109,35 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
     }
 
     protected void addGreaterThan(String column, Object value) {
+        checkNotFrozen();
         mSelection.append(column);
         mSelection.append(GT);
         mSelectionArgs.add(valueOf(value));
     }
 
     protected void addGreaterThanOrEquals(String column, Object value) {
+        checkNotFrozen();
         mSelection.append(column);
         mSelection.append(GT_EQ);
         mSelectionArgs.add(valueOf(value));
     }
 
     protected void addLessThan(String column, Object value) {
+        checkNotFrozen();
         mSelection.append(column);
         mSelection.append(LT);
         mSelectionArgs.add(valueOf(value));
     }
 
     protected void addLessThanOrEquals(String column, Object value) {
+        checkNotFrozen();
         mSelection.append(column);
         mSelection.append(LT_EQ);
         mSelectionArgs.add(valueOf(value));
     }
 
     protected void addLike(String column, Object[] value) {
+            checkNotFrozen();
             mSelection.append(column);
 
             if (value == null) {
@@ -151,26 +173,72 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
         return String.valueOf(obj);
     }
 
+    private void checkNotFrozen() {
+        if (mFrozenSelection != null) throw new IllegalStateException("This selection is frozen: only its arguments can be changed, with bind()");
+    }
+
+    /**
+     * Freezes this selection: its selection string is built once and reused by all the following queries, and only the
+     * values of its arguments can be changed, with {@link #bind(Object...)}. Useful for a query made many times with
+     * different values (for instance a lookup by foreign key for each item of a list): the SQL of the query stays the
+     * same, so the database connection finds the statement it prepared for it in its cache of statements (sized by the
+     * {@code statementCacheSize} database option) instead of preparing it again.<br/>
+     * Conditions can not be added to a frozen selection, but {@link #after(Object, long)} and {@link #limit(int)} can
+     * still be used.
+     */
+    @SuppressWarnings("unchecked")
+    public T freeze() {
+        if (mFrozenSelection == null) {
+            mFrozenSelection = mSelection.toString();
+            mFrozenSelectionArgs = mSelectionArgs.toArray(new String[mSelectionArgs.size()]);
+            mSelection = null;
+            mSelectionArgs = null;
+        }
+        return (T) this;
+    }
+
+    /**
+     * Replaces the values of the arguments of this frozen selection, in the order they were added to the selection.
+     *
+     * @throws IllegalStateException If this selection is not frozen.
+     * @throws IllegalArgumentException If the number of values is not the number of arguments of the selection.
+     */
+    @SuppressWarnings("unchecked")
+    public T bind(Object... values) {
+        if (mFrozenSelection == null) throw new IllegalStateException("Only a frozen selection can be bound, see freeze()");
+        if (values.length != mFrozenSelectionArgs.length) {
+            throw new IllegalArgumentException("This selection has " + mFrozenSelectionArgs.length + " arguments, not " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            mFrozenSelectionArgs[i] = valueOf(values[i]);
+        }
+        return (T) this;
+    }
+
     @SuppressWarnings("unchecked")
     public T openParen() {
+        checkNotFrozen();
         mSelection.append(PAREN_OPEN);
         return (T) this;
     }
 
     @SuppressWarnings("unchecked")
     public T closeParen() {
+        checkNotFrozen();
         mSelection.append(PAREN_CLOSE);
         return (T) this;
     }
 
     @SuppressWarnings("unchecked")
     public T and() {
+        checkNotFrozen();
         mSelection.append(AND);
         return (T) this;
     }
 
     @SuppressWarnings("unchecked")
     public T or() {
+        checkNotFrozen();
         mSelection.append(OR);
         return (T) this;
     }
@@ -209,18 +277,86 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
     }
 
 
+    /**
+     * Restricts this selection to the rows following the row having the given sort key and id, when ordered by
+     * {@code sortColumn} then by {@code idColumn}. Replaces the restriction set by a previous call, if any.
+     */
+    protected void setAfter(String sortColumn, String idColumn, Object sortKey, long id) {
+        if (sortColumn.equals(idColumn)) {
+            mAfterSelection = idColumn + GT;
+            mAfterSelectionArgs = new String[] { String.valueOf(id) };
+        } else if (sortKey == null) {
+            // Nulls come first in ascending order
+            mAfterSelection = PAREN_OPEN + sortColumn + IS_NOT_NULL + OR + PAREN_OPEN + sortColumn + IS_NULL + AND + idColumn + GT + PAREN_CLOSE
+                    + PAREN_CLOSE;
+            mAfterSelectionArgs = new String[] { String.valueOf(id) };
+        } else {
+            mAfterSelection = PAREN_OPEN + sortColumn + GT + OR + PAREN_OPEN + sortColumn + EQ + AND + idColumn + GT + PAREN_CLOSE + PAREN_CLOSE;
+            String sortKeyArg = valueOf(sortKey);
+            mAfterSelectionArgs = new String[] { sortKeyArg, sortKeyArg, String.valueOf(id) };
+        }
+    }
+
+    /**
+     * Returns the order to use when the query does not give one: the sort column, then the id so that the order is stable
+     * for keyset pagination. Returns {@code null} for a full text search, so that the rows are ordered by rank.
+     */
+    protected String defaultOrder(String sortColumn, String idColumn) {
+        if (mMatch != null) return null;
+        if (sortColumn.equals(idColumn)) return idColumn;
+        return sortColumn + COMMA + idColumn;
+    }
+
+    /**
+     * Makes the queries made with this selection search the given full text query, using the given search uri.
+     */
+    protected void setMatch(Uri searchUri, String query) {
+        mSearchUri = searchUri;
+        mMatch = query;
+    }
+
+    /**
+     * Limits the number of rows returned by the queries made with this selection.
+     *
+     * @param limit The maximum number of rows, or {@code -1} for no limit.
+     */
+    @SuppressWarnings("unchecked")
+    public T limit(int limit) {
+        mLimit = limit;
+        return (T) this;
+    }
+
     /**
      * Returns the selection produced by this object.
      */
     public String sel() {
-        return mSelection.toString();
+        String selection = mFrozenSelection != null ? mFrozenSelection : mSelection.toString();
+        if (mAfterSelection == null) return selection;
+        if (selection.length() == 0) return mAfterSelection;
+        return PAREN_OPEN + selection + PAREN_CLOSE + AND + mAfterSelection;
     }
 
     /**
      * Returns the selection arguments produced by this object.
      */
     public String[] args() {
+        if (mFrozenSelection != null) {
+            int size = mFrozenSelectionArgs.length;
+            if (mAfterSelectionArgs != null) {
+                String[] res = new String[size + mAfterSelectionArgs.length];
+                System.arraycopy(mFrozenSelectionArgs, 0, res, 0, size);
+                System.arraycopy(mAfterSelectionArgs, 0, res, size, mAfterSelectionArgs.length);
+                return res;
+            }
+            if (size == 0) return null;
+            return mFrozenSelectionArgs.clone();
+        }
         int size = mSelectionArgs.size();
+        if (mAfterSelectionArgs != null) {
+            String[] res = mSelectionArgs.toArray(new String[size + mAfterSelectionArgs.length]);
+            System.arraycopy(mAfterSelectionArgs, 0, res, size, mAfterSelectionArgs.length);
+            return res;
+        }
         if (size == 0) return null;
         return mSelectionArgs.toArray(new String[size]);
     }
@@ -230,6 +366,16 @@ public abstract class AbstractSelection <T extends AbstractSelection<?>> {
      * Returns the {@code uri} argument to pass to the {@code ContentResolver} methods.
      */
     public abstract Uri uri();
+
+    /**
+     * Returns the {@code uri} argument to pass to {@code ContentResolver.query}, which includes the full text query and
+     * the limit, if any.
+     */
+    protected Uri queryUri() {
+        Uri res = mMatch == null ? uri() : ${config.providerClassName}.match(mSearchUri, mMatch);
+        if (mLimit < 0) return res;
+        return ${config.providerClassName}.limit(res, mLimit);
+    }
     
     /**
      * Deletes row(s) specified by this selection.
@@ -3,7 +3,7 @@ IMPORTANT: Copy the following into the application tag of your AndroidManifest.x
 
 <#if config.generateApi>
 <service
-    android:name="${config.projectPackageId}.api.RestService"
+    android:name="${config.projectPackageId}.api.ApiService"
     android:enabled="true" />
 </#if>
 <#if config.generateProvider>
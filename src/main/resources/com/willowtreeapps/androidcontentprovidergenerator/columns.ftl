@@ -3,6 +3,9 @@ ${header}
 </#if>
 package ${config.providerJavaPackage}.${entity.nameLowerCase};
 
+import java.util.ArrayList;
+import java.util.List;
+
 import android.net.Uri;
 import android.provider.BaseColumns;
 
@@ -14,6 +17,13 @@ import ${config.providerJavaPackage}.${config.providerClassName};
 public interface ${entity.nameCamelCase}Columns extends BaseColumns {
     String TABLE_NAME = "${entity.nameLowerCase}";
     Uri CONTENT_URI = Uri.parse(${config.providerClassName}.CONTENT_URI_BASE + "/" + TABLE_NAME);
+    <#if entity.hasFullText>
+    String FTS_TABLE_NAME = TABLE_NAME + "_fts";
+    /**
+     * Full text search on the table, to query with a {@code ${config.providerClassName}.match()} query.
+     */
+    Uri SEARCH_URI = Uri.parse(${config.providerClassName}.CONTENT_URI_BASE + "/" + TABLE_NAME + "/search");
+    </#if>
 
     String _ID = BaseColumns._ID;
     <#list entity.fields as field>
@@ -29,5 +39,61 @@ public interface ${entity.nameCamelCase}Columns extends BaseColumns {
             ${field.nameUpperCase}<#if field_has_next>,</#if>
             </#list>
     };
+    <#if entity.hasNaturalKey>
+
+    String[] NATURAL_KEY = new String[] {
+            <#list entity.naturalKey as field>
+            ${field.nameUpperCase}<#if field_has_next>,</#if>
+            </#list>
+    };
+    </#if>
     // @formatter:on
+
+    /**
+     * A projection made of some of the columns of the table, always including {@code _id}.<br/>
+     * Querying only the columns that are used avoids moving the other ones (for instance large texts or blobs) through the
+     * binder. The getters of {@code ${entity.nameCamelCase}Cursor} throw an {@code IllegalArgumentException} for the columns which are
+     * not part of the projection.
+     */
+    final class Projection {
+        private final String[] mColumns;
+
+        private Projection(String[] columns) {
+            mColumns = columns;
+        }
+
+        /**
+         * Returns the columns of this projection, to pass as the {@code projection} argument of {@code ContentResolver.query}.
+         */
+        public String[] columns() {
+            return mColumns.clone();
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public static final class Builder {
+            private final List<String> mColumns = new ArrayList<String>(FULL_PROJECTION.length);
+
+            private Builder() {
+                mColumns.add(_ID);
+            }
+            <#list entity.fields as field>
+
+            public Builder ${field.nameCamelCaseLowerCase}() {
+                return add(${field.nameUpperCase});
+            }
+            </#list>
+
+            private Builder add(String column) {
+                if (!mColumns.contains(column)) mColumns.add(column);
+                return this;
+            }
+
+            public Projection build() {
+                return new Projection(mColumns.toArray(new String[mColumns.size()]));
+            }
+        }
+    }
 }
\ No newline at end of file
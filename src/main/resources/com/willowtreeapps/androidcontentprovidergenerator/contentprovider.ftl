@@ -5,22 +5,43 @@ package ${config.providerJavaPackage};
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import android.content.ContentProvider;
 import android.content.ContentProviderOperation;
 import android.content.ContentProviderResult;
+import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.annotation.TargetApi;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.Process;
+import android.os.RemoteException;
 import android.provider.BaseColumns;
+import android.text.TextUtils;
 import android.util.Log;
 
 import ${config.projectPackageId}.BuildConfig;
 <#list model.entities as entity>
 import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}Columns;
+<#if modelCaches && entity.hasModelCache>
+import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}ModelCache;
+</#if>
 </#list>
 
 public class ${config.providerClassName} extends ContentProvider {
@@ -34,6 +55,9 @@ public class ${config.providerClassName} extends ContentProvider {
 
     public static final String QUERY_NOTIFY = "QUERY_NOTIFY";
     public static final String QUERY_GROUP_BY = "QUERY_GROUP_BY";
+    public static final String QUERY_LIMIT = "QUERY_LIMIT";
+    public static final String QUERY_UPSERT = "QUERY_UPSERT";
+    public static final String QUERY_MATCH = "QUERY_MATCH";
 
 	<#assign i=0>
     <#list model.entities as entity>
@@ -41,6 +65,10 @@ public class ${config.providerClassName} extends ContentProvider {
     <#assign i = i + 1>
     private static final int URI_TYPE_${entity.nameUpperCase}_ID = ${i};
     <#assign i = i + 1>
+    <#if entity.hasFullText>
+    private static final int URI_TYPE_${entity.nameUpperCase}_SEARCH = ${i};
+    <#assign i = i + 1>
+    </#if>
 
     </#list>
 
@@ -51,23 +79,61 @@ public class ${config.providerClassName} extends ContentProvider {
         <#list model.entities as entity>
         URI_MATCHER.addURI(AUTHORITY, ${entity.nameCamelCase}Columns.TABLE_NAME, URI_TYPE_${entity.nameUpperCase});
         URI_MATCHER.addURI(AUTHORITY, ${entity.nameCamelCase}Columns.TABLE_NAME + "/#", URI_TYPE_${entity.nameUpperCase}_ID);
+        <#if entity.hasFullText>
+        URI_MATCHER.addURI(AUTHORITY, ${entity.nameCamelCase}Columns.TABLE_NAME + "/search", URI_TYPE_${entity.nameUpperCase}_SEARCH);
+        </#if>
         </#list>
     }
 
+    <#if model.hasFullText>
+    // Rank of the rows returned by a full text search
+    private static final String SEARCH_RANK = "_rank";
+    private static final String SEARCH_ORDER = SEARCH_RANK + " DESC";
+
+    </#if>
+    private static final String METHOD_SUSPEND_NOTIFICATIONS = "suspendNotifications";
+    private static final String METHOD_RESUME_NOTIFICATIONS = "resumeNotifications";
+    private static final String EXTRA_CLIENT = "client";
+
     private ${config.sqliteHelperClassName} m${config.sqliteHelperClassName};
 
+    // The notifications suspended in each scope: a thread of this process, or the pid of another process (guarded by itself)
+    private final Map<Object, SuspendedNotifications> mSuspendedNotifications = new HashMap<Object, SuspendedNotifications>();
+
+    // The suspensions made by suspendNotifications(ContentResolver), by token (guarded by mSuspendedNotifications)
+    private final Map<String, Suspension> mSuspensions = new HashMap<String, Suspension>();
+
+    <#if modelCaches>
+    // The uris whose model caches were invalidated by the current applyBatch of each thread, null outside of it
+    private final ThreadLocal<Set<Uri>> mBatchInvalidatedUris = new ThreadLocal<Set<Uri>>();
+
+    </#if>
+    // Whether the SQLite version supports INSERT ... ON CONFLICT DO UPDATE (3.24+), null until known
+    private static volatile Boolean sOnConflictSupported;
+
     @Override
     public boolean onCreate() {
         m${config.sqliteHelperClassName} = ${config.sqliteHelperClassName}.newInstance(getContext());
         return true;
     }
 
+    /**
+     * Gives access to the database to the code running in the same process which does not need to go through
+     * {@link ContentValues} (for instance the generated {@code ModelInserter} classes).
+     */
+    public SQLiteDatabase getWritableDatabase() {
+        return m${config.sqliteHelperClassName}.getWritableDatabase();
+    }
+
     @Override
     public String getType(Uri uri) {
         final int match = URI_MATCHER.match(uri);
         switch (match) {
             <#list model.entities as entity>
             case URI_TYPE_${entity.nameUpperCase}:
+            <#if entity.hasFullText>
+            case URI_TYPE_${entity.nameUpperCase}_SEARCH:
+            </#if>
                 return TYPE_CURSOR_DIR + ${entity.nameCamelCase}Columns.TABLE_NAME;
             case URI_TYPE_${entity.nameUpperCase}_ID:
                 return TYPE_CURSOR_ITEM + ${entity.nameCamelCase}Columns.TABLE_NAME;
@@ -80,25 +146,34 @@ public class ${config.providerClassName} extends ContentProvider {
     @Override
     public Uri insert(Uri uri, ContentValues values) {
         if (BuildConfig.DEBUG) Log.d(TAG, "insert uri=" + uri + " values=" + values);
-        final String table = uri.getLastPathSegment();
-        final long rowId = m${config.sqliteHelperClassName}.getWritableDatabase().insert(table, null, values);
-        String notify;
-        if (rowId != -1 && ((notify = uri.getQueryParameter(QUERY_NOTIFY)) == null || "true".equals(notify))) {
-            getContext().getContentResolver().notifyChange(uri, null);
+        final long rowId;
+        if (isUpsert(uri)) {
+            rowId = upsert(uri, values);
+        } else {
+            final QueryParams queryParams = getQueryParamsForWrite(uri, null, null);
+            rowId = m${config.sqliteHelperClassName}.getWritableDatabase().insert(queryParams.table, null, values);
         }
+        <#if modelCaches>
+        if (rowId != -1 && insertModifiesRows(uri)) invalidateModelCachesAfterWrite(uri);
+        </#if>
+        if (rowId != -1) notifyChange(uri);
         return uri.buildUpon().appendEncodedPath(String.valueOf(rowId)).build();
     }
 
     @Override
     public int bulkInsert(Uri uri, ContentValues[] values) {
         if (BuildConfig.DEBUG) Log.d(TAG, "bulkInsert uri=" + uri + " values.length=" + values.length);
-        final String table = uri.getLastPathSegment();
+        final QueryParams queryParams = getQueryParamsForWrite(uri, null, null);
         final SQLiteDatabase db = m${config.sqliteHelperClassName}.getWritableDatabase();
+        final String[] naturalKey = isUpsert(uri) ? getNaturalKey(queryParams) : null;
+        final boolean onConflictSupported = naturalKey != null && isOnConflictSupported(db);
+        // One statement (or pair of statements) per set of columns, compiled once and reused for the whole batch
+        final Map<BitSet, Statements> statements = new HashMap<BitSet, Statements>();
         int res = 0;
         db.beginTransaction();
         try {
             for (final ContentValues v : values) {
-                final long id = db.insert(table, null, v);
+                final long id = insert(db, queryParams.table, queryParams.columns, naturalKey, onConflictSupported, statements, v);
                 db.yieldIfContendedSafely();
                 if (id != -1) {
                     res++;
@@ -107,49 +182,235 @@ public class ${config.providerClassName} extends ContentProvider {
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
+            for (Statements statement : statements.values()) {
+                statement.close();
+            }
         }
-        String notify;
-        if (res != 0 && ((notify = uri.getQueryParameter(QUERY_NOTIFY)) == null || "true".equals(notify))) {
-            getContext().getContentResolver().notifyChange(uri, null);
+        <#if modelCaches>
+        if (res != 0 && insertModifiesRows(uri)) invalidateModelCachesAfterWrite(uri);
+        </#if>
+        if (res != 0) notifyChange(uri);
+
+        return res;
+    }
+
+    /**
+     * Inserts the given values, or updates the row having the same natural key, and returns the id of the row.
+     */
+    private long upsert(Uri uri, ContentValues values) {
+        final QueryParams queryParams = getQueryParamsForWrite(uri, null, null);
+        final String[] naturalKey = getNaturalKey(queryParams);
+        final SQLiteDatabase db = m${config.sqliteHelperClassName}.getWritableDatabase();
+        final boolean onConflictSupported = isOnConflictSupported(db);
+        final Map<BitSet, Statements> statements = new HashMap<BitSet, Statements>(1);
+        db.beginTransaction();
+        try {
+            long rowId = insert(db, queryParams.table, queryParams.columns, naturalKey, onConflictSupported, statements, values);
+            if (rowId != -1) {
+                // The row id returned when the values updated an existing row is not the one of this row
+                rowId = getRowId(db, queryParams.table, naturalKey, values, rowId);
+            }
+            db.setTransactionSuccessful();
+            return rowId;
+        } finally {
+            db.endTransaction();
+            for (Statements statement : statements.values()) {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the row having the natural key of the given values, or {@code defaultRowId} if one of the values
+     * of the natural key is {@code null} (in which case the values cannot have conflicted with an existing row).
+     */
+    private static long getRowId(SQLiteDatabase db, String table, String[] naturalKey, ContentValues values, long defaultRowId) {
+        final StringBuilder sql = new StringBuilder("SELECT ").append(BaseColumns._ID).append(" FROM ").append(table).append(" WHERE ");
+        for (int i = 0; i < naturalKey.length; i++) {
+            if (values.get(naturalKey[i]) == null) return defaultRowId;
+            if (i > 0) sql.append(" AND ");
+            sql.append(naturalKey[i]).append("=?");
+        }
+        final SQLiteStatement statement = db.compileStatement(sql.toString());
+        try {
+            for (int i = 0; i < naturalKey.length; i++) {
+                DatabaseUtils.bindObjectToProgram(statement, i + 1, values.get(naturalKey[i]));
+            }
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * The statements compiled for a set of columns: the insert, and the update of the row having the same natural key
+     * when upserting without {@code ON CONFLICT}.
+     */
+    private static class Statements {
+        SQLiteStatement insert;
+        SQLiteStatement update;
+
+        void close() {
+            insert.close();
+            if (update != null) update.close();
         }
+    }
 
+    /**
+     * Inserts the given values using the statements compiled for their set of columns, compiling them if this is the
+     * first row with this set of columns. The values are bound by index, in the order of the table's
+     * {@code FULL_PROJECTION}.<br/>
+     * Values containing columns unknown to the table (or no columns at all) go through {@link SQLiteDatabase}.
+     * 
+     * @param naturalKey If not {@code null}, the row having the same natural key is updated if it exists, with
+     *            {@code ON CONFLICT DO UPDATE} if {@code onConflictSupported} is {@code true}, otherwise by an
+     *            {@code UPDATE} followed by an {@code INSERT} if no row was updated. The existing row is never replaced
+     *            (deleted then inserted), so it keeps its {@code _id} and the rows referencing it.
+     * @return The id of the inserted row, which is not the one of the row when an existing row was updated, or -1 if
+     *         an error occurred (the same way whether {@code ON CONFLICT} is supported or not).
+     */
+    private static long insert(SQLiteDatabase db, String table, String[] columns, String[] naturalKey, boolean onConflictSupported,
+            Map<BitSet, Statements> statements, ContentValues values) {
+        final BitSet columnSet = new BitSet(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            if (values.containsKey(columns[i])) columnSet.set(i);
+        }
+        try {
+            if (columnSet.isEmpty() || columnSet.cardinality() != values.size()) {
+                if (naturalKey != null && update(db, table, naturalKey, values) != 0) return 0;
+                return db.insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_NONE);
+            }
+
+            Statements compiled = statements.get(columnSet);
+            if (compiled == null) {
+                compiled = compile(db, table, columns, naturalKey, onConflictSupported, columnSet);
+                statements.put(columnSet, compiled);
+            }
+            if (compiled.update != null) {
+                int index = 1;
+                for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                    if (columns[i].equals(BaseColumns._ID)) continue;
+                    DatabaseUtils.bindObjectToProgram(compiled.update, index++, values.get(columns[i]));
+                }
+                for (String column : naturalKey) {
+                    DatabaseUtils.bindObjectToProgram(compiled.update, index++, values.get(column));
+                }
+                if (compiled.update.executeUpdateDelete() != 0) return 0;
+            }
+            int index = 1;
+            for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                DatabaseUtils.bindObjectToProgram(compiled.insert, index++, values.get(columns[i]));
+            }
+            return compiled.insert.executeInsert();
+        } catch (SQLException e) {
+            // Same behavior as SQLiteDatabase.insert()
+            Log.e(TAG, "Error inserting " + values, e);
+            return -1;
+        }
+    }
+
+    private static Statements compile(SQLiteDatabase db, String table, String[] columns, String[] naturalKey, boolean onConflictSupported,
+            BitSet columnSet) {
+        final Statements res = new Statements();
+        final StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        final StringBuilder args = new StringBuilder();
+        for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+            if (args.length() > 0) {
+                sql.append(',');
+                args.append(',');
+            }
+            sql.append(columns[i]);
+            args.append('?');
+        }
+        sql.append(") VALUES (").append(args).append(')');
+        if (naturalKey != null && onConflictSupported) {
+            sql.append(" ON CONFLICT (").append(TextUtils.join(",", naturalKey)).append(") DO UPDATE SET ");
+            final StringBuilder set = new StringBuilder();
+            for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                if (columns[i].equals(BaseColumns._ID) || Arrays.asList(naturalKey).contains(columns[i])) continue;
+                if (set.length() > 0) set.append(',');
+                set.append(columns[i]).append("=excluded.").append(columns[i]);
+            }
+            // Not DO NOTHING, which would not count the existing row as upserted, unlike the UPDATE below
+            if (set.length() == 0) set.append(naturalKey[0]).append("=excluded.").append(naturalKey[0]);
+            sql.append(set);
+        } else if (naturalKey != null) {
+            // The natural key is also set (to the same values), so that the statement is valid whatever the columns
+            final StringBuilder update = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            boolean first = true;
+            for (int i = columnSet.nextSetBit(0); i >= 0; i = columnSet.nextSetBit(i + 1)) {
+                if (columns[i].equals(BaseColumns._ID)) continue;
+                if (!first) update.append(',');
+                update.append(columns[i]).append("=?");
+                first = false;
+            }
+            if (first) update.append(naturalKey[0]).append('=').append(naturalKey[0]);
+            update.append(" WHERE ").append(getNaturalKeySelection(naturalKey));
+            res.update = db.compileStatement(update.toString());
+        }
+        res.insert = db.compileStatement(sql.toString());
         return res;
     }
 
+    /**
+     * Updates the row having the natural key of the given values, if any, and returns the number of updated rows.
+     */
+    private static int update(SQLiteDatabase db, String table, String[] naturalKey, ContentValues values) {
+        final String[] naturalKeyValues = new String[naturalKey.length];
+        for (int i = 0; i < naturalKey.length; i++) {
+            // A null value cannot match an existing row
+            if (values.get(naturalKey[i]) == null) return 0;
+            naturalKeyValues[i] = values.getAsString(naturalKey[i]);
+        }
+        return db.update(table, values, getNaturalKeySelection(naturalKey), naturalKeyValues);
+    }
+
+    private static String getNaturalKeySelection(String[] naturalKey) {
+        final StringBuilder res = new StringBuilder();
+        for (int i = 0; i < naturalKey.length; i++) {
+            if (i > 0) res.append(" AND ");
+            res.append(naturalKey[i]).append("=?");
+        }
+        return res.toString();
+    }
+
     @Override
     public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
         if (BuildConfig.DEBUG)
             Log.d(TAG, "update uri=" + uri + " values=" + values + " selection=" + selection + " selectionArgs=" + Arrays.toString(selectionArgs));
-        final QueryParams queryParams = getQueryParams(uri, selection);
-        final int res = m${config.sqliteHelperClassName}.getWritableDatabase().update(queryParams.table, values, queryParams.selection, selectionArgs);
-        String notify;
-        if (res != 0 && ((notify = uri.getQueryParameter(QUERY_NOTIFY)) == null || "true".equals(notify))) {
-            getContext().getContentResolver().notifyChange(uri, null);
-        }
+        final QueryParams queryParams = getQueryParamsForWrite(uri, selection, selectionArgs);
+        final int res = m${config.sqliteHelperClassName}.getWritableDatabase().update(queryParams.table, values, queryParams.selection, queryParams.selectionArgs);
+        <#if modelCaches>
+        if (res != 0) invalidateModelCachesAfterWrite(uri);
+        </#if>
+        if (res != 0) notifyChange(uri);
         return res;
     }
 
     @Override
     public int delete(Uri uri, String selection, String[] selectionArgs) {
         if (BuildConfig.DEBUG) Log.d(TAG, "delete uri=" + uri + " selection=" + selection + " selectionArgs=" + Arrays.toString(selectionArgs));
-        final QueryParams queryParams = getQueryParams(uri, selection);
-        final int res = m${config.sqliteHelperClassName}.getWritableDatabase().delete(queryParams.table, queryParams.selection, selectionArgs);
-        String notify;
-        if (res != 0 && ((notify = uri.getQueryParameter(QUERY_NOTIFY)) == null || "true".equals(notify))) {
-            getContext().getContentResolver().notifyChange(uri, null);
-        }
+        final QueryParams queryParams = getQueryParamsForWrite(uri, selection, selectionArgs);
+        final int res = m${config.sqliteHelperClassName}.getWritableDatabase().delete(queryParams.table, queryParams.selection, queryParams.selectionArgs);
+        <#if modelCaches>
+        if (res != 0) invalidateModelCachesAfterWrite(uri);
+        </#if>
+        if (res != 0) notifyChange(uri);
         return res;
     }
 
     @Override
     public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
         final String groupBy = uri.getQueryParameter(QUERY_GROUP_BY);
+        final String limit = uri.getQueryParameter(QUERY_LIMIT);
         if (BuildConfig.DEBUG)
             Log.d(TAG, "query uri=" + uri + " selection=" + selection + " selectionArgs=" + Arrays.toString(selectionArgs) + " sortOrder=" + sortOrder
-                    + " groupBy=" + groupBy);
-        final QueryParams queryParams = getQueryParams(uri, selection);
-        final Cursor res = m${config.sqliteHelperClassName}.getReadableDatabase().query(queryParams.table, projection, queryParams.selection, selectionArgs, groupBy,
-                null, sortOrder == null ? queryParams.orderBy : sortOrder);
+                    + " groupBy=" + groupBy + " limit=" + limit);
+        final QueryParams queryParams = getQueryParams(uri, selection, selectionArgs);
+        // The same query (for instance of a frozen selection) always has the same SQL, so each connection reuses the
+        // statement it prepared for it, from its cache (see ${config.sqliteHelperClassName}.STATEMENT_CACHE_SIZE)
+        final Cursor res = m${config.sqliteHelperClassName}.getReadableDatabase().query(queryParams.table, projection, queryParams.selection,
+                queryParams.selectionArgs, groupBy, null, sortOrder == null ? queryParams.orderBy : sortOrder, limit);
         res.setNotificationUri(getContext().getContentResolver(), uri);
         return res;
     }
@@ -157,32 +418,273 @@ public class ${config.providerClassName} extends ContentProvider {
     @Override
     public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
         SQLiteDatabase db = m${config.sqliteHelperClassName}.getWritableDatabase();
-        db.beginTransaction();
+        // Notify each affected table once, after the whole batch
+        final Thread scope = Thread.currentThread();
+        suspendNotifications(scope);
+        <#if modelCaches>
+        mBatchInvalidatedUris.set(new LinkedHashSet<Uri>());
+        </#if>
         try {
-            int numOperations = operations.size();
-            ContentProviderResult[] results = new ContentProviderResult[numOperations];
-            int i = 0;
-            for (ContentProviderOperation operation : operations) {
-                results[i] = operation.apply(this, results, i);
-                if (operation.isYieldAllowed()) {
-                    db.yieldIfContendedSafely();
+            db.beginTransaction();
+            try {
+                int numOperations = operations.size();
+                ContentProviderResult[] results = new ContentProviderResult[numOperations];
+                int i = 0;
+                for (ContentProviderOperation operation : operations) {
+                    results[i] = operation.apply(this, results, i);
+                    if (operation.isYieldAllowed()) {
+                        db.yieldIfContendedSafely();
+                    }
+                    i++;
                 }
-                i++;
+                db.setTransactionSuccessful();
+                return results;
+            } finally {
+                db.endTransaction();
             }
-            db.setTransactionSuccessful();
-            return results;
         } finally {
-            db.endTransaction();
+            <#if modelCaches>
+            // Again once committed, in case a model read during the batch was cached with the previous values (only the
+            // uris of the writes which modified rows: not those of the plain inserts)
+            final Set<Uri> uris = mBatchInvalidatedUris.get();
+            mBatchInvalidatedUris.remove();
+            for (Uri uri : uris) {
+                invalidateModelCaches(uri);
+            }
+            </#if>
+            resumeNotifications(scope);
+        }
+    }
+
+    @Override
+    public Bundle call(String method, String arg, Bundle extras) {
+        if (METHOD_SUSPEND_NOTIFICATIONS.equals(method)) {
+            suspendNotifications(arg, getCallingScope(), getClient(extras));
+            return null;
+        }
+        if (METHOD_RESUME_NOTIFICATIONS.equals(method)) {
+            final Suspension suspension = removeSuspension(arg);
+            if (suspension == null) throw new IllegalStateException("Notifications are not suspended");
+            resumeNotifications(suspension);
+            return null;
+        }
+        return super.call(method, arg, extras);
+    }
+
+    /**
+     * Notifies the observers of the given uri, unless it has {@link #QUERY_NOTIFY} set to {@code false}.<br/>
+     * While the notifications are suspended in the scope of the write (see {@link #getCallingScope()}), only the table of
+     * the uri is remembered, and it will be notified once when they are resumed. The other writes are notified
+     * immediately.
+     */
+    public void notifyChange(Uri uri) {
+        final String notify = uri.getQueryParameter(QUERY_NOTIFY);
+        if (notify != null && !"true".equals(notify)) return;
+        synchronized (mSuspendedNotifications) {
+            // The thread of a batch, even when it is applied for another process
+            SuspendedNotifications suspended = mSuspendedNotifications.get(Thread.currentThread());
+            if (suspended == null) suspended = mSuspendedNotifications.get(getCallingScope());
+            if (suspended != null) {
+                suspended.uris.add(Uri.withAppendedPath(Uri.parse(CONTENT_URI_BASE), uri.getPathSegments().get(0)));
+                return;
+            }
+        }
+        getContext().getContentResolver().notifyChange(uri, null);
+    }
+
+    /**
+     * Returns the scope of the suspensions made by the caller: the current thread when called from this process (since
+     * the writes of this process run on the thread making them), and the pid of the calling process otherwise (since
+     * its calls run on any binder thread).
+     */
+    private static Object getCallingScope() {
+        final int pid = Binder.getCallingPid();
+        if (pid == Process.myPid()) return Thread.currentThread();
+        return pid;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static IBinder getClient(Bundle extras) {
+        if (extras == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) return null;
+        return extras.getBinder(EXTRA_CLIENT);
+    }
+
+    /**
+     * Suspends the notifications of the given scope until the given token is resumed, or the given client (if any)
+     * dies.
+     */
+    private void suspendNotifications(String token, Object scope, IBinder client) {
+        final Suspension suspension = new Suspension(token, scope, client);
+        synchronized (mSuspendedNotifications) {
+            if (mSuspensions.containsKey(token)) throw new IllegalStateException("Notifications are already suspended for this token");
+            mSuspensions.put(token, suspension);
+            suspendNotifications(scope);
+        }
+        if (client == null) return;
+        try {
+            client.linkToDeath(suspension, 0);
+        } catch (RemoteException e) {
+            // The client is already dead
+            if (removeSuspension(token) != null) resumeNotifications(scope);
+        }
+    }
+
+    /**
+     * Removes the suspension of the given token, and returns it, or {@code null} if it was already resumed.
+     */
+    private Suspension removeSuspension(String token) {
+        synchronized (mSuspendedNotifications) {
+            return mSuspensions.remove(token);
+        }
+    }
+
+    private void resumeNotifications(Suspension suspension) {
+        if (suspension.client != null) suspension.client.unlinkToDeath(suspension, 0);
+        resumeNotifications(suspension.scope);
+    }
+
+    private void suspendNotifications(Object scope) {
+        synchronized (mSuspendedNotifications) {
+            SuspendedNotifications suspended = mSuspendedNotifications.get(scope);
+            if (suspended == null) {
+                suspended = new SuspendedNotifications();
+                mSuspendedNotifications.put(scope, suspended);
+            }
+            suspended.count++;
+        }
+    }
+
+    private void resumeNotifications(Object scope) {
+        final Uri[] uris;
+        synchronized (mSuspendedNotifications) {
+            final SuspendedNotifications suspended = mSuspendedNotifications.get(scope);
+            if (suspended == null) throw new IllegalStateException("Notifications are not suspended");
+            if (--suspended.count > 0) return;
+            mSuspendedNotifications.remove(scope);
+            uris = suspended.uris.toArray(new Uri[suspended.uris.size()]);
+        }
+        for (Uri uri : uris) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    /**
+     * The notifications suspended in a scope: the number of suspensions not resumed yet, and the tables to notify when
+     * they all are.
+     */
+    private static class SuspendedNotifications {
+        int count;
+        final Set<Uri> uris = new LinkedHashSet<Uri>();
+    }
+
+    /**
+     * A suspension made by {@link #suspendNotifications(ContentResolver)}, resumed when its client dies (so that the
+     * notifications of a process which died before resuming them are sent anyway).
+     */
+    private class Suspension implements IBinder.DeathRecipient {
+        final String token;
+        final Object scope;
+        final IBinder client;
+
+        Suspension(String token, Object scope, IBinder client) {
+            this.token = token;
+            this.scope = scope;
+            this.client = client;
+        }
+
+        @Override
+        public void binderDied() {
+            if (removeSuspension(token) != null) resumeNotifications(scope);
         }
     }
 
+    <#if modelCaches>
+    /**
+     * Removes from the model caches the models which may have been modified by a write to the given uri: the model of
+     * the row of an item uri, all the models of the table of a table uri, and all the models of the tables referencing
+     * it (whose rows can be modified by cascades).<br/>
+     * Called after each write of this provider, and by the {@code ModelInserter} classes, which write to the database
+     * directly.
+     */
+    public static void invalidateModelCaches(Uri uri) {
+        switch (URI_MATCHER.match(uri)) {
+            <#list model.entities as entity>
+            <#assign referencing = []>
+            <#list model.getReferencingEntities(entity) as other>
+            <#if other.hasModelCache>
+            <#assign referencing = referencing + [other]>
+            </#if>
+            </#list>
+            <#if entity.hasModelCache || referencing?has_content>
+            case URI_TYPE_${entity.nameUpperCase}:
+                <#if entity.hasModelCache>
+                ${entity.nameCamelCase}ModelCache.invalidateAll();
+                </#if>
+                <#list referencing as other>
+                ${other.nameCamelCase}ModelCache.invalidateAll();
+                </#list>
+                break;
+            case URI_TYPE_${entity.nameUpperCase}_ID:
+                <#if entity.hasModelCache>
+                ${entity.nameCamelCase}ModelCache.invalidate(Long.parseLong(uri.getLastPathSegment()));
+                </#if>
+                <#list referencing as other>
+                ${other.nameCamelCase}ModelCache.invalidateAll();
+                </#list>
+                break;
+
+            </#if>
+            </#list>
+        }
+    }
+
+    /**
+     * Invalidates the model caches after a write of this provider which modified rows, remembering the uri when the write
+     * is part of an {@link #applyBatch(ArrayList)}, to invalidate it again once the batch is committed.
+     */
+    private void invalidateModelCachesAfterWrite(Uri uri) {
+        invalidateModelCaches(uri);
+        final Set<Uri> batchUris = mBatchInvalidatedUris.get();
+        if (batchUris != null) batchUris.add(uri);
+    }
+
+    /**
+     * Whether an insert to the given uri can modify existing rows: an upsert, or an insert to a table having a constraint
+     * which replaces the conflicting rows.
+     */
+    private static boolean insertModifiesRows(Uri uri) {
+        if (isUpsert(uri)) return true;
+        <#assign replacing = []>
+        <#list model.entities as entity>
+        <#if entity.hasReplaceConflict>
+        <#assign replacing = replacing + [entity]>
+        </#if>
+        </#list>
+        <#if replacing?has_content>
+        switch (URI_MATCHER.match(uri)) {
+            <#list replacing as entity>
+            case URI_TYPE_${entity.nameUpperCase}:
+            case URI_TYPE_${entity.nameUpperCase}_ID:
+            </#list>
+                return true;
+        }
+        </#if>
+        return false;
+    }
+
+    </#if>
     private static class QueryParams {
         public String table;
         public String selection;
+        public String[] selectionArgs;
         public String orderBy;
+        public String[] columns;
+        public String[] naturalKey;
+        // Whether the table is a query (full text search), which cannot be written to
+        public boolean readOnly;
     }
 
-    private QueryParams getQueryParams(Uri uri, String selection) {
+    private QueryParams getQueryParams(Uri uri, String selection, String[] selectionArgs) {
         QueryParams res = new QueryParams();
         String id = null;
         int matchedId = URI_MATCHER.match(uri);
@@ -192,8 +694,21 @@ public class ${config.providerClassName} extends ContentProvider {
             case URI_TYPE_${entity.nameUpperCase}_ID:
                 res.table = ${entity.nameCamelCase}Columns.TABLE_NAME;
                 res.orderBy = ${entity.nameCamelCase}Columns.DEFAULT_ORDER;
+                res.columns = ${entity.nameCamelCase}Columns.FULL_PROJECTION;
+                <#if entity.hasNaturalKey>
+                res.naturalKey = ${entity.nameCamelCase}Columns.NATURAL_KEY;
+                </#if>
+                break;
+
+            <#if entity.hasFullText>
+            case URI_TYPE_${entity.nameUpperCase}_SEARCH:
+                res.table = getSearchTable(${entity.nameCamelCase}Columns.TABLE_NAME, ${entity.nameCamelCase}Columns.FTS_TABLE_NAME, uri);
+                res.orderBy = SEARCH_ORDER;
+                res.columns = ${entity.nameCamelCase}Columns.FULL_PROJECTION;
+                res.readOnly = true;
                 break;
 
+            </#if>
             </#list>
             default:
                 throw new IllegalArgumentException("The uri '" + uri + "' is not supported by this ContentProvider");
@@ -206,17 +721,109 @@ public class ${config.providerClassName} extends ContentProvider {
                 id = uri.getLastPathSegment();
         }
         if (id != null) {
+            // The id is an argument rather than part of the selection, so that the statement is the same for all the ids
             if (selection != null) {
-                res.selection = BaseColumns._ID + "=" + id + " and (" + selection + ")";
+                res.selection = "(" + selection + ") and " + BaseColumns._ID + "=?";
+            } else {
+                res.selection = BaseColumns._ID + "=?";
+            }
+            if (selectionArgs != null) {
+                res.selectionArgs = Arrays.copyOf(selectionArgs, selectionArgs.length + 1);
+                res.selectionArgs[selectionArgs.length] = id;
             } else {
-                res.selection = BaseColumns._ID + "=" + id;
+                res.selectionArgs = new String[] { id };
             }
         } else {
             res.selection = selection;
+            res.selectionArgs = selectionArgs;
         }
         return res;
     }
 
+    private QueryParams getQueryParamsForWrite(Uri uri, String selection, String[] selectionArgs) {
+        final QueryParams res = getQueryParams(uri, selection, selectionArgs);
+        if (res.readOnly) throw new IllegalArgumentException("The uri '" + uri + "' is read only");
+        return res;
+    }
+    <#if model.hasFullText>
+
+    /**
+     * Returns the rows of the given table matching the full text query of the given uri, along with their rank: the
+     * number of matches of the query in the row (FTS4 has no built-in ranking function).
+     */
+    private static String getSearchTable(String table, String ftsTable, Uri uri) {
+        final String match = uri.getQueryParameter(QUERY_MATCH);
+        if (match == null) throw new IllegalArgumentException("The uri '" + uri + "' has no " + QUERY_MATCH + " parameter");
+        final String offsets = "offsets(" + ftsTable + ")";
+        // offsets() returns 4 integers per match, separated by spaces
+        final String rank = "(length(" + offsets + ") - length(replace(" + offsets + ", ' ', '')) + 1) / 4";
+        return "(SELECT " + table + ".*, " + rank + " AS " + SEARCH_RANK + " FROM " + table + " JOIN " + ftsTable + " ON " + table + "."
+                + BaseColumns._ID + "=" + ftsTable + ".docid WHERE " + ftsTable + " MATCH " + DatabaseUtils.sqlEscapeString(match) + ")";
+    }
+    </#if>
+
+    /**
+     * Suspends the change notifications of this provider, for instance during a sync made of several calls. Each table
+     * modified while they are suspended will be notified only once, by
+     * {@link #resumeNotifications(ContentResolver, String)}.<br/>
+     * Calls to this method can be nested, and must always be balanced by a call to
+     * {@link #resumeNotifications(ContentResolver, String)} (in a {@code finally} block), or the notifications will stay
+     * suspended.<br/>
+     * From the process of the provider, only the notifications of the writes made by the calling thread are suspended.
+     * From another process, the notifications of all the writes of that process are suspended, and they are resumed if
+     * it dies before resuming them (since Jelly Bean MR2). The writes of the other threads and processes are still
+     * notified immediately.
+     *
+     * @return The token to give to {@link #resumeNotifications(ContentResolver, String)}.
+     */
+    public static String suspendNotifications(ContentResolver contentResolver) {
+        final String token = UUID.randomUUID().toString();
+        final Bundle extras = new Bundle();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) putClient(extras);
+        contentResolver.call(Uri.parse(CONTENT_URI_BASE), METHOD_SUSPEND_NOTIFICATIONS, token, extras);
+        return token;
+    }
+
+    /**
+     * Gives the provider a binder of this process, so that it knows when this process dies.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void putClient(Bundle extras) {
+        extras.putBinder(EXTRA_CLIENT, new Binder());
+    }
+
+    /**
+     * Resumes the change notifications suspended by {@link #suspendNotifications(ContentResolver)}, notifying each table
+     * modified in the meantime.
+     *
+     * @param token The token returned by {@link #suspendNotifications(ContentResolver)}.
+     */
+    public static void resumeNotifications(ContentResolver contentResolver, String token) {
+        contentResolver.call(Uri.parse(CONTENT_URI_BASE), METHOD_RESUME_NOTIFICATIONS, token, null);
+    }
+
+    private static boolean isUpsert(Uri uri) {
+        return "true".equals(uri.getQueryParameter(QUERY_UPSERT));
+    }
+
+    private static String[] getNaturalKey(QueryParams queryParams) {
+        if (queryParams.naturalKey == null) throw new IllegalArgumentException("The table '" + queryParams.table + "' has no natural key");
+        return queryParams.naturalKey;
+    }
+
+    /**
+     * Returns whether the SQLite version of the device supports {@code INSERT ... ON CONFLICT DO UPDATE} (3.24+).
+     */
+    public static boolean isOnConflictSupported(SQLiteDatabase db) {
+        if (sOnConflictSupported == null) {
+            final String[] version = DatabaseUtils.stringForQuery(db, "SELECT sqlite_version()", null).split("\\.");
+            final int major = Integer.parseInt(version[0]);
+            final int minor = Integer.parseInt(version[1]);
+            sOnConflictSupported = major > 3 || (major == 3 && minor >= 24);
+        }
+        return sOnConflictSupported;
+    }
+
     public static Uri notify(Uri uri, boolean notify) {
         return uri.buildUpon().appendQueryParameter(QUERY_NOTIFY, String.valueOf(notify)).build();
     }
@@ -224,4 +831,28 @@ public class ${config.providerClassName} extends ContentProvider {
     public static Uri groupBy(Uri uri, String groupBy) {
         return uri.buildUpon().appendQueryParameter(QUERY_GROUP_BY, groupBy).build();
     }
+
+    /**
+     * Limits the number of rows returned by {@code query}.
+     */
+    public static Uri limit(Uri uri, int limit) {
+        return uri.buildUpon().appendQueryParameter(QUERY_LIMIT, String.valueOf(limit)).build();
+    }
+
+    /**
+     * Makes {@code insert} and {@code bulkInsert} update the rows having the same natural key as the inserted values
+     * instead of failing. Only supported by the tables having a natural key.<br/>
+     * The updated rows keep their {@code _id}, and the rows referencing them.
+     */
+    public static Uri upsert(Uri uri) {
+        return uri.buildUpon().appendQueryParameter(QUERY_UPSERT, "true").build();
+    }
+
+    /**
+     * Makes {@code query} on the {@code SEARCH_URI} of a table return the rows matching the given full text query (for
+     * instance {@code "john*"}), by default ordered by rank.
+     */
+    public static Uri match(Uri uri, String query) {
+        return uri.buildUpon().appendQueryParameter(QUERY_MATCH, query).build();
+    }
 }
@@ -14,6 +14,9 @@ import android.net.Uri;
 import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
 </#if>
 import ${config.providerJavaPackage}.base.AbstractContentValues;
+<#if entity.hasNaturalKey>
+import ${config.providerJavaPackage}.${config.providerClassName};
+</#if>
 
 /**
  * Content values wrapper for the {@code ${entity.nameLowerCase}} table.
@@ -33,6 +36,33 @@ public class ${entity.nameCamelCase}ContentValues extends AbstractContentValues
     public int update(ContentResolver contentResolver, ${entity.nameCamelCase}Selection where) {
         return contentResolver.update(uri(), values(), where == null ? null : where.sel(), where == null ? null : where.args());
     }
+    <#if entity.hasNaturalKey>
+
+    /**
+     * Inserts a row using the values stored by this object, or updates the row having the same natural key
+     * ({@code <#list entity.naturalKey as field>${field.nameLowerCase}<#if field_has_next>, </#if></#list>}).
+     * 
+     * @param contentResolver The content resolver to use.
+     */
+    public Uri upsert(ContentResolver contentResolver) {
+        return contentResolver.insert(${config.providerClassName}.upsert(uri()), values());
+    }
+
+    /**
+     * Inserts rows using the given values, or updates the rows having the same natural key
+     * ({@code <#list entity.naturalKey as field>${field.nameLowerCase}<#if field_has_next>, </#if></#list>}), in one transaction.
+     * 
+     * @param contentResolver The content resolver to use.
+     * @return The number of inserted or updated rows.
+     */
+    public static int bulkUpsert(ContentResolver contentResolver, ${entity.nameCamelCase}ContentValues... values) {
+        ContentValues[] contentValues = new ContentValues[values.length];
+        for (int i = 0; i < values.length; i++) {
+            contentValues[i] = values[i].values();
+        }
+        return contentResolver.bulkInsert(${config.providerClassName}.upsert(${entity.nameCamelCase}Columns.CONTENT_URI), contentValues);
+    }
+    </#if>
     <#list entity.fields as field>
 
     public ${entity.nameCamelCase}ContentValues put${field.nameCamelCase}(${field.javaTypeSimpleName} value) {
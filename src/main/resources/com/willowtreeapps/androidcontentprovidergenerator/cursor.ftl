@@ -10,11 +10,18 @@ import android.database.Cursor;
 import ${config.providerJavaPackage}.base.AbstractCursor;
 
 /**
- * Cursor wrapper for the {@code ${entity.nameLowerCase}} table.
+ * Cursor wrapper for the {@code ${entity.nameLowerCase}} table.<br/>
+ * The index of each column is only resolved once, the first time it is read.
  */
 public class ${entity.nameCamelCase}Cursor extends AbstractCursor {
+    <#list entity.fields as field>
+    private static final int INDEX_${field.nameUpperCase} = ${field_index + 1};
+    </#list>
+    <#if entity.fields?has_content>
+
+    </#if>
     public ${entity.nameCamelCase}Cursor(Cursor cursor) {
-        super(cursor);
+        super(cursor, ${entity.nameCamelCase}Columns.FULL_PROJECTION);
     }
     <#list entity.fields as field>
 
@@ -31,37 +38,74 @@ public class ${entity.nameCamelCase}Cursor extends AbstractCursor {
     public ${field.javaTypeSimpleName} get${field.nameCamelCase}() {
         <#switch field.type.name()>
         <#case "STRING">
-        Integer index = getCachedColumnIndexOrThrow(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        return getString(index);
+        return getString(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
         <#break>
         <#case "INTEGER">
-        return getIntegerOrNull(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        <#break>
         <#case "LONG">
-        return getLongOrNull(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        <#break>
         <#case "FLOAT">
-        return getFloatOrNull(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        <#break>
         <#case "DOUBLE">
-        return getDoubleOrNull(${entity.nameCamelCase}Columns.${field.nameUpperCase});
+        <#if field.isNullable>
+        return get${field.type.nullableJavaType.simpleName}OrNull(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
+        <#else>
+        return get${field.type.notNullableJavaType.simpleName?cap_first}OrThrow(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
+        </#if>
         <#break>
         <#case "BOOLEAN">
-        return getBoolean(${entity.nameCamelCase}Columns.${field.nameUpperCase});
+        <#if field.isNullable>
+        return getBooleanOrNull(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
+        <#else>
+        return getBooleanOrThrow(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
+        </#if>
         <#break>
         <#case "DATE">
-        return getDate(${entity.nameCamelCase}Columns.${field.nameUpperCase});
+        return getDate(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
         <#break>
         <#case "BYTE_ARRAY">
-        Integer index = getCachedColumnIndexOrThrow(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        return getBlob(index);
+        return getBlob(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
         <#break>
         <#case "ENUM">
-        Integer intValue = getIntegerOrNull(${entity.nameCamelCase}Columns.${field.nameUpperCase});
-        if (intValue == null) return null;
-        return ${field.javaTypeSimpleName}.values()[intValue];
+        int index = getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase});
+        if (isNull(index)) return null;
+        return ${field.javaTypeSimpleName}.values()[getInt(index)];
         <#break>
         </#switch>
     }
+    <#if field.isNullable>
+
+    /**
+     * Whether the {@code ${field.nameLowerCase}} value is {@code null}.
+     */
+    public boolean is${field.nameCamelCase}Null() {
+        return isNull(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}));
+    }
+    </#if>
+    <#switch field.type.name()>
+    <#case "INTEGER">
+    <#case "LONG">
+    <#case "FLOAT">
+    <#case "DOUBLE">
+    <#case "BOOLEAN">
+    <#if field.isNullable>
+
+    /**
+     * Get the {@code ${field.nameLowerCase}} value, without boxing it.
+     * Returns {@code defaultValue} if it is {@code null}.
+     */
+    public ${field.type.notNullableJavaType.simpleName} get${field.nameCamelCase}As${field.type.notNullableJavaType.simpleName?cap_first}(${field.type.notNullableJavaType.simpleName} defaultValue) {
+        return get${field.type.notNullableJavaType.simpleName?cap_first}(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}), defaultValue);
+    }
+    </#if>
+    <#break>
+    <#case "DATE">
+
+    /**
+     * Get the {@code ${field.nameLowerCase}} value in milliseconds, without allocating a {@code Date}.
+     * Returns {@code defaultValue} if it is {@code null}.
+     */
+    public long get${field.nameCamelCase}AsLong(long defaultValue) {
+        return getLong(getCachedColumnIndexOrThrow(INDEX_${field.nameUpperCase}), defaultValue);
+    }
+    <#break>
+    </#switch>
     </#list>
 }
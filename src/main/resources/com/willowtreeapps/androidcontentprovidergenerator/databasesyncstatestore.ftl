@@ -0,0 +1,51 @@
+<#if header??>
+${header}
+</#if>
+package ${config.projectPackageId}.api;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Keeps the state of the syncs in the {@code sync_state} table, created by the {@code ${config.sqliteHelperClassName}}.
+ */
+public class DatabaseSyncStateStore implements SyncStateStore {
+    public static final String TABLE_NAME = "sync_state";
+    public static final String ENDPOINT = "endpoint";
+    public static final String ETAG = "etag";
+    public static final String LAST_MODIFIED = "last_modified";
+    public static final String LAST_SYNC = "last_sync";
+    public static final String DELTA = "delta";
+
+    private static final String[] PROJECTION = { ETAG, LAST_MODIFIED, DELTA, LAST_SYNC };
+
+    private final SQLiteDatabase mDatabase;
+
+    public DatabaseSyncStateStore(SQLiteDatabase database) {
+        mDatabase = database;
+    }
+
+    @Override
+    public State get(String endpoint) {
+        Cursor cursor = mDatabase.query(TABLE_NAME, PROJECTION, ENDPOINT + "=?", new String[] { endpoint }, null, null, null);
+        try {
+            if (!cursor.moveToFirst()) return null;
+            return new State(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public void put(String endpoint, State state) {
+        ContentValues values = new ContentValues();
+        values.put(ENDPOINT, endpoint);
+        values.put(ETAG, state.etag);
+        values.put(LAST_MODIFIED, state.lastModified);
+        values.put(DELTA, state.delta);
+        values.put(LAST_SYNC, state.lastSync);
+        // Replaces the previous state of the endpoint (unique index)
+        mDatabase.insertWithOnConflict(TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
\ No newline at end of file
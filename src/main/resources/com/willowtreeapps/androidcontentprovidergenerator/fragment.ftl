@@ -58,7 +58,9 @@ public class ${entity.nameCamelCase}ListFragment extends ListFragment {
         public Loader<Cursor> onCreateLoader(int id, Bundle args) {
             // Change the selection to get a subset of your data
             ${entity.nameCamelCase}Selection selection = new ${entity.nameCamelCase}Selection();
-            return new CursorLoader(getActivity(), ${entity.nameCamelCase}Columns.CONTENT_URI, ${entity.nameCamelCase}Columns.FULL_PROJECTION, selection.sel(), selection.args(), ${entity.nameCamelCase}Columns.DEFAULT_ORDER);
+            // Add the columns used by ${entity.nameCamelCase}View to the projection, the other ones are not queried
+            ${entity.nameCamelCase}Columns.Projection projection = ${entity.nameCamelCase}Columns.Projection.builder().build();
+            return new CursorLoader(getActivity(), ${entity.nameCamelCase}Columns.CONTENT_URI, projection.columns(), selection.sel(), selection.args(), ${entity.nameCamelCase}Columns.DEFAULT_ORDER);
         }
 
         @Override
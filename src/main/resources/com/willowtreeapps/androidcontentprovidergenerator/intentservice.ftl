@@ -1,24 +1,46 @@
 package ${config.projectPackageId}.api;
 
 import android.app.IntentService;
+<#if syncState>
+import android.content.ContentProviderClient;
+</#if>
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import java.util.List;
+<#if config.generateProvider>
+import ${config.providerJavaPackage}.${config.providerClassName};
+</#if>
 <#list model.entities as entity>
 <#if config.generateModels>
 <#if entity.url?has_content>
 import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
 </#if>
 </#if>
-<#if config.generateProvider>
-import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}Columns;
-import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}ContentValues;
+<#if config.generateProvider && config.generateModels>
+<#if entity.url?has_content>
+import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}ModelInserter;
+</#if>
 </#if>
 </#list>
 import retrofit.RestAdapter;
 
+/**
+ * Syncs the entities having a url: the intent gives the entity to sync in {@link #API_TYPE}, or several entities to sync
+ * concurrently in {@link #API_TYPES}, along with the parameters of their urls as string extras.<br/>
+ * The items are written by batches, while the next ones are still being downloaded (see {@link SyncEngine}).<br/>
+ * The requests are conditional, and an entity synced less than {@link #MIN_REFRESH_INTERVAL} ago is not synced again
+ * unless the intent has the {@link #FORCE} extra (see {@link SyncSources.ConditionalSource}).
+ */
 public class ApiService extends IntentService {
+    private static final String TAG = ApiService.class.getSimpleName();
+
     public static final String API_TYPE = "api_type";
+    public static final String API_TYPES = "api_types";
+    public static final String FORCE = "force";
+
+    // The minRefreshInterval sync option of _config.json, in milliseconds
+    public static final long MIN_REFRESH_INTERVAL = ${config.syncOptions.minRefreshInterval?c}L * 1000;
     <#list model.entities as entity>
     <#if entity.url?has_content>
     public static final int ${entity.nameUpperCase} = ${entity_index};
@@ -26,6 +48,9 @@ public class ApiService extends IntentService {
     </#list>
 
     RestService service;
+    <#if syncState>
+    SyncStateStore syncStates;
+    </#if>
 
     public ApiService() {
         super("Api Service");
@@ -42,29 +67,71 @@ public class ApiService extends IntentService {
 
     @Override
     protected void onHandleIntent(Intent intent) {
-        switch(intent.getExtras().getInt(API_TYPE)){
-        <#list model.entities as entity>
-        <#if config.generateModels>
-        <#if entity.url?has_content>
-            case ${entity.nameUpperCase}:
-                get${entity.nameCamelCase}FromApi(intent.getExtras());
-                break;
-        </#if>
-        </#if>
-        </#list>
+        Bundle extras = intent.getExtras();
+        int[] apiTypes = extras.containsKey(API_TYPES) ? extras.getIntArray(API_TYPES) : new int[] { extras.getInt(API_TYPE) };
+        long minRefreshInterval = extras.getBoolean(FORCE) ? 0 : MIN_REFRESH_INTERVAL;
+        <#if syncState>
+        // Not opened in onCreate(), which runs on the main thread
+        ContentProviderClient client = getContentResolver().acquireContentProviderClient(${config.providerClassName}.AUTHORITY);
+        try {
+            ${config.providerClassName} provider = (${config.providerClassName}) client.getLocalContentProvider();
+            syncStates = new DatabaseSyncStateStore(provider.getWritableDatabase());
+            sync(apiTypes, extras, minRefreshInterval);
+        } finally {
+            client.release();
         }
+        <#else>
+        sync(apiTypes, extras, minRefreshInterval);
+        </#if>
     }
 
-    <#list model.entities as entity>
-    <#if entity.url?has_content>
-    private void get${entity.nameCamelCase}FromApi(Bundle intent){
-        <#if config.generateModels>
-        List<${entity.nameCamelCase}Model> items = service.list${entity.nameCamelCase}();
+    private void sync(int[] apiTypes, Bundle extras, long minRefreshInterval) {
+        SyncEngine engine = new SyncEngine();
+        for (int apiType : apiTypes) {
+            switch (apiType) {
+            <#list model.entities as entity>
+            <#if config.generateModels>
+            <#if entity.url?has_content>
+                case ${entity.nameUpperCase}:
+                    add${entity.nameCamelCase}(engine, extras, minRefreshInterval);
+                    break;
+            </#if>
+            </#if>
+            </#list>
+            }
+        }
         <#if config.generateProvider>
-        getContentResolver().bulkInsert(${entity.nameCamelCase}Columns.CONTENT_URI, ${entity.nameCamelCase}ContentValues.getContentValues(items.toArray(new ${entity.nameCamelCase}Model[items.size()])));
+        // Each table is notified once, at the end of the sync (only the writes of this thread are suspended)
+        String suspension = ${config.providerClassName}.suspendNotifications(getContentResolver());
         </#if>
+        try {
+            engine.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SyncEngine.SyncException e) {
+            Log.e(TAG, "Sync failed", e);
+        <#if config.generateProvider>
+        } finally {
+            ${config.providerClassName}.resumeNotifications(getContentResolver(), suspension);
         </#if>
+        }
     }
+    <#list model.entities as entity>
+    <#if config.generateModels>
+    <#if entity.url?has_content>
+
+    private void add${entity.nameCamelCase}(SyncEngine engine, Bundle extras, long minRefreshInterval) {
+        engine.add("${entity.nameLowerCase}", SyncSources.${entity.nameCamelCaseLowerCase}(service, <#if syncState>syncStates<#else>null</#if>, minRefreshInterval<#list entity.urlPathParams + entity.queryParams as param>, extras.getString("${param}")</#list>),
+                new SyncEngine.Sink<${entity.nameCamelCase}Model>() {
+                    @Override
+                    public void write(List<${entity.nameCamelCase}Model> batch) {
+                        <#if config.generateProvider>
+                        ${entity.nameCamelCase}ModelInserter.<#if entity.hasTombstone>sync<#elseif entity.hasNaturalKey>upsert<#else>insert</#if>(ApiService.this, batch);
+                        </#if>
+                    }
+                });
+    }
+    </#if>
     </#if>
     </#list>
 }
\ No newline at end of file
@@ -11,7 +11,7 @@ import com.google.gson.annotations.SerializedName;
 import java.util.Date;
 <#break>
 <#case "ENUM">
-import ${config.providerJavaPackage}.${entity.nameLowerCase}.${field.nameCamelCase};
+import ${config.providerJavaPackage}.${entity.nameLowerCase}.${field.enumName};
 <#break>
 </#switch>
 </#list>
@@ -41,12 +41,12 @@ public class ${entity.nameCamelCase}Model{
     public <#if field.isNullable>Double<#else>double</#if> ${field.nameCamelCaseLowerCase};
     <#break>
     <#case "ENUM">
-    public ${field.nameCamelCase} ${field.nameCamelCaseLowerCase};
+    public ${field.enumName} ${field.nameCamelCaseLowerCase};
     <#break>
     <#case "BOOLEAN">
     public Boolean ${field.nameCamelCaseLowerCase};
     <#break>
-    <#case "BYTE[]">
+    <#case "BYTE_ARRAY">
     public byte[] ${field.nameCamelCaseLowerCase};
     <#break>
     <#default>
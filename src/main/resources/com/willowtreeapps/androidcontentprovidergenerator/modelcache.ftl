@@ -0,0 +1,149 @@
+<#if header??>
+${header}
+</#if>
+package ${config.providerJavaPackage}.${entity.nameLowerCase};
+
+import android.content.ContentResolver;
+import android.util.LruCache;
+
+import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
+
+/**
+ * Keeps the most recently used {@code ${entity.nameCamelCase}Model} objects in memory, by {@code _id}, up to <#if entity.modelCache.isBoundedBySize>an approximate
+ * size of ${entity.modelCache.maxBytes?c} bytes<#else>${entity.modelCache.maxEntries?c} models</#if>.<br/>
+ * The models are read through the {@code ${config.providerClassName}}, which invalidates them whenever it writes to the
+ * {@code ${entity.nameLowerCase}} table: a modified or deleted row is removed from the cache, a write to the whole table
+ * (or to a table whose changes can cascade to this one) clears it.<br/>
+ * The cache is static, so only the writes of the process using it invalidate it: the {@code ${config.providerClassName}}
+ * must run in the same process (not in a separate {@code android:process}), and be the only one to write to the
+ * database, or the cache would keep returning models which have changed since.<br/>
+ * The cached models are shared, and must not be modified.
+ */
+public class ${entity.nameCamelCase}ModelCache {
+    <#if entity.modelCache.isBoundedBySize>
+    private static final LruCache<Long, ${entity.nameCamelCase}Model> sCache = new LruCache<Long, ${entity.nameCamelCase}Model>(${entity.modelCache.maxBytes?c}) {
+        @Override
+        protected int sizeOf(Long id, ${entity.nameCamelCase}Model model) {
+            // Approximate: the key, the model and its fields, plus the objects referenced by the fields
+            int res = ${(32 + 8 * entity.fields?size)?c};
+            <#list entity.fields as field>
+            <#switch field.type.name()>
+            <#case "STRING">
+            if (model.${field.nameCamelCaseLowerCase} != null) res += 40 + 2 * model.${field.nameCamelCaseLowerCase}.length();
+            <#break>
+            <#case "BYTE_ARRAY">
+            if (model.${field.nameCamelCaseLowerCase} != null) res += 16 + model.${field.nameCamelCaseLowerCase}.length;
+            <#break>
+            <#case "DATE">
+            if (model.${field.nameCamelCaseLowerCase} != null) res += 24;
+            <#break>
+            <#case "INTEGER">
+            <#case "LONG">
+            <#case "FLOAT">
+            <#case "DOUBLE">
+            <#if field.isNullable>
+            if (model.${field.nameCamelCaseLowerCase} != null) res += 16;
+            </#if>
+            <#break>
+            </#switch>
+            </#list>
+            return res;
+        }
+    };
+    <#else>
+    private static final LruCache<Long, ${entity.nameCamelCase}Model> sCache = new LruCache<Long, ${entity.nameCamelCase}Model>(${entity.modelCache.maxEntries?c});
+    </#if>
+
+    // Incremented by each invalidation (guarded by sCache), so that a model read before it is not cached after it
+    private static long sGeneration;
+
+    private ${entity.nameCamelCase}ModelCache() {}
+
+    /**
+     * Returns the model of the row having the given id, from the cache if it is there, otherwise by querying it (in
+     * which case it is added to the cache).
+     *
+     * @return The model, or {@code null} if there is no such row.
+     */
+    public static ${entity.nameCamelCase}Model get(ContentResolver contentResolver, long id) {
+        ${entity.nameCamelCase}Model res = sCache.get(id);
+        if (res != null) return res;
+        long generation;
+        synchronized (sCache) {
+            generation = sGeneration;
+        }
+        ${entity.nameCamelCase}Cursor cursor = new ${entity.nameCamelCase}Selection().id(id).query(contentResolver);
+        if (cursor == null) return null;
+        try {
+            if (!cursor.moveToFirst()) return null;
+            res = new ${entity.nameCamelCase}Model(cursor);
+        } finally {
+            cursor.close();
+        }
+        synchronized (sCache) {
+            // The row may have been modified during the query
+            if (generation == sGeneration) sCache.put(id, res);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the model of the current row of the given cursor, which must have all the columns: the cached one if it is
+     * there, otherwise a new one, which is not cached (the cursor may have been read before the last invalidation).
+     */
+    public static ${entity.nameCamelCase}Model get(${entity.nameCamelCase}Cursor cursor) {
+        ${entity.nameCamelCase}Model res = sCache.get(cursor.getId());
+        return res != null ? res : new ${entity.nameCamelCase}Model(cursor);
+    }
+
+    /**
+     * Removes the model of the row having the given id from the cache. Called by the {@code ${config.providerClassName}}.
+     */
+    public static void invalidate(long id) {
+        synchronized (sCache) {
+            sGeneration++;
+            sCache.remove(id);
+        }
+    }
+
+    /**
+     * Removes all the models from the cache. Called by the {@code ${config.providerClassName}}.
+     */
+    public static void invalidateAll() {
+        synchronized (sCache) {
+            sGeneration++;
+            // Not evictAll(), which would count the models as evicted
+            for (Long id : sCache.snapshot().keySet()) {
+                sCache.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of models found in the cache.
+     */
+    public static int getHitCount() {
+        return sCache.hitCount();
+    }
+
+    /**
+     * Returns the number of models which were not in the cache (and were queried, when read by id).
+     */
+    public static int getMissCount() {
+        return sCache.missCount();
+    }
+
+    /**
+     * Returns the number of models removed from the cache to respect its bound (the invalidated ones are not counted).
+     */
+    public static int getEvictionCount() {
+        return sCache.evictionCount();
+    }
+
+    /**
+     * Returns the current size of the cache, <#if entity.modelCache.isBoundedBySize>in bytes (approximate)<#else>in models</#if>.
+     */
+    public static int getSize() {
+        return sCache.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+<#if header??>
+${header}
+</#if>
+package ${config.providerJavaPackage}.${entity.nameLowerCase};
+
+import java.util.List;
+
+import android.content.ContentProviderClient;
+import android.content.Context;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
+import ${config.providerJavaPackage}.${config.providerClassName};
+<#-- Binds the value of the given field of "item" to the given position of "statement" -->
+<#macro bindField field position>
+        <#assign value = "item." + field.nameCamelCaseLowerCase>
+        <#switch field.type.name()>
+        <#case "STRING">
+        <#assign bind = "statement.bindString(${position}, ${value});">
+        <#break>
+        <#case "INTEGER">
+        <#case "LONG">
+        <#assign bind = "statement.bindLong(${position}, ${value});">
+        <#break>
+        <#case "FLOAT">
+        <#case "DOUBLE">
+        <#assign bind = "statement.bindDouble(${position}, ${value});">
+        <#break>
+        <#case "BOOLEAN">
+        <#assign bind = "statement.bindLong(${position}, ${value} ? 1 : 0);">
+        <#break>
+        <#case "DATE">
+        <#assign bind = "statement.bindLong(${position}, ${value}.getTime());">
+        <#break>
+        <#case "BYTE_ARRAY">
+        <#assign bind = "statement.bindBlob(${position}, ${value});">
+        <#break>
+        <#case "ENUM">
+        <#assign bind = "statement.bindLong(${position}, ${value}.ordinal());">
+        <#break>
+        </#switch>
+        <#if field.isNullable>
+        if (${value} == null) {
+            statement.bindNull(${position});
+        } else {
+            ${bind}
+        }
+        <#elseif field.type.name() == "BOOLEAN" || !field.type.hasNotNullableJavaType()>
+        if (${value} == null) throw new IllegalArgumentException("value for ${field.nameCamelCaseLowerCase} must not be null");
+        ${bind}
+        <#else>
+        ${bind}
+        </#if>
+</#macro>
+
+/**
+ * Inserts {@code ${entity.nameCamelCase}Model} objects in the {@code ${entity.nameLowerCase}} table, binding their fields directly
+ * to a statement compiled once, without going through {@code ContentValues}.
+ */
+public class ${entity.nameCamelCase}ModelInserter {
+    private static final String TAG = ${entity.nameCamelCase}ModelInserter.class.getSimpleName();
+
+    // @formatter:off
+    <#if entity.fields?has_content>
+    private static final String SQL_INSERT = "INSERT INTO "
+            + ${entity.nameCamelCase}Columns.TABLE_NAME + " ( "
+            <#list entity.fields as field>
+            + ${entity.nameCamelCase}Columns.${field.nameUpperCase}<#if field_has_next> + ", "</#if>
+            </#list>
+            + " ) VALUES ( <#list entity.fields as field>?<#if field_has_next>, </#if></#list> )";
+    <#else>
+    private static final String SQL_INSERT = "INSERT INTO " + ${entity.nameCamelCase}Columns.TABLE_NAME + " DEFAULT VALUES";
+    </#if>
+    <#if entity.hasNaturalKey>
+    <#assign naturalKeyNames = []>
+    <#list entity.naturalKey as field>
+    <#assign naturalKeyNames = naturalKeyNames + [field.nameLowerCase]>
+    </#list>
+    <#assign updatedFields = []>
+    <#list entity.fields as field>
+    <#if !naturalKeyNames?seq_contains(field.nameLowerCase)>
+    <#assign updatedFields = updatedFields + [field]>
+    </#if>
+    </#list>
+
+    private static final String SQL_UPSERT = SQL_INSERT
+            + " ON CONFLICT ( <#list entity.naturalKey as field>" + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + "<#if field_has_next>, </#if></#list> )"
+            <#if updatedFields?has_content>
+            + " DO UPDATE SET "
+            <#list updatedFields as field>
+            + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + " = excluded." + ${entity.nameCamelCase}Columns.${field.nameUpperCase}<#if field_has_next> + ", "<#else>;</#if>
+            </#list>
+            <#else>
+            <#-- Not DO NOTHING, which would not count the existing rows as upserted, unlike SQL_UPDATE -->
+            + " DO UPDATE SET " + ${entity.nameCamelCase}Columns.${entity.naturalKey[0].nameUpperCase} + " = excluded." + ${entity.nameCamelCase}Columns.${entity.naturalKey[0].nameUpperCase};
+            </#if>
+
+    // Updates the row having the natural key of an item, when ON CONFLICT is not supported (then inserted if none)
+    private static final String SQL_UPDATE = "UPDATE " + ${entity.nameCamelCase}Columns.TABLE_NAME + " SET "
+            <#if updatedFields?has_content>
+            <#list updatedFields as field>
+            + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + " = ?<#if field_has_next>, </#if>"
+            </#list>
+            <#else>
+            + ${entity.nameCamelCase}Columns.${entity.naturalKey[0].nameUpperCase} + " = " + ${entity.nameCamelCase}Columns.${entity.naturalKey[0].nameUpperCase}
+            </#if>
+            + " WHERE "
+            <#list entity.naturalKey as field>
+            + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + " = ?<#if field_has_next> AND "<#else>";</#if>
+            </#list>
+    </#if>
+    <#if entity.hasTombstone>
+
+    private static final String SQL_DELETE = "DELETE FROM " + ${entity.nameCamelCase}Columns.TABLE_NAME + " WHERE "
+            <#list entity.naturalKey as field>
+            + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + " = ?<#if field_has_next> AND "<#else>";</#if>
+            </#list>
+    </#if>
+    // @formatter:on
+
+    private static final int INSERT = 0;
+    <#if entity.hasNaturalKey>
+    private static final int UPSERT = 1;
+    </#if>
+    <#if entity.hasTombstone>
+    private static final int SYNC = 2;
+    </#if>
+
+    private ${entity.nameCamelCase}ModelInserter() {}
+
+    /**
+     * Inserts the given items using the database of the {@code ${config.providerClassName}}, which must run in the same
+     * process, and notifies the observers of {@link ${entity.nameCamelCase}Columns#CONTENT_URI}.
+     * 
+     * @return The number of inserted rows.
+     */
+    public static int insert(Context context, List<${entity.nameCamelCase}Model> items) {
+        return execute(context, items, INSERT);
+    }
+
+    /**
+     * Inserts the given items in one transaction.
+     * 
+     * @return The number of inserted rows.
+     */
+    public static int insert(SQLiteDatabase db, List<${entity.nameCamelCase}Model> items) {
+        <#if modelCaches && entity.hasReplaceConflict>
+        int res = execute(db, items, SQL_INSERT, null);
+        // A constraint of the table replaces the conflicting rows, which may have been cached
+        if (res != 0) ${config.providerClassName}.invalidateModelCaches(${entity.nameCamelCase}Columns.CONTENT_URI);
+        return res;
+        <#else>
+        return execute(db, items, SQL_INSERT, null);
+        </#if>
+    }
+    <#if entity.hasNaturalKey>
+
+    /**
+     * Same as {@link #insert(Context, List)}, but updates the rows having the same natural key
+     * ({@code <#list entity.naturalKey as field>${field.nameLowerCase}<#if field_has_next>, </#if></#list>}) instead of inserting new ones.
+     * 
+     * @return The number of inserted or updated rows.
+     */
+    public static int upsert(Context context, List<${entity.nameCamelCase}Model> items) {
+        return execute(context, items, UPSERT);
+    }
+
+    /**
+     * Same as {@link #insert(SQLiteDatabase, List)}, but updates the rows having the same natural key
+     * ({@code <#list entity.naturalKey as field>${field.nameLowerCase}<#if field_has_next>, </#if></#list>}) instead of inserting new ones.<br/>
+     * The updated rows keep their {@code _id}: on devices where SQLite is older than 3.24, they are updated by a second
+     * statement before inserting the items which did not update any row.
+     * 
+     * @return The number of inserted or updated rows.
+     */
+    public static int upsert(SQLiteDatabase db, List<${entity.nameCamelCase}Model> items) {
+        <#if modelCaches>
+        int res = ${config.providerClassName}.isOnConflictSupported(db) ? execute(db, items, SQL_UPSERT, null) : execute(db, items, SQL_INSERT, SQL_UPDATE);
+        // The updated rows may have been cached
+        if (res != 0) ${config.providerClassName}.invalidateModelCaches(${entity.nameCamelCase}Columns.CONTENT_URI);
+        return res;
+        <#else>
+        return ${config.providerClassName}.isOnConflictSupported(db) ? execute(db, items, SQL_UPSERT, null) : execute(db, items, SQL_INSERT, SQL_UPDATE);
+        </#if>
+    }
+    </#if>
+    <#if entity.hasTombstone>
+
+    /**
+     * Same as {@link #upsert(Context, List)}, but deletes the rows of the items flagged by
+     * {@code ${entity.tombstoneField.nameCamelCaseLowerCase}} instead (the changes of a delta sync).
+     * 
+     * @return The number of inserted, updated or deleted rows.
+     */
+    public static int sync(Context context, List<${entity.nameCamelCase}Model> items) {
+        return execute(context, items, SYNC);
+    }
+
+    /**
+     * Applies the changes of a delta sync in one transaction: the rows of the items flagged by
+     * {@code ${entity.tombstoneField.nameCamelCaseLowerCase}} are deleted (by natural key), the other items are upserted (see
+     * {@link #upsert(SQLiteDatabase, List)}).
+     * 
+     * @return The number of inserted, updated or deleted rows.
+     */
+    public static int sync(SQLiteDatabase db, List<${entity.nameCamelCase}Model> items) {
+        int res = 0;
+        boolean onConflictSupported = ${config.providerClassName}.isOnConflictSupported(db);
+        SQLiteStatement insert = db.compileStatement(onConflictSupported ? SQL_UPSERT : SQL_INSERT);
+        SQLiteStatement update = onConflictSupported ? null : db.compileStatement(SQL_UPDATE);
+        SQLiteStatement delete = db.compileStatement(SQL_DELETE);
+        // Not yielding: the changes are applied all at once
+        db.beginTransaction();
+        try {
+            for (${entity.nameCamelCase}Model item : items) {
+                if (Boolean.TRUE.equals(item.${entity.tombstoneField.nameCamelCaseLowerCase})) {
+                    bindNaturalKey(delete, item);
+                    res += delete.executeUpdateDelete();
+                    continue;
+                }
+                if (execute(insert, update, item)) res++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            if (update != null) update.close();
+            delete.close();
+        }
+        <#if modelCaches>
+        // The updated and deleted rows may have been cached
+        if (res != 0) ${config.providerClassName}.invalidateModelCaches(${entity.nameCamelCase}Columns.CONTENT_URI);
+        </#if>
+        return res;
+    }
+    </#if>
+
+    private static int execute(Context context, List<${entity.nameCamelCase}Model> items, int mode) {
+        ContentProviderClient client = context.getContentResolver().acquireContentProviderClient(${entity.nameCamelCase}Columns.CONTENT_URI);
+        try {
+            ${config.providerClassName} provider = (${config.providerClassName}) client.getLocalContentProvider();
+            SQLiteDatabase db = provider.getWritableDatabase();
+            <#if entity.hasTombstone>
+            int res = mode == SYNC ? sync(db, items) : mode == UPSERT ? upsert(db, items) : insert(db, items);
+            <#elseif entity.hasNaturalKey>
+            int res = mode == UPSERT ? upsert(db, items) : insert(db, items);
+            <#else>
+            int res = insert(db, items);
+            </#if>
+            if (res != 0) provider.notifyChange(${entity.nameCamelCase}Columns.CONTENT_URI);
+            return res;
+        } finally {
+            client.release();
+        }
+    }
+
+    /**
+     * @param updateSql If not {@code null}, executed before {@code insertSql} for each item, which is only inserted if no
+     *            row was updated.
+     */
+    private static int execute(SQLiteDatabase db, List<${entity.nameCamelCase}Model> items, String insertSql, String updateSql) {
+        int res = 0;
+        SQLiteStatement insert = db.compileStatement(insertSql);
+        SQLiteStatement update = updateSql == null ? null : db.compileStatement(updateSql);
+        db.beginTransaction();
+        try {
+            for (${entity.nameCamelCase}Model item : items) {
+                if (execute(insert, update, item)) res++;
+                db.yieldIfContendedSafely();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            if (update != null) update.close();
+        }
+        return res;
+    }
+
+    /**
+     * Updates the row having the natural key of the given item if {@code update} is not {@code null}, otherwise (or if
+     * there is no such row) inserts the item.
+     * 
+     * @return {@code true} if a row was inserted or updated.
+     */
+    private static boolean execute(SQLiteStatement insert, SQLiteStatement update, ${entity.nameCamelCase}Model item) {
+        try {
+            <#if entity.hasNaturalKey>
+            if (update != null) {
+                bindUpdate(update, item);
+                if (update.executeUpdateDelete() != 0) return true;
+            }
+            </#if>
+            bind(insert, item);
+            return insert.executeInsert() != -1;
+        } catch (SQLException e) {
+            // Same behavior as SQLiteDatabase.insert()
+            Log.e(TAG, "Error inserting " + item, e);
+            return false;
+        }
+    }
+
+    /**
+     * Binds all the fields of the given item to the given statement, in the order of {@link #SQL_INSERT}.
+     */
+    public static void bind(SQLiteStatement statement, ${entity.nameCamelCase}Model item) {
+        <#list entity.fields as field>
+<@bindField field field_index + 1/>
+        </#list>
+    }
+    <#if entity.hasNaturalKey>
+
+    /**
+     * Binds the fields of the given item to the given statement, in the order of {@link #SQL_UPDATE}.
+     */
+    private static void bindUpdate(SQLiteStatement statement, ${entity.nameCamelCase}Model item) {
+        <#list updatedFields as field>
+<@bindField field field_index + 1/>
+        </#list>
+        <#list entity.naturalKey as field>
+<@bindField field updatedFields?size + field_index + 1/>
+        </#list>
+    }
+    </#if>
+    <#if entity.hasTombstone>
+
+    /**
+     * Binds the natural key of the given item to the given statement, in the order of {@link #SQL_DELETE}.
+     */
+    private static void bindNaturalKey(SQLiteStatement statement, ${entity.nameCamelCase}Model item) {
+        <#list entity.naturalKey as field>
+<@bindField field field_index + 1/>
+        </#list>
+    }
+    </#if>
+}
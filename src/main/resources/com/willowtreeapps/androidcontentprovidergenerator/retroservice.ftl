@@ -8,9 +8,12 @@ import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
 </#if>
 </#list>
 import java.util.List;
+import retrofit.client.Response;
 import retrofit.http.GET;
+import retrofit.http.Header;
 import retrofit.http.Path;
 import retrofit.http.Query;
+import retrofit.http.Streaming;
 
 public interface RestService{
     <#list model.entities as entity>
@@ -18,15 +21,39 @@ public interface RestService{
     <#if entity.url?has_content>
     @GET("${entity.url}")
     List<${entity.nameCamelCase}Model> list${entity.nameCamelCase}(
-        <#list entity.url?split("/") as x>
-        <#if x?starts_with("{")>
-        @Path("${x?replace("{", "")?replace("}", "")}")String ${x?replace("{", "")?replace("}", "")}<#if x_has_next>,<#elseif param_has_next>,</#if>
-        </#if>
+        <#list entity.urlPathParams as param>
+        @Path("${param}")String ${param}<#if param_has_next || entity.queryParams?has_content>,</#if>
         </#list>
         <#list entity.queryParams as param>
         @Query("${param}")String ${param} <#if param_has_next>,</#if>
         </#list>
         );
+
+    /**
+     * Same request as {@link #list${entity.nameCamelCase}}, but the body of the response is not read: it is parsed as a stream
+     * by {@link SyncSources}, one item at a time, instead of as a whole list.<br/>
+     * The request is conditional when given the validators of the previous response (the {@code null} headers are not
+     * sent): the server then answers {@code 304 Not Modified}, without a body, if nothing changed.
+    <#if entity.hasDeltaSync>
+     * When {@code since} is given, the server only returns the items whose {@code ${entity.deltaSyncField.nameLowerCase}} is greater<#if entity.hasTombstone>,
+     * including the deleted ones (flagged by {@code ${entity.tombstoneField.nameLowerCase}})</#if>.
+    </#if>
+     */
+    @GET("${entity.url}")
+    @Streaming
+    Response stream${entity.nameCamelCase}(
+        <#list entity.urlPathParams as param>
+        @Path("${param}")String ${param},
+        </#list>
+        <#list entity.queryParams as param>
+        @Query("${param}")String ${param},
+        </#list>
+        <#if entity.hasDeltaSync>
+        @Query("${entity.deltaSync.queryParam}")String since,
+        </#if>
+        @Header("If-None-Match")String ifNoneMatch,
+        @Header("If-Modified-Since")String ifModifiedSince
+        );
     </#if>
     </#if>
     </#list>
@@ -25,12 +25,13 @@ public class ${entity.nameCamelCase}Selection extends AbstractSelection<${entity
      * 
      * @param contentResolver The content resolver to query.
      * @param projection A list of which columns to return. Passing null will return all columns, which is inefficient.
-     * @param sortOrder How to order the rows, formatted as an SQL ORDER BY clause (excluding the ORDER BY itself). Passing null will use the default sort
-     *            order, which may be unordered.
+     * @param sortOrder How to order the rows, formatted as an SQL ORDER BY clause (excluding the ORDER BY itself). Passing null will use the
+     *            {@link ${entity.nameCamelCase}Columns#DEFAULT_ORDER} then the id, which is the order expected by {@link #after(Object, long)}.
      * @return A {@code ${entity.nameCamelCase}Cursor} object, which is positioned before the first entry, or null.
      */
     public ${entity.nameCamelCase}Cursor query(ContentResolver contentResolver, String[] projection, String sortOrder) {
-        Cursor cursor = contentResolver.query(uri(), projection, sel(), args(), sortOrder);
+        if (sortOrder == null) sortOrder = defaultOrder(${entity.nameCamelCase}Columns.DEFAULT_ORDER, ${entity.nameCamelCase}Columns._ID);
+        Cursor cursor = contentResolver.query(queryUri(), projection, sel(), args(), sortOrder);
         if (cursor == null) return null;
         return new ${entity.nameCamelCase}Cursor(cursor);
     }
@@ -48,6 +49,48 @@ public class ${entity.nameCamelCase}Selection extends AbstractSelection<${entity
     public ${entity.nameCamelCase}Cursor query(ContentResolver contentResolver) {
         return query(contentResolver, null, null);
     }
+
+    /**
+     * Query the given content resolver using this selection, for the columns of the given projection only (the getters of
+     * the returned cursor can only be used for these columns).
+     */
+    public ${entity.nameCamelCase}Cursor queryProjection(ContentResolver contentResolver, ${entity.nameCamelCase}Columns.Projection projection, String sortOrder) {
+        return query(contentResolver, projection.columns(), sortOrder);
+    }
+
+    /**
+     * Equivalent of calling {@code queryProjection(contentResolver, projection, null)}.
+     */
+    public ${entity.nameCamelCase}Cursor queryProjection(ContentResolver contentResolver, ${entity.nameCamelCase}Columns.Projection projection) {
+        return queryProjection(contentResolver, projection, null);
+    }
+
+    /**
+     * Restricts this selection to the rows following the given row, in the {@link ${entity.nameCamelCase}Columns#DEFAULT_ORDER} then id order
+     * (keyset pagination). To get the next page of a query, call this method again with the values of the last row of the
+     * current page, then query again.<br/>
+     * {@code DEFAULT_ORDER} must be a single column sorted in ascending order.
+     *
+     * @param sortKey The value of the {@code DEFAULT_ORDER} column of the row (ignored if it is the id).
+     * @param id The id of the row.
+     */
+    public ${entity.nameCamelCase}Selection after(Object sortKey, long id) {
+        setAfter(${entity.nameCamelCase}Columns.DEFAULT_ORDER, ${entity.nameCamelCase}Columns._ID, sortKey, id);
+        return this;
+    }
+    <#if entity.hasFullText>
+
+    /**
+     * Restricts this selection to the rows whose full text fields match the given full text query (for instance
+     * {@code "john*"}), using the full text index of the table. Unless another order is given, the rows are ordered by
+     * rank (the number of matches) rather than in the order expected by {@link #after(Object, long)}: use
+     * {@link #limit(int)} to get the best results only.
+     */
+    public ${entity.nameCamelCase}Selection match(String query) {
+        setMatch(${entity.nameCamelCase}Columns.SEARCH_URI, query);
+        return this;
+    }
+    </#if>
     
     
     public ${entity.nameCamelCase}Selection id(long... value) {
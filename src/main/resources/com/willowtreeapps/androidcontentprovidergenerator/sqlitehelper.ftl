@@ -6,6 +6,9 @@ package ${config.providerJavaPackage};
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.database.DatabaseErrorHandler;
+<#if config.databaseOptions.has("mmapSize")>
+import android.database.DatabaseUtils;
+</#if>
 import android.database.DefaultDatabaseErrorHandler;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
@@ -17,12 +20,19 @@ import ${config.projectPackageId}.BuildConfig;
 <#list model.entities as entity>
 import ${config.providerJavaPackage}.${entity.nameLowerCase}.${entity.nameCamelCase}Columns;
 </#list>
+<#assign options = config.databaseOptions>
 
 public class ${config.sqliteHelperClassName} extends SQLiteOpenHelper {
     private static final String TAG = ${config.sqliteHelperClassName}.class.getSimpleName();
 
     public static final String DATABASE_FILE_NAME = "${config.databaseFileName}";
-    private static final int DATABASE_VERSION = 1;
+    <#if !schema.recorded>
+    // UNRECORDED VERSION: this version is not in _schema.json yet (generated by the watch mode). Do not install this
+    // build: its databases would never be migrated to the version recorded later with --record-schema
+    </#if>
+    private static final int DATABASE_VERSION = ${schema.version};
+    // Number of prepared statements kept by each connection, by SQL
+    private static final int STATEMENT_CACHE_SIZE = ${options.statementCacheSize?c};
 
     // @formatter:off
     <#list model.entities as entity>
@@ -47,11 +57,51 @@ public class ${config.sqliteHelperClassName} extends SQLiteOpenHelper {
 
     <#list entity.fields as field>
     <#if field.isIndex>
-    private static final String SQL_CREATE_INDEX_${entity.nameUpperCase}_${field.nameUpperCase} = "CREATE INDEX IDX_${entity.nameUpperCase}_${field.nameUpperCase} "
+    private static final String SQL_CREATE_INDEX_${entity.nameUpperCase}_${field.nameUpperCase} = "CREATE INDEX IF NOT EXISTS IDX_${entity.nameUpperCase}_${field.nameUpperCase} "
             + " ON " + ${entity.nameCamelCase}Columns.TABLE_NAME + " ( " + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + " );";
     </#if>
     </#list>
+    <#list entity.indexes as index>
+    private static final String SQL_CREATE_INDEX_${entity.nameUpperCase}_${index.nameUpperCase} = "CREATE <#if index.isUnique>UNIQUE </#if>INDEX IF NOT EXISTS IDX_${entity.nameUpperCase}_${index.nameUpperCase} "
+            + " ON " + ${entity.nameCamelCase}Columns.TABLE_NAME + " ( <#list index.columns as column>" + ${entity.nameCamelCase}Columns.${column.nameUpperCase} + "<#if column.order??> ${column.order}</#if><#if column_has_next>, </#if></#list> )<#if index.hasWhere>"
+            + " WHERE ${index.where?j_string}<#else></#if>;";
+    </#list>
+    <#if entity.hasNaturalKey>
+    private static final String SQL_CREATE_INDEX_${entity.nameUpperCase}_NATURAL_KEY = "CREATE UNIQUE INDEX IF NOT EXISTS UIDX_${entity.nameUpperCase}_NATURAL_KEY "
+            + " ON " + ${entity.nameCamelCase}Columns.TABLE_NAME + " ( <#list entity.naturalKey as field>" + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + "<#if field_has_next>, </#if></#list> );";
+    </#if>
+    <#if entity.hasFullText>
+
+    // The full text table only indexes the rows of the table (external content), the triggers keep it up to date
+    private static final String SQL_CREATE_FTS_TABLE_${entity.nameUpperCase} = "CREATE VIRTUAL TABLE IF NOT EXISTS " + ${entity.nameCamelCase}Columns.FTS_TABLE_NAME
+            + " USING fts4(content='" + ${entity.nameCamelCase}Columns.TABLE_NAME + "', <#list entity.fullTextFields as field>" + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + "<#if field_has_next>, </#if></#list>);";
+
+    private static final String[] SQL_CREATE_FTS_TRIGGERS_${entity.nameUpperCase} = new String[] {
+        <#list [{"suffix": "bu", "event": "BEFORE UPDATE"}, {"suffix": "bd", "event": "BEFORE DELETE"}] as trigger>
+            "CREATE TRIGGER IF NOT EXISTS " + ${entity.nameCamelCase}Columns.FTS_TABLE_NAME + "_${trigger.suffix} ${trigger.event} ON " + ${entity.nameCamelCase}Columns.TABLE_NAME
+            + " BEGIN DELETE FROM " + ${entity.nameCamelCase}Columns.FTS_TABLE_NAME + " WHERE docid=old." + ${entity.nameCamelCase}Columns._ID + "; END;",
+        </#list>
+        <#list [{"suffix": "au", "event": "AFTER UPDATE"}, {"suffix": "ai", "event": "AFTER INSERT"}] as trigger>
+            "CREATE TRIGGER IF NOT EXISTS " + ${entity.nameCamelCase}Columns.FTS_TABLE_NAME + "_${trigger.suffix} ${trigger.event} ON " + ${entity.nameCamelCase}Columns.TABLE_NAME
+            + " BEGIN INSERT INTO " + ${entity.nameCamelCase}Columns.FTS_TABLE_NAME + "(docid, <#list entity.fullTextFields as field>" + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + "<#if field_has_next>, </#if></#list>)"
+            + " VALUES(new." + ${entity.nameCamelCase}Columns._ID + "<#list entity.fullTextFields as field>, new." + ${entity.nameCamelCase}Columns.${field.nameUpperCase} + "</#list>); END;"<#if trigger_has_next>,</#if>
+        </#list>
+    };
+    </#if>
     </#list>
+
+    // The state of the last sync of each url of the ApiService, used to make its requests conditional (always created, so
+    // that generating the ApiService or not does not change the schema)
+    private static final String SQL_CREATE_TABLE_SYNC_STATE = "CREATE TABLE IF NOT EXISTS sync_state ( "
+            + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "endpoint TEXT NOT NULL, "
+            + "etag TEXT, "
+            + "last_modified TEXT, "
+            + "last_sync INTEGER NOT NULL, "
+            + "delta TEXT );";
+
+    private static final String SQL_CREATE_INDEX_SYNC_STATE_ENDPOINT = "CREATE UNIQUE INDEX IF NOT EXISTS UIDX_SYNC_STATE_ENDPOINT "
+            + " ON sync_state ( endpoint );";
     // @formatter:on
 
     public static ${config.sqliteHelperClassName} newInstance(Context context) {
@@ -100,21 +150,101 @@ public class ${config.sqliteHelperClassName} extends SQLiteOpenHelper {
         db.execSQL(SQL_CREATE_INDEX_${entity.nameUpperCase}_${field.nameUpperCase});
         </#if>
         </#list>
+        <#list entity.indexes as index>
+        db.execSQL(SQL_CREATE_INDEX_${entity.nameUpperCase}_${index.nameUpperCase});
         </#list>
+        <#if entity.hasNaturalKey>
+        db.execSQL(SQL_CREATE_INDEX_${entity.nameUpperCase}_NATURAL_KEY);
+        </#if>
+        <#if entity.hasFullText>
+        db.execSQL(SQL_CREATE_FTS_TABLE_${entity.nameUpperCase});
+        for (String sql : SQL_CREATE_FTS_TRIGGERS_${entity.nameUpperCase}) {
+            db.execSQL(sql);
+        }
+        </#if>
+        </#list>
+        db.execSQL(SQL_CREATE_TABLE_SYNC_STATE);
+        db.execSQL(SQL_CREATE_INDEX_SYNC_STATE_ENDPOINT);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        configureDatabase(db);
+        configureConnection(db);
     }
 
-    <#if config.enableForeignKeys >
     @Override
     public void onOpen(SQLiteDatabase db) {
         super.onOpen(db);
+        // onConfigure() is only called since Jelly Bean (before that, the page size cannot be set on a new database)
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            configureDatabase(db);
+            configureConnection(db);
+        }
+        <#if config.enableForeignKeys >
         if (!db.isReadOnly()) {
             db.execSQL("PRAGMA foreign_keys=ON;");
         }
+        </#if>
+    }
+
+    /**
+     * Applies the {@code databaseOptions} of {@code _config.json} stored in the database file.
+     */
+    private void configureDatabase(SQLiteDatabase db) {
+        <#if options.has("pageSize")>
+        // Must be set before write-ahead logging is enabled, and has no effect on an existing database
+        db.execSQL("PRAGMA page_size=${options.pageSize?c};");
+        </#if>
+        <#if options.enableWriteAheadLogging>
+        // Allows the queries to run while a transaction is writing
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && !db.isReadOnly()) {
+            db.enableWriteAheadLogging();
+        }
+        </#if>
+    }
+
+    /**
+     * Applies the {@code databaseOptions} of {@code _config.json} which only last as long as the connection. Called from
+     * {@link #onConfigure(SQLiteDatabase)} before anything else uses the connection (only from
+     * {@link #onOpen(SQLiteDatabase)} before Jelly Bean).<br/>
+     * This only configures the primary connection, which makes all the writes: with write-ahead logging, the additional
+     * connections opened for the queries can not be configured, so only the options of the writes are set.
+     */
+    private void configureConnection(SQLiteDatabase db) {
+        // The queries having the same SQL reuse the statement prepared by the first one
+        db.setMaxSqlCacheSize(STATEMENT_CACHE_SIZE);
+        db.execSQL("PRAGMA synchronous=${options.synchronous};");
+        <#if options.has("tempStore")>
+        db.execSQL("PRAGMA temp_store=${options.tempStore};");
+        </#if>
+        <#if options.has("cacheSize")>
+        db.execSQL("PRAGMA cache_size=${options.cacheSize?c};");
+        </#if>
+        <#if model.hasFullText>
+        // So that the rows deleted by an ON CONFLICT REPLACE also run the triggers updating the full text tables
+        db.execSQL("PRAGMA recursive_triggers=ON;");
+        </#if>
+        <#if options.has("mmapSize")>
+        // Returns the new size, which execSQL() does not allow
+        DatabaseUtils.longForQuery(db, "PRAGMA mmap_size=${options.mmapSize?c};", null);
+        </#if>
     }
-    </#if>
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         if (BuildConfig.DEBUG) Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
+        <#if schema.migrations?has_content>
+        // Generated from the schema snapshot of the generator (_schema.json), one block per version
+        </#if>
+        <#list schema.migrations as migration>
+        if (oldVersion < ${migration.version}) {
+            <#list migration.statements as statement>
+            db.execSQL("${statement?j_string}");
+            </#list>
+        }
+        </#list>
     }
 }
@@ -0,0 +1,272 @@
+<#if header??>
+${header}
+</#if>
+package ${config.projectPackageId}.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a sync made of independent tasks, each one reading items from a {@link Source} (typically the network) and
+ * writing them by batches to a {@link Sink} (typically the database).<br/>
+ * The sources are read concurrently on a bounded pool of threads, while the batches are all written one at a time by
+ * the thread calling {@link #run()}, so that reading and writing overlap. The batches go through a bounded queue: when
+ * writing is slower than reading, the sources wait for room in the queue, so that at most {@code queueCapacity} batches
+ * (plus the one being written, and the one being filled by each source) are in memory at once.<br/>
+ * This class does not depend on Android, so that a sync can be tested on the JVM.
+ */
+public class SyncEngine {
+    public static final int DEFAULT_FETCH_THREADS = 3;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    /**
+     * Reads the items of a task.
+     */
+    public interface Source<T> {
+        /**
+         * Reads all the items, passing them one by one to the given consumer. Called on one of the fetch threads.
+         */
+        void read(Consumer<T> consumer) throws Exception;
+    }
+
+    public interface Consumer<T> {
+        /**
+         * Adds the given item to the current batch. Blocks while the queue of batches is full.
+         *
+         * @throws CancellationException If the task failed to write a previous batch, in which case reading can stop.
+         */
+        void accept(T item) throws InterruptedException;
+
+        /**
+         * Sets an action to run on the thread running the sync once all the items of the task have been written, for
+         * instance to save the state of the source. The action is not run if the task fails.
+         */
+        void onWritten(Runnable action);
+    }
+
+    /**
+     * Writes the items of a task.
+     */
+    public interface Sink<T> {
+        /**
+         * Writes the given batch of items, typically in one transaction. Called on the thread running the sync.
+         */
+        void write(List<T> batch) throws Exception;
+    }
+
+    /**
+     * Thrown by {@link SyncEngine#run()} when some of the tasks failed. The other tasks have been fully synced.
+     */
+    public static class SyncException extends Exception {
+        private final Map<String, Throwable> mErrors;
+
+        public SyncException(Map<String, Throwable> errors) {
+            super("Failed tasks: " + errors.keySet(), errors.values().iterator().next());
+            mErrors = Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * Returns the error of each failed task, by name.
+         */
+        public Map<String, Throwable> getErrors() {
+            return mErrors;
+        }
+    }
+
+    private static class Task<T> {
+        final String name;
+        final Source<T> source;
+        final Sink<T> sink;
+        // Written by the thread running the sync only
+        int count;
+        // Set by the reader, run after the last batch has been written
+        Runnable onWritten;
+        // The first error of the task, when reading or writing
+        volatile Throwable error;
+
+        Task(String name, Source<T> source, Sink<T> sink) {
+            this.name = name;
+            this.source = source;
+            this.sink = sink;
+        }
+    }
+
+    private static class Batch<T> {
+        final Task<T> task;
+        // null for the last batch of the task, which marks its end
+        final List<T> items;
+
+        Batch(Task<T> task, List<T> items) {
+            this.task = task;
+            this.items = items;
+        }
+    }
+
+    private final int mFetchThreads;
+    private final int mBatchSize;
+    private final int mQueueCapacity;
+    private final List<Task<?>> mTasks = new ArrayList<Task<?>>();
+
+    public SyncEngine() {
+        this(DEFAULT_FETCH_THREADS, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param fetchThreads The maximum number of sources read at the same time.
+     * @param batchSize The number of items of each batch (except the last one of each task).
+     * @param queueCapacity The maximum number of batches waiting to be written.
+     */
+    public SyncEngine(int fetchThreads, int batchSize, int queueCapacity) {
+        if (fetchThreads < 1 || batchSize < 1 || queueCapacity < 1) throw new IllegalArgumentException("All the sizes must be positive");
+        mFetchThreads = fetchThreads;
+        mBatchSize = batchSize;
+        mQueueCapacity = queueCapacity;
+    }
+
+    /**
+     * Adds a task to the sync.
+     *
+     * @param name The name of the task, which must be unique (for instance the name of the table).
+     */
+    public <T> SyncEngine add(String name, Source<T> source, Sink<T> sink) {
+        mTasks.add(new Task<T>(name, source, sink));
+        return this;
+    }
+
+    /**
+     * Runs all the tasks, and returns when they are all done.
+     *
+     * @return The number of items written by each task, by name.
+     * @throws SyncException If some of the tasks failed.
+     * @throws InterruptedException If the thread was interrupted, in which case the sources still being read are
+     *             interrupted too.
+     */
+    public Map<String, Integer> run() throws InterruptedException, SyncException {
+        Map<String, Integer> res = new LinkedHashMap<String, Integer>();
+        if (mTasks.isEmpty()) return res;
+        BlockingQueue<Batch<?>> queue = new ArrayBlockingQueue<Batch<?>>(mQueueCapacity);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(mFetchThreads, mTasks.size()));
+        try {
+            for (Task<?> task : mTasks) {
+                task.count = 0;
+                task.error = null;
+                task.onWritten = null;
+                executor.execute(newReader(task, queue));
+            }
+            int remaining = mTasks.size();
+            while (remaining > 0) {
+                Batch<?> batch = queue.take();
+                if (batch.items == null) {
+                    finish(batch.task);
+                    remaining--;
+                } else {
+                    write(batch);
+                }
+            }
+        } finally {
+            // Only interrupts the sources when this thread was interrupted, the other ones are done
+            executor.shutdownNow();
+        }
+
+        Map<String, Throwable> errors = new LinkedHashMap<String, Throwable>();
+        for (Task<?> task : mTasks) {
+            res.put(task.name, task.count);
+            if (task.error != null) errors.put(task.name, task.error);
+        }
+        if (!errors.isEmpty()) throw new SyncException(errors);
+        return res;
+    }
+
+    private static <T> void write(Batch<T> batch) {
+        Task<T> task = batch.task;
+        // Once a batch failed, the following ones are dropped (the source stops at its next item)
+        if (task.error != null) return;
+        try {
+            task.sink.write(batch.items);
+            task.count += batch.items.size();
+        } catch (InterruptedException e) {
+            task.error = e;
+            // So that the sync stops instead of waiting for the next batch
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            task.error = e;
+        }
+    }
+
+    private static void finish(Task<?> task) {
+        // The end of the task is queued after its reader is done, so its action is visible here
+        if (task.error != null || task.onWritten == null) return;
+        try {
+            task.onWritten.run();
+        } catch (RuntimeException e) {
+            task.error = e;
+        }
+    }
+
+    private <T> Reader<T> newReader(Task<T> task, BlockingQueue<Batch<?>> queue) {
+        return new Reader<T>(task, queue);
+    }
+
+    /**
+     * Reads the source of a task on a fetch thread, and queues its batches.
+     */
+    private class Reader<T> implements Runnable, Consumer<T> {
+        private final Task<T> mTask;
+        private final BlockingQueue<Batch<?>> mQueue;
+        private List<T> mItems = new ArrayList<T>(mBatchSize);
+
+        Reader(Task<T> task, BlockingQueue<Batch<?>> queue) {
+            mTask = task;
+            mQueue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mTask.source.read(this);
+                flush();
+            } catch (InterruptedException e) {
+                // The sync was interrupted
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Keep the error of the batch that failed to be written, if any
+                if (mTask.error == null) mTask.error = e;
+            } finally {
+                mItems = null;
+                try {
+                    mQueue.put(new Batch<T>(mTask, null));
+                } catch (InterruptedException e) {
+                    // The sync was interrupted, nothing waits for the end of the task anymore
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void accept(T item) throws InterruptedException {
+            if (mTask.error != null) throw new CancellationException("The task " + mTask.name + " failed");
+            mItems.add(item);
+            if (mItems.size() == mBatchSize) flush();
+        }
+
+        @Override
+        public void onWritten(Runnable action) {
+            mTask.onWritten = action;
+        }
+
+        private void flush() throws InterruptedException {
+            if (mItems.isEmpty()) return;
+            mQueue.put(new Batch<T>(mTask, mItems));
+            mItems = new ArrayList<T>(mBatchSize);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+<#if header??>
+${header}
+</#if>
+package ${config.projectPackageId}.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import retrofit.RetrofitError;
+import retrofit.client.Header;
+import retrofit.client.Response;
+
+<#list model.entities as entity>
+<#if config.generateModels>
+<#if entity.url?has_content>
+import ${config.projectPackageId}.model.${entity.nameCamelCase}Model;
+</#if>
+</#if>
+</#list>
+
+/**
+ * The {@link SyncEngine} sources of the entities having a url, which read their items from the {@link RestService}.<br/>
+ * The responses are parsed as a stream: each item is passed to the engine as soon as it is read, so that the memory
+ * used by a sync depends on the size of the batches, not on the size of the responses.<br/>
+ * The requests are conditional (see {@link ConditionalSource}), so that the items which did not change since the last
+ * sync are neither downloaded nor written again. The entities having a delta sync only request the items which changed
+ * since the last sync.<br/>
+ * This class does not depend on Android, so that the sources can be tested on the JVM (for instance against a local
+ * mock server).
+ */
+public class SyncSources {
+    // Same configuration as the default converter of Retrofit
+    private static final Gson GSON = new Gson();
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private SyncSources() {}
+
+    /**
+     * A source reading the JSON array of an endpoint with a conditional request, which is not made at all if the last
+     * sync of the endpoint is more recent than the minimum refresh interval.<br/>
+     * When the server answers {@code 304 Not Modified}, the source gives no items, so that nothing is parsed nor
+     * written. The state of the endpoint is only saved once all its items have been written, so that a failed sync is
+     * fully made again by the next one.<br/>
+     * For the entities having a delta sync, the state also keeps the largest value of their delta sync field, which is
+     * given to the next request so that the server only returns the items which changed since then.
+     */
+    public abstract static class ConditionalSource<T> implements SyncEngine.Source<T> {
+        private final Class<T> mType;
+        private final SyncStateStore mStates;
+        private final long mMinRefreshInterval;
+        private final String mEndpoint;
+
+        /**
+         * @param states Where the state of the syncs is kept, or {@code null} to always make unconditional requests.
+         * @param minRefreshInterval The minimum time between two syncs of the endpoint, in milliseconds.
+         * @param endpoint The url path and query parameters of the request (see {@link SyncSources#endpoint}).
+         */
+        public ConditionalSource(Class<T> type, SyncStateStore states, long minRefreshInterval, String endpoint) {
+            mType = type;
+            mStates = states;
+            mMinRefreshInterval = minRefreshInterval;
+            mEndpoint = endpoint;
+        }
+
+        /**
+         * Makes the request, with the given conditional headers ({@code null} when there is no previous response).
+         *
+         * @param since The largest value of the delta sync field received so far, or {@code null} to get all the items.
+         */
+        protected abstract Response execute(String since, String ifNoneMatch, String ifModifiedSince);
+
+        /**
+         * Returns the value of the delta sync field of the given item, or {@code null} if the entity has no delta sync.
+         */
+        protected Comparable<?> getDeltaValue(T item) {
+            return null;
+        }
+
+        @Override
+        public void read(SyncEngine.Consumer<T> consumer) throws IOException, InterruptedException {
+            long now = System.currentTimeMillis();
+            SyncStateStore.State state = mStates == null ? null : mStates.get(mEndpoint);
+            // A sync "in the future" means the clock was changed: don't trust it
+            if (state != null && now >= state.lastSync && now - state.lastSync < mMinRefreshInterval) return;
+
+            Response response;
+            try {
+                response = state == null ? execute(null, null, null) : execute(state.delta, state.etag, state.lastModified);
+            } catch (RetrofitError e) {
+                // Retrofit reports all the responses other than 2xx as errors
+                if (e.getResponse() == null || e.getResponse().getStatus() != HTTP_NOT_MODIFIED) throw e;
+                response = e.getResponse();
+            }
+            final SyncStateStore.State newState;
+            if (response.getStatus() == HTTP_NOT_MODIFIED && state != null) {
+                // Only the time of the sync changes
+                newState = new SyncStateStore.State(state.etag, state.lastModified, state.delta, now);
+            } else {
+                DeltaConsumer deltaConsumer = new DeltaConsumer(consumer);
+                readArray(response, mType, deltaConsumer);
+                // No changes since the previous delta
+                String delta = deltaConsumer.mMax != null ? String.valueOf(deltaConsumer.mMax) : state == null ? null : state.delta;
+                newState = new SyncStateStore.State(getHeader(response, "ETag"), getHeader(response, "Last-Modified"), delta, now);
+            }
+            if (mStates == null) return;
+            consumer.onWritten(new Runnable() {
+                @Override
+                public void run() {
+                    mStates.put(mEndpoint, newState);
+                }
+            });
+        }
+
+        /**
+         * Passes the items to the consumer of the engine, keeping the largest value of their delta sync field.
+         */
+        private class DeltaConsumer implements SyncEngine.Consumer<T> {
+            private final SyncEngine.Consumer<T> mConsumer;
+            private Comparable<Object> mMax;
+
+            DeltaConsumer(SyncEngine.Consumer<T> consumer) {
+                mConsumer = consumer;
+            }
+
+            @Override
+            public void accept(T item) throws InterruptedException {
+                // The values all have the type of the field
+                @SuppressWarnings("unchecked")
+                Comparable<Object> value = (Comparable<Object>) getDeltaValue(item);
+                if (value != null && (mMax == null || value.compareTo(mMax) > 0)) mMax = value;
+                mConsumer.accept(item);
+            }
+
+            @Override
+            public void onWritten(Runnable action) {
+                mConsumer.onWritten(action);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the state of a request: the given url with its path parameters replaced, followed by the
+     * non-{@code null} query parameters.
+     *
+     * @param namesAndValues The name and value of each parameter of the url.
+     */
+    public static String endpoint(String url, String... namesAndValues) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            String name = namesAndValues[i];
+            String value = namesAndValues[i + 1];
+            String placeholder = "{" + name + "}";
+            if (url.contains(placeholder)) {
+                url = url.replace(placeholder, String.valueOf(value));
+            } else if (value != null) {
+                query.append(query.length() == 0 ? '?' : '&').append(name).append('=').append(value);
+            }
+        }
+        return url + query;
+    }
+
+    /**
+     * Returns the value of the given header of the response (case insensitive), or {@code null} if it has none.
+     */
+    public static String getHeader(Response response, String name) {
+        for (Header header : response.getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) return header.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the given response, whose body must be a JSON array, passing its items one by one to the given consumer.
+     */
+    public static <T> void readArray(Response response, Class<T> type, SyncEngine.Consumer<T> consumer) throws IOException,
+            InterruptedException {
+        TypeAdapter<T> adapter = GSON.getAdapter(type);
+        InputStream in = response.getBody().in();
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+            reader.beginArray();
+            while (reader.hasNext()) {
+                consumer.accept(adapter.read(reader));
+            }
+            reader.endArray();
+        } finally {
+            in.close();
+        }
+    }
+    <#list model.entities as entity>
+    <#if config.generateModels>
+    <#if entity.url?has_content>
+    <#assign params = entity.urlPathParams + entity.queryParams>
+
+    public static SyncEngine.Source<${entity.nameCamelCase}Model> ${entity.nameCamelCaseLowerCase}(final RestService service, SyncStateStore states,
+            long minRefreshInterval<#list params as param>, final String ${param}</#list>) {
+        String endpoint = endpoint("${entity.url?j_string}"<#list params as param>, "${param}", ${param}</#list>);
+        return new ConditionalSource<${entity.nameCamelCase}Model>(${entity.nameCamelCase}Model.class, states, minRefreshInterval, endpoint) {
+            @Override
+            protected Response execute(String since, String ifNoneMatch, String ifModifiedSince) {
+                return service.stream${entity.nameCamelCase}(<#list params as param>${param}, </#list><#if entity.hasDeltaSync>since, </#if>ifNoneMatch, ifModifiedSince);
+            }
+            <#if entity.hasDeltaSync>
+
+            @Override
+            protected Comparable<?> getDeltaValue(${entity.nameCamelCase}Model item) {
+                return item.${entity.deltaSyncField.nameCamelCaseLowerCase};
+            }
+            </#if>
+        };
+    }
+    </#if>
+    </#if>
+    </#list>
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+<#if header??>
+${header}
+</#if>
+package ${config.projectPackageId}.api;
+
+/**
+ * Keeps the state of the last successful sync of each endpoint (url path and query parameters), so that the next sync
+ * can be a conditional request, or can be skipped altogether when the previous one is recent enough.<br/>
+ * The implementations must be thread safe: the states are read by the fetch threads of the {@link SyncEngine}, and
+ * written by the thread running the sync.
+ */
+public interface SyncStateStore {
+    class State {
+        /**
+         * The {@code ETag} header of the last response, or {@code null}.
+         */
+        public final String etag;
+        /**
+         * The {@code Last-Modified} header of the last response, or {@code null}.
+         */
+        public final String lastModified;
+        /**
+         * The largest value of the delta sync field received so far, or {@code null} (always {@code null} for the
+         * entities without delta sync).
+         */
+        public final String delta;
+        /**
+         * The time of the last sync, in milliseconds since the epoch.
+         */
+        public final long lastSync;
+
+        public State(String etag, String lastModified, String delta, long lastSync) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.delta = delta;
+            this.lastSync = lastSync;
+        }
+    }
+
+    /**
+     * Returns the state of the last sync of the given endpoint, or {@code null} if it was never synced.
+     */
+    State get(String endpoint);
+
+    void put(String endpoint, State state);
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.content;
+
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public abstract class ContentResolver {
+    public final Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        return null;
+    }
+
+    public final Uri insert(Uri uri, ContentValues values) {
+        return null;
+    }
+
+    public final int bulkInsert(Uri uri, ContentValues[] values) {
+        return 0;
+    }
+
+    public final int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    public final int delete(Uri uri, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    public final Bundle call(Uri uri, String method, String arg, Bundle extras) {
+        return null;
+    }
+
+    public void notifyChange(Uri uri, ContentObserver observer) {}
+
+    public final ContentProviderClient acquireContentProviderClient(Uri uri) {
+        return null;
+    }
+
+    public final void registerContentObserver(Uri uri, boolean notifyForDescendents, ContentObserver observer) {}
+
+    public final void unregisterContentObserver(ContentObserver observer) {}
+}
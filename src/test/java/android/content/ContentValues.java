@@ -0,0 +1,129 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.content;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stub of the Android class, keeping the values in a map.
+ */
+public final class ContentValues {
+    private final Map<String, Object> mValues;
+
+    public ContentValues() {
+        mValues = new LinkedHashMap<String, Object>();
+    }
+
+    public ContentValues(int size) {
+        mValues = new LinkedHashMap<String, Object>(size);
+    }
+
+    public void put(String key, String value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Byte value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Short value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Integer value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Long value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Float value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Double value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, Boolean value) {
+        mValues.put(key, value);
+    }
+
+    public void put(String key, byte[] value) {
+        mValues.put(key, value);
+    }
+
+    public void putNull(String key) {
+        mValues.put(key, null);
+    }
+
+    public Object get(String key) {
+        return mValues.get(key);
+    }
+
+    public String getAsString(String key) {
+        Object value = mValues.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    public Long getAsLong(String key) {
+        Object value = mValues.get(key);
+        if (value == null) return null;
+        if (value instanceof Number) return ((Number) value).longValue();
+        return Long.valueOf(value.toString());
+    }
+
+    public boolean containsKey(String key) {
+        return mValues.containsKey(key);
+    }
+
+    public void remove(String key) {
+        mValues.remove(key);
+    }
+
+    public void clear() {
+        mValues.clear();
+    }
+
+    public int size() {
+        return mValues.size();
+    }
+
+    public Set<String> keySet() {
+        return mValues.keySet();
+    }
+
+    public Set<Map.Entry<String, Object>> valueSet() {
+        return mValues.entrySet();
+    }
+
+    @Override
+    public String toString() {
+        return mValues.toString();
+    }
+}
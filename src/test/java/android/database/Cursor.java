@@ -0,0 +1,79 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database;
+
+import java.io.Closeable;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public interface Cursor extends Closeable {
+    int getCount();
+
+    int getPosition();
+
+    boolean moveToFirst();
+
+    boolean moveToNext();
+
+    boolean moveToLast();
+
+    boolean moveToPosition(int position);
+
+    int getColumnIndex(String columnName);
+
+    int getColumnIndexOrThrow(String columnName);
+
+    String getColumnName(int columnIndex);
+
+    String[] getColumnNames();
+
+    int getColumnCount();
+
+    String getString(int columnIndex);
+
+    short getShort(int columnIndex);
+
+    int getInt(int columnIndex);
+
+    long getLong(int columnIndex);
+
+    float getFloat(int columnIndex);
+
+    double getDouble(int columnIndex);
+
+    byte[] getBlob(int columnIndex);
+
+    boolean isNull(int columnIndex);
+
+    void close();
+
+    boolean isClosed();
+
+    void setNotificationUri(ContentResolver resolver, Uri uri);
+}
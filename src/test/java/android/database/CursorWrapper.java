@@ -0,0 +1,145 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public class CursorWrapper implements Cursor {
+    public CursorWrapper(Cursor cursor) {}
+
+    public Cursor getWrappedCursor() {
+        return null;
+    }
+
+    @Override
+    public int getCount() {
+        return 0;
+    }
+
+    @Override
+    public int getPosition() {
+        return 0;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return false;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return false;
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return false;
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        return false;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        return 0;
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) {
+        return 0;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return null;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return 0;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return false;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public void setNotificationUri(ContentResolver resolver, Uri uri) {}
+}
@@ -0,0 +1,91 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Stub of the Android class.
+ */
+public class DatabaseUtils {
+    public static void bindObjectToProgram(SQLiteProgram program, int index, Object value) {
+        if (value == null) {
+            program.bindNull(index);
+        } else if (value instanceof Double || value instanceof Float) {
+            program.bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            program.bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            program.bindLong(index, (Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            program.bindBlob(index, (byte[]) value);
+        } else {
+            program.bindString(index, value.toString());
+        }
+    }
+
+    public static long longForQuery(SQLiteDatabase db, String query, String[] selectionArgs) {
+        SQLiteStatement statement = db.compileStatement(query);
+        try {
+            bindArgs(statement, selectionArgs);
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public static String stringForQuery(SQLiteDatabase db, String query, String[] selectionArgs) {
+        SQLiteStatement statement = db.compileStatement(query);
+        try {
+            bindArgs(statement, selectionArgs);
+            return statement.simpleQueryForString();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void bindArgs(SQLiteStatement statement, String[] selectionArgs) {
+        if (selectionArgs == null) return;
+        for (int i = 0; i < selectionArgs.length; i++) {
+            statement.bindString(i + 1, selectionArgs[i]);
+        }
+    }
+
+    public static long queryNumEntries(SQLiteDatabase db, String table) {
+        return longForQuery(db, "SELECT COUNT(*) FROM " + table, null);
+    }
+
+    public static String sqlEscapeString(String value) {
+        StringBuilder res = new StringBuilder();
+        appendEscapedSQLString(res, value);
+        return res.toString();
+    }
+
+    public static void appendEscapedSQLString(StringBuilder sb, String sqlString) {
+        sb.append('\'').append(sqlString.replace("'", "''")).append('\'');
+    }
+}
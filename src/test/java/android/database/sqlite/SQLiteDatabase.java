@@ -0,0 +1,278 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database.sqlite;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+/**
+ * Stub of the Android class, running the statements on a JDBC connection (queries returning cursors are not supported).
+ */
+public final class SQLiteDatabase {
+    public static final int CONFLICT_NONE = 0;
+    public static final int CONFLICT_ROLLBACK = 1;
+    public static final int CONFLICT_ABORT = 2;
+    public static final int CONFLICT_FAIL = 3;
+    public static final int CONFLICT_IGNORE = 4;
+    public static final int CONFLICT_REPLACE = 5;
+
+    private static final String[] CONFLICT_VALUES = { "", " OR ROLLBACK", " OR ABORT", " OR FAIL", " OR IGNORE", " OR REPLACE" };
+
+    public static final int MAX_SQL_CACHE_SIZE = 100;
+
+    public interface CursorFactory {}
+
+    private final Connection mConnection;
+    private int mTransactionDepth;
+    private boolean mTransactionSuccessful;
+    private boolean mTransactionFailed;
+
+    public SQLiteDatabase(Connection connection) {
+        mConnection = connection;
+    }
+
+    Connection getConnection() {
+        return mConnection;
+    }
+
+    public void execSQL(String sql) {
+        try {
+            Statement statement = mConnection.createStatement();
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.close();
+            }
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void execSQL(String sql, Object[] bindArgs) {
+        SQLiteStatement statement = compileStatement(sql);
+        try {
+            for (int i = 0; i < bindArgs.length; i++) {
+                android.database.DatabaseUtils.bindObjectToProgram(statement, i + 1, bindArgs[i]);
+            }
+            statement.execute();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public SQLiteStatement compileStatement(String sql) {
+        try {
+            return new SQLiteStatement(this, mConnection.prepareStatement(sql));
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public long insert(String table, String nullColumnHack, ContentValues values) {
+        try {
+            return insertWithOnConflict(table, nullColumnHack, values, CONFLICT_NONE);
+        } catch (SQLiteException e) {
+            return -1;
+        }
+    }
+
+    public long replace(String table, String nullColumnHack, ContentValues values) {
+        try {
+            return insertWithOnConflict(table, nullColumnHack, values, CONFLICT_REPLACE);
+        } catch (SQLiteException e) {
+            return -1;
+        }
+    }
+
+    public long insertWithOnConflict(String table, String nullColumnHack, ContentValues values, int conflictAlgorithm) {
+        StringBuilder sql = new StringBuilder("INSERT").append(CONFLICT_VALUES[conflictAlgorithm]).append(" INTO ").append(table);
+        List<Object> args = new ArrayList<Object>();
+        if (values == null || values.size() == 0) {
+            sql.append(" (").append(nullColumnHack).append(") VALUES (NULL)");
+        } else {
+            StringBuilder columns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            for (Map.Entry<String, Object> entry : values.valueSet()) {
+                if (columns.length() > 0) {
+                    columns.append(',');
+                    placeholders.append(',');
+                }
+                columns.append(entry.getKey());
+                placeholders.append('?');
+                args.add(entry.getValue());
+            }
+            sql.append(" (").append(columns).append(") VALUES (").append(placeholders).append(')');
+        }
+        SQLiteStatement statement = compileStatement(sql.toString());
+        try {
+            bind(statement, args, null);
+            return statement.executeInsert();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public int update(String table, ContentValues values, String whereClause, String[] whereArgs) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        List<Object> args = new ArrayList<Object>();
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            if (!args.isEmpty()) sql.append(',');
+            sql.append(entry.getKey()).append("=?");
+            args.add(entry.getValue());
+        }
+        if (whereClause != null && whereClause.length() > 0) sql.append(" WHERE ").append(whereClause);
+        SQLiteStatement statement = compileStatement(sql.toString());
+        try {
+            bind(statement, args, whereArgs);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public int delete(String table, String whereClause, String[] whereArgs) {
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(table);
+        if (whereClause != null && whereClause.length() > 0) sql.append(" WHERE ").append(whereClause);
+        SQLiteStatement statement = compileStatement(sql.toString());
+        try {
+            bind(statement, new ArrayList<Object>(), whereArgs);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void bind(SQLiteStatement statement, List<Object> args, String[] whereArgs) {
+        int index = 1;
+        for (Object arg : args) {
+            android.database.DatabaseUtils.bindObjectToProgram(statement, index++, arg);
+        }
+        if (whereArgs != null) {
+            for (String arg : whereArgs) {
+                statement.bindString(index++, arg);
+            }
+        }
+    }
+
+    public Cursor query(String table, String[] columns, String selection, String[] selectionArgs, String groupBy, String having,
+            String orderBy) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Cursor query(String table, String[] columns, String selection, String[] selectionArgs, String groupBy, String having,
+            String orderBy, String limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Cursor rawQuery(String sql, String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void beginTransaction() {
+        try {
+            if (mTransactionDepth == 0) {
+                mConnection.setAutoCommit(false);
+                mTransactionFailed = false;
+            }
+            mTransactionDepth++;
+            mTransactionSuccessful = false;
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void beginTransactionNonExclusive() {
+        beginTransaction();
+    }
+
+    public void setTransactionSuccessful() {
+        mTransactionSuccessful = true;
+    }
+
+    public void endTransaction() {
+        if (mTransactionDepth == 0) throw new IllegalStateException("no transaction pending");
+        if (!mTransactionSuccessful) mTransactionFailed = true;
+        mTransactionSuccessful = false;
+        if (--mTransactionDepth > 0) return;
+        try {
+            if (mTransactionFailed) {
+                mConnection.rollback();
+            } else {
+                mConnection.commit();
+            }
+            mConnection.setAutoCommit(true);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public boolean inTransaction() {
+        return mTransactionDepth > 0;
+    }
+
+    public boolean yieldIfContendedSafely() {
+        return false;
+    }
+
+    public void setMaxSqlCacheSize(int cacheSize) {}
+
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    public boolean enableWriteAheadLogging() {
+        return false;
+    }
+
+    public void setForeignKeyConstraintsEnabled(boolean enable) {
+        execSQL("PRAGMA foreign_keys=" + (enable ? "ON" : "OFF"));
+    }
+
+    public int getVersion() {
+        return (int) android.database.DatabaseUtils.longForQuery(this, "PRAGMA user_version", null);
+    }
+
+    public void setVersion(int version) {
+        execSQL("PRAGMA user_version=" + version);
+    }
+
+    public String getPath() {
+        return null;
+    }
+
+    public void close() {
+        try {
+            mConnection.close();
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+
+/**
+ * Stub of the Android class, binding the arguments of a JDBC statement.
+ */
+public abstract class SQLiteProgram {
+    final SQLiteDatabase mDatabase;
+    final PreparedStatement mStatement;
+
+    SQLiteProgram(SQLiteDatabase db, PreparedStatement statement) {
+        mDatabase = db;
+        mStatement = statement;
+    }
+
+    public void bindNull(int index) {
+        try {
+            mStatement.setNull(index, Types.NULL);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void bindLong(int index, long value) {
+        try {
+            mStatement.setLong(index, value);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void bindDouble(int index, double value) {
+        try {
+            mStatement.setDouble(index, value);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void bindString(int index, String value) {
+        if (value == null) throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        try {
+            mStatement.setString(index, value);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void bindBlob(int index, byte[] value) {
+        if (value == null) throw new IllegalArgumentException("the bind value at index " + index + " is null");
+        try {
+            mStatement.setBytes(index, value);
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void clearBindings() {
+        try {
+            mStatement.clearParameters();
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public void close() {
+        try {
+            mStatement.close();
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.database.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Stub of the Android class, executing a JDBC statement.
+ */
+public final class SQLiteStatement extends SQLiteProgram {
+    SQLiteStatement(SQLiteDatabase db, PreparedStatement statement) {
+        super(db, statement);
+    }
+
+    public void execute() {
+        try {
+            mStatement.execute();
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public int executeUpdateDelete() {
+        try {
+            return mStatement.executeUpdate();
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The id of the inserted row, or -1 if no row was inserted.
+     */
+    public long executeInsert() {
+        try {
+            if (mStatement.executeUpdate() == 0) return -1;
+            Statement statement = mDatabase.getConnection().createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("SELECT last_insert_rowid()");
+                return resultSet.getLong(1);
+            } finally {
+                statement.close();
+            }
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public long simpleQueryForLong() {
+        try {
+            ResultSet resultSet = mStatement.executeQuery();
+            try {
+                if (!resultSet.next()) throw new SQLiteDoneException();
+                return resultSet.getLong(1);
+            } finally {
+                resultSet.close();
+            }
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+
+    public String simpleQueryForString() {
+        try {
+            ResultSet resultSet = mStatement.executeQuery();
+            try {
+                if (!resultSet.next()) throw new SQLiteDoneException();
+                return resultSet.getString(1);
+            } finally {
+                resultSet.close();
+            }
+        } catch (java.sql.SQLException e) {
+            throw new SQLiteException(e.getMessage(), e);
+        }
+    }
+}
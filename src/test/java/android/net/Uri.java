@@ -0,0 +1,72 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.net;
+
+import java.util.List;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public abstract class Uri {
+    public static Uri parse(String uriString) {
+        return null;
+    }
+
+    public static Uri withAppendedPath(Uri baseUri, String pathSegment) {
+        return null;
+    }
+
+    public abstract Builder buildUpon();
+
+    public abstract String getPath();
+
+    public abstract List<String> getPathSegments();
+
+    public abstract String getLastPathSegment();
+
+    public abstract String getQueryParameter(String key);
+
+    public static final class Builder {
+        public Builder appendPath(String newSegment) {
+            return this;
+        }
+
+        public Builder appendEncodedPath(String newSegment) {
+            return this;
+        }
+
+        public Builder appendQueryParameter(String key, String value) {
+            return this;
+        }
+
+        public Builder clearQuery() {
+            return this;
+        }
+
+        public Uri build() {
+            return null;
+        }
+    }
+}
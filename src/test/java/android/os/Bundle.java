@@ -0,0 +1,64 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.os;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public final class Bundle {
+    public boolean containsKey(String key) {
+        return false;
+    }
+
+    public String getString(String key) {
+        return null;
+    }
+
+    public void putString(String key, String value) {}
+
+    public boolean getBoolean(String key) {
+        return false;
+    }
+
+    public int getInt(String key) {
+        return 0;
+    }
+
+    public int[] getIntArray(String key) {
+        return null;
+    }
+
+    public long getLong(String key) {
+        return 0;
+    }
+
+    public void putLong(String key, long value) {}
+
+    public IBinder getBinder(String key) {
+        return null;
+    }
+
+    public void putBinder(String key, IBinder value) {}
+}
@@ -0,0 +1,53 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.text;
+
+import java.util.Arrays;
+
+/**
+ * Stub of the Android class.
+ */
+public class TextUtils {
+    public static String join(CharSequence delimiter, Object[] tokens) {
+        return join(delimiter, Arrays.asList(tokens));
+    }
+
+    public static String join(CharSequence delimiter, Iterable<?> tokens) {
+        StringBuilder res = new StringBuilder();
+        for (Object token : tokens) {
+            if (res.length() > 0) res.append(delimiter);
+            res.append(token);
+        }
+        return res.toString();
+    }
+
+    public static boolean equals(CharSequence a, CharSequence b) {
+        return a == null ? b == null : b != null && a.toString().equals(b.toString());
+    }
+
+    public static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+}
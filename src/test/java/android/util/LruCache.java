@@ -0,0 +1,78 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package android.util;
+
+import java.util.Map;
+
+/**
+ * Compile-only stub of the Android class, so that the tests can compile the generated code.
+ */
+public class LruCache<K, V> {
+    public LruCache(int maxSize) {}
+
+    public final V get(K key) {
+        return null;
+    }
+
+    public final V put(K key, V value) {
+        return null;
+    }
+
+    public final V remove(K key) {
+        return null;
+    }
+
+    public final void evictAll() {}
+
+    public final int size() {
+        return 0;
+    }
+
+    public final Map<K, V> snapshot() {
+        return null;
+    }
+
+    public final int hitCount() {
+        return 0;
+    }
+
+    public final int missCount() {
+        return 0;
+    }
+
+    public final int evictionCount() {
+        return 0;
+    }
+
+    public final int putCount() {
+        return 0;
+    }
+
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue) {}
+}
@@ -0,0 +1,93 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Generates the sample with and without the models, and compiles the generated provider and models along with the
+ * classes of the api which do not depend on Android: the rest service, the sync sources and the sync engine.
+ */
+public class ApiSourcesTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void withModels() throws Exception {
+        File projectDir = generate(true);
+        assertTrue(new File(projectDir, "model").exists());
+        compileApi(projectDir);
+    }
+
+    @Test
+    public void withoutModels() throws Exception {
+        File projectDir = generate(false);
+        assertFalse(new File(projectDir, "model").exists());
+        compileApi(projectDir);
+    }
+
+    /**
+     * Generates a copy of the sample, and returns the folder of its project package.
+     */
+    private File generate(boolean generateModels) throws Exception {
+        File inputDir = mTemporaryFolder.newFolder("input");
+        FileUtils.copyDirectory(new File("etc/sample"), inputDir);
+        File configFile = new File(inputDir, "_config.json");
+        String config = FileUtils.readFileToString(configFile, "UTF-8");
+        FileUtils.writeStringToFile(configFile, config.replace("\"generateModels\":true", "\"generateModels\":" + generateModels), "UTF-8");
+        File outputDir = mTemporaryFolder.newFolder("output");
+        Main main = new Main();
+        main.go(new String[] { "-i", inputDir.getPath(), "-o", outputDir.getPath() });
+        return new File(outputDir, main.getConfig(inputDir).getString(Main.Json.PROJECT_PACKAGE_ID).replace('.', '/'));
+    }
+
+    private void compileApi(File projectDir) throws IOException {
+        List<File> sources = new ArrayList<File>();
+        // Normally generated by the Android build
+        File buildConfigFile = new File(projectDir, "BuildConfig.java");
+        FileUtils.writeStringToFile(buildConfigFile, "package com.test;\n\npublic final class BuildConfig {\n    public static final boolean DEBUG = false;\n}\n",
+                "UTF-8");
+        sources.add(buildConfigFile);
+        sources.addAll(TestCompiler.listSources(new File(projectDir, "provider")));
+        File apiDir = new File(projectDir, "api");
+        for (String name : new String[] { "RestService", "SyncSources", "SyncEngine", "SyncStateStore" }) {
+            sources.add(new File(apiDir, name + ".java"));
+        }
+        File modelDir = new File(projectDir, "model");
+        if (modelDir.exists()) sources.addAll(TestCompiler.listSources(modelDir));
+        TestCompiler.compile(mTemporaryFolder.newFolder("classes"), sources);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.Emitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.JavaEmitter;
+import com.willowtreeapps.androidcontentprovidergenerator.emitter.TemplateEmitter;
+import com.willowtreeapps.androidcontentprovidergenerator.model.Entity;
+
+/**
+ * Checks that the Java emitters produce exactly the same files as their template.
+ */
+public class JavaEmitterTest {
+    private static final List<String> TEMPLATES = Arrays.asList("cursor.ftl", "contentvalues.ftl", "selection.ftl");
+
+    // All the types, nullable or not, with and without default values
+    private static final String ALL_TYPES_JSON = "{\n"
+            + "    \"fields\": [\n"
+            + "        { \"name\": \"a_string\", \"type\": \"String\", \"fullText\": true },\n"
+            + "        { \"name\": \"a_not_null_string\", \"type\": \"String\", \"nullable\": false, \"default_value\": \"'x'\" },\n"
+            + "        { \"name\": \"an_integer\", \"type\": \"Integer\", \"index\": true },\n"
+            + "        { \"name\": \"a_not_null_integer\", \"type\": \"Integer\", \"nullable\": false, \"default_value\": \"1\" },\n"
+            + "        { \"name\": \"a_long\", \"type\": \"Long\" },\n"
+            + "        { \"name\": \"a_not_null_long\", \"type\": \"Long\", \"nullable\": false },\n"
+            + "        { \"name\": \"a_float\", \"type\": \"Float\" },\n"
+            + "        { \"name\": \"a_not_null_float\", \"type\": \"Float\", \"nullable\": false },\n"
+            + "        { \"name\": \"a_double\", \"type\": \"Double\" },\n"
+            + "        { \"name\": \"a_not_null_double\", \"type\": \"Double\", \"nullable\": false },\n"
+            + "        { \"name\": \"a_boolean\", \"type\": \"Boolean\" },\n"
+            + "        { \"name\": \"a_not_null_boolean\", \"type\": \"Boolean\", \"nullable\": false, \"default_value\": \"0\" },\n"
+            + "        { \"name\": \"a_date\", \"type\": \"Date\" },\n"
+            + "        { \"name\": \"a_not_null_date\", \"type\": \"Date\", \"nullable\": false },\n"
+            + "        { \"name\": \"a_blob\", \"type\": \"byte[]\" },\n"
+            + "        { \"name\": \"a_not_null_blob\", \"type\": \"byte[]\", \"nullable\": false },\n"
+            + "        { \"name\": \"an_enum\", \"type\": \"enum\", \"enumName\": \"AnEnum\", \"enumValues\": [ \"ONE\", \"TWO\" ] },\n"
+            + "        { \"name\": \"a_not_null_enum\", \"type\": \"enum\", \"nullable\": false, \"enumName\": \"OtherEnum\",\n"
+            + "          \"enumValues\": [ \"THREE\" ] }\n"
+            + "    ],\n"
+            + "    \"naturalKey\": [ \"a_not_null_string\", \"a_not_null_long\" ],\n"
+            + "    \"indexes\": [ { \"name\": \"long_date\", \"columns\": [ \"a_long\", \"a_date desc\" ] } ]\n"
+            + "}";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final Main mMain = new Main();
+
+    @After
+    public void tearDown() {
+        mMain.shutdown();
+    }
+
+    @Test
+    public void sample() throws Exception {
+        assertSameOutput(new File("etc/sample"));
+    }
+
+    @Test
+    public void allTypes() throws Exception {
+        File inputDir = mTemporaryFolder.newFolder("all_types");
+        FileUtils.copyFile(new File("etc/sample/_config.json"), new File(inputDir, "_config.json"));
+        FileUtils.writeStringToFile(new File(inputDir, "header.txt"), "// Header");
+        FileUtils.writeStringToFile(new File(inputDir, "all_types.json"), ALL_TYPES_JSON);
+        FileUtils.writeStringToFile(new File(inputDir, "no_field.json"), "{ \"fields\": [] }");
+        assertSameOutput(inputDir);
+    }
+
+    private void assertSameOutput(File inputDir) throws Exception {
+        mMain.loadModel(inputDir);
+        assertFalse(mMain.getModel().getEntities().isEmpty());
+        for (Entity entity : mMain.getModel().getEntities()) {
+            Map<String, Object> root = mMain.newRoot(mMain.getConfig(inputDir), entity);
+            for (String templateName : TEMPLATES) {
+                Emitter javaEmitter = JavaEmitter.forTemplate(templateName);
+                assertNotNull(templateName, javaEmitter);
+                Emitter templateEmitter = new TemplateEmitter(mMain.getFreeMarkerConfig().getTemplate(templateName));
+                assertEquals(entity.getNameLowerCase() + " " + templateName, emit(templateEmitter, root), emit(javaEmitter, root));
+            }
+        }
+    }
+
+    private static String emit(Emitter emitter, Map<String, Object> root) throws Exception {
+        StringWriter res = new StringWriter();
+        emitter.emit(root, res);
+        return res.toString();
+    }
+}
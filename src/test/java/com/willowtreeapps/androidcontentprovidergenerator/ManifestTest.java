@@ -0,0 +1,127 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Generates a copy of the sample with a different header between the runs, and checks that an incremental run never
+ * keeps outputs which were overwritten by a full or failed run in between.
+ */
+public class ManifestTest {
+    private static final String HEADER_A = "// Header A";
+    private static final String HEADER_B = "// Header B";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mInputDir;
+    private File mOutputDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mInputDir = mTemporaryFolder.newFolder("input");
+        FileUtils.copyDirectory(new File("etc/sample"), mInputDir);
+        mOutputDir = mTemporaryFolder.newFolder("output");
+    }
+
+    @Test
+    public void fullRunThenRevertedIncrementalRun() throws Exception {
+        setHeader(HEADER_A);
+        go("--incremental");
+        assertTrue(getManifestFile().exists());
+
+        setHeader(HEADER_B);
+        go();
+        assertFalse(getManifestFile().exists());
+        assertHeader(HEADER_B);
+
+        setHeader(HEADER_A);
+        go("--incremental");
+        assertHeader(HEADER_A);
+    }
+
+    @Test
+    public void failedRunThenRevertedIncrementalRun() throws Exception {
+        setHeader(HEADER_A);
+        go("--incremental");
+
+        // A folder in place of one of the outputs makes the run fail, after the other outputs have been written
+        File columns = new File(mOutputDir, "com/test/provider/company/CompanyColumns.java");
+        assertTrue(columns.delete());
+        FileUtils.writeStringToFile(new File(columns, "file"), "", "UTF-8");
+        setHeader(HEADER_B);
+        try {
+            go("--incremental");
+            fail("An output can not be written");
+        } catch (IOException e) {
+            // Expected
+        }
+        assertFalse(getManifestFile().exists());
+        FileUtils.deleteDirectory(columns);
+
+        setHeader(HEADER_A);
+        go("--incremental");
+        assertHeader(HEADER_A);
+    }
+
+    private void go(String... options) throws Exception {
+        List<String> args = new ArrayList<String>(Arrays.asList("-i", mInputDir.getPath(), "-o", mOutputDir.getPath()));
+        args.addAll(Arrays.asList(options));
+        new Main().go(args.toArray(new String[args.size()]));
+    }
+
+    private void setHeader(String header) throws IOException {
+        FileUtils.writeStringToFile(new File(mInputDir, "header.txt"), header, "UTF-8");
+    }
+
+    private File getManifestFile() {
+        return new File(mOutputDir, Manifest.FILE_NAME);
+    }
+
+    /**
+     * Checks that all the generated sources of the provider start with the given header.
+     */
+    private void assertHeader(String header) throws IOException {
+        for (File source : TestCompiler.listSources(new File(mOutputDir, "com/test/provider"))) {
+            String contents = FileUtils.readFileToString(source, "UTF-8");
+            assertTrue(source.getPath(), contents.startsWith(header));
+        }
+    }
+}
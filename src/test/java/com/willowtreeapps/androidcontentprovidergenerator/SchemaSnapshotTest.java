@@ -0,0 +1,377 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Generates a copy of the sample whose schema differs from its {@code _schema.json}, with and without
+ * {@code --record-schema}, {@code --check-schema} or {@code --watch}, and runs the recorded migrations on an SQLite database through JDBC.
+ * Also checks that the generated sqlite helper creates the schema of the snapshot.
+ */
+public class SchemaSnapshotTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mInputDir;
+    private File mOutputDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mInputDir = mTemporaryFolder.newFolder("input");
+        FileUtils.copyDirectory(new File("etc/sample"), mInputDir);
+        mOutputDir = mTemporaryFolder.newFolder("output");
+    }
+
+    @Test
+    public void upToDate() throws Exception {
+        go("--check-schema");
+        assertEquals(2, getSchemaVersion());
+    }
+
+    @Test
+    public void changedSchemaNotRecorded() throws Exception {
+        addCompanyField("\"name\": \"phone\", \"type\": \"String\"");
+        try {
+            go();
+            fail("The schema changed");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("--record-schema"));
+        }
+        assertEquals(2, getSchemaVersion());
+
+        go("--record-schema");
+        assertEquals(3, getSchemaVersion());
+        go("--check-schema");
+    }
+
+    @Test
+    public void changedSchemaWatched() throws Exception {
+        addCompanyField("\"name\": \"phone\", \"type\": \"String\"");
+        Thread watch = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    go("--watch");
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        watch.start();
+        // The manifest is saved once the first generation completed
+        File manifestFile = new File(mOutputDir, Manifest.FILE_NAME);
+        for (int i = 0; i < 300 && !manifestFile.exists() && watch.isAlive(); i++) {
+            Thread.sleep(100);
+        }
+        watch.interrupt();
+        watch.join();
+        assertTrue(manifestFile.exists());
+
+        // Generated with the next version, which is not saved, and marked as such
+        assertEquals(2, getSchemaVersion());
+        String helper = FileUtils.readFileToString(new File(mOutputDir, "com/test/provider/ExampleSQLiteOpenHelper.java"), "UTF-8");
+        assertTrue(helper, helper.contains("UNRECORDED VERSION"));
+        assertTrue(helper, helper.contains("DATABASE_VERSION = 3;"));
+        assertTrue(helper, helper.contains("ALTER TABLE company ADD COLUMN phone TEXT"));
+
+        go("--record-schema");
+        helper = FileUtils.readFileToString(new File(mOutputDir, "com/test/provider/ExampleSQLiteOpenHelper.java"), "UTF-8");
+        assertFalse(helper, helper.contains("UNRECORDED VERSION"));
+    }
+
+    @Test
+    public void changedSchemaWatchedChecked() throws Exception {
+        addCompanyField("\"name\": \"phone\", \"type\": \"String\"");
+        try {
+            go("--watch", "--check-schema");
+            fail("The schema changed");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("--record-schema"));
+        }
+        assertEquals(2, getSchemaVersion());
+    }
+
+    @Test
+    public void noSnapshot() throws Exception {
+        File snapshotFile = new File(mInputDir, SchemaSnapshot.FILE_NAME);
+        assertTrue(snapshotFile.delete());
+        try {
+            go("--check-schema");
+            fail("No snapshot");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("--record-schema"));
+        }
+        assertFalse(snapshotFile.exists());
+
+        // The first version is recorded without --record-schema
+        go();
+        assertEquals(1, getSchemaVersion());
+    }
+
+    @Test
+    public void withoutApi() throws Exception {
+        // The sync_state table does not depend on the generation of the api
+        File configFile = new File(mInputDir, "_config.json");
+        String config = FileUtils.readFileToString(configFile, "UTF-8");
+        FileUtils.writeStringToFile(configFile, config.replace("\"generateApi\":true", "\"generateApi\":false"), "UTF-8");
+        go("--check-schema");
+        assertEquals(2, getSchemaVersion());
+        String helper = FileUtils.readFileToString(new File(mOutputDir, "com/test/provider/ExampleSQLiteOpenHelper.java"), "UTF-8");
+        assertTrue(helper, helper.contains("db.execSQL(SQL_CREATE_TABLE_SYNC_STATE);"));
+    }
+
+    @Test
+    public void uniqueIndexWithoutDeleteDuplicates() throws Exception {
+        File file = new File(mInputDir, "company.json");
+        FileUtils.writeStringToFile(file, FileUtils.readFileToString(file, "UTF-8").replace("\"deleteDuplicates\": true,", ""), "UTF-8");
+        addCompanyUniqueAddressIndex();
+        try {
+            go("--record-schema");
+            fail("The migration could delete rows");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(EntityLoader.Json.DELETE_DUPLICATES));
+        }
+        assertEquals(2, getSchemaVersion());
+    }
+
+    @Test
+    public void uniqueIndexWithDeleteDuplicates() throws Exception {
+        JSONObject previousSnapshot = getSnapshot();
+        addCompanyUniqueAddressIndex();
+        go("--record-schema");
+        JSONObject snapshot = getSnapshot();
+        assertEquals(3, snapshot.getInt(SchemaSnapshot.Json.VERSION));
+
+        Class.forName("org.sqlite.JDBC");
+        Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                for (String sql : getCreateStatements(previousSnapshot)) {
+                    statement.execute(sql);
+                }
+                statement.execute("INSERT INTO company (_id, name, address) VALUES (1, 'a', 'here'), (2, 'b', 'here'), (3, 'c', 'there'), (4, 'd', NULL), (5, 'e', NULL)");
+                statement.execute("INSERT INTO person (first_name, last_name, age, company_id, gender) VALUES ('A', 'A', 1, 1, 0), ('B', 'B', 1, 2, 0), "
+                        + "('C', 'C', 1, 3, 0), ('D', 'D', 1, 4, 0)");
+                for (String sql : getMigrationStatements(snapshot, 3)) {
+                    statement.execute(sql);
+                }
+                // The last inserted duplicate is kept, the rows having a NULL value are not duplicates
+                assertEquals("2,3,4,5", queryString(statement, "SELECT group_concat(_id) FROM ( SELECT _id FROM company ORDER BY _id )"));
+                // The persons of the deleted company now reference the kept one
+                assertEquals("2,2,3,4", queryString(statement, "SELECT group_concat(company_id) FROM ( SELECT company_id FROM person ORDER BY _id )"));
+            } finally {
+                statement.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * The sqlite helper creates the tables from the entities, and the migrations are computed from the snapshot: both
+     * must create the same schema.
+     */
+    @Test
+    public void onCreateMatchesSnapshot() throws Exception {
+        go("--check-schema");
+        File projectDir = new File(mOutputDir, "com/test");
+        // Normally generated by the Android build
+        File buildConfigFile = new File(projectDir, "BuildConfig.java");
+        FileUtils.writeStringToFile(buildConfigFile, "package com.test;\n\npublic final class BuildConfig {\n    public static final boolean DEBUG = false;\n}\n",
+                "UTF-8");
+        List<File> sources = new ArrayList<File>();
+        sources.add(buildConfigFile);
+        sources.addAll(TestCompiler.listSources(new File(projectDir, "provider")));
+        sources.addAll(TestCompiler.listSources(new File(projectDir, "model")));
+        ClassLoader classLoader = TestCompiler.compile(mTemporaryFolder.newFolder("classes"), sources);
+        Method newHelper = classLoader.loadClass("com.test.provider.ExampleSQLiteOpenHelper").getMethod("newInstance",
+                classLoader.loadClass("android.content.Context"));
+        SQLiteOpenHelper helper = (SQLiteOpenHelper) newHelper.invoke(null, (Object) null);
+
+        Class.forName("org.sqlite.JDBC");
+        Connection created = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Connection snapshot = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try {
+            helper.onCreate(new SQLiteDatabase(created));
+            Statement statement = snapshot.createStatement();
+            try {
+                for (String sql : getCreateStatements(getSnapshot())) {
+                    statement.execute(sql);
+                }
+            } finally {
+                statement.close();
+            }
+            assertEquals(getSchema(snapshot), getSchema(created));
+        } finally {
+            created.close();
+            snapshot.close();
+        }
+    }
+
+    private void go(String... options) throws Exception {
+        List<String> args = new ArrayList<String>(Arrays.asList("-i", mInputDir.getPath(), "-o", mOutputDir.getPath()));
+        args.addAll(Arrays.asList(options));
+        new Main().go(args.toArray(new String[args.size()]));
+    }
+
+    /**
+     * Adds a field, given as the contents of its JSON object, to the company entity.
+     */
+    private void addCompanyField(String fieldJson) throws IOException {
+        File file = new File(mInputDir, "company.json");
+        String json = FileUtils.readFileToString(file, "UTF-8");
+        FileUtils.writeStringToFile(file, json.replaceFirst("\"fields\": \\[", "\"fields\": [ { " + fieldJson + " },"), "UTF-8");
+    }
+
+    private void addCompanyUniqueAddressIndex() throws IOException {
+        File file = new File(mInputDir, "company.json");
+        String json = FileUtils.readFileToString(file, "UTF-8");
+        FileUtils.writeStringToFile(file, json.replaceFirst("\"naturalKey\"",
+                "\"indexes\": [ { \"name\": \"unique_address\", \"columns\": [ \"address\" ], \"unique\": true } ],\n\t\"naturalKey\""), "UTF-8");
+    }
+
+    private JSONObject getSnapshot() throws IOException {
+        return new JSONObject(FileUtils.readFileToString(new File(mInputDir, SchemaSnapshot.FILE_NAME), "UTF-8"));
+    }
+
+    private int getSchemaVersion() throws IOException {
+        return getSnapshot().getInt(SchemaSnapshot.Json.VERSION);
+    }
+
+    /**
+     * Returns the statements creating the tables of the given snapshot, with their indexes and full text tables.
+     */
+    private static List<String> getCreateStatements(JSONObject snapshot) {
+        List<String> res = new ArrayList<String>();
+        JSONArray tables = snapshot.getJSONArray(SchemaSnapshot.Json.TABLES);
+        for (int i = 0; i < tables.length(); i++) {
+            JSONObject table = tables.getJSONObject(i);
+            List<String> definitions = new ArrayList<String>();
+            JSONArray columns = table.getJSONArray(SchemaSnapshot.Json.COLUMNS);
+            for (int j = 0; j < columns.length(); j++) {
+                definitions.add(columns.getString(j));
+            }
+            JSONArray constraints = table.getJSONArray(SchemaSnapshot.Json.CONSTRAINTS);
+            for (int j = 0; j < constraints.length(); j++) {
+                definitions.add(constraints.getString(j));
+            }
+            StringBuilder sql = new StringBuilder("CREATE TABLE ").append(table.getString(SchemaSnapshot.Json.NAME)).append(" ( ");
+            for (int j = 0; j < definitions.size(); j++) {
+                if (j > 0) sql.append(", ");
+                sql.append(definitions.get(j));
+            }
+            res.add(sql.append(" )").toString());
+            JSONArray indexes = table.getJSONArray(SchemaSnapshot.Json.INDEXES);
+            for (int j = 0; j < indexes.length(); j++) {
+                res.add(indexes.getJSONObject(j).getString(SchemaSnapshot.Json.SQL));
+            }
+            if (table.has(SchemaSnapshot.Json.FULL_TEXT)) {
+                res.add(table.getString(SchemaSnapshot.Json.FULL_TEXT));
+                JSONArray triggers = table.getJSONArray(SchemaSnapshot.Json.TRIGGERS);
+                for (int j = 0; j < triggers.length(); j++) {
+                    res.add(triggers.getJSONObject(j).getString(SchemaSnapshot.Json.SQL));
+                }
+            }
+        }
+        return res;
+    }
+
+    private static List<String> getMigrationStatements(JSONObject snapshot, int version) {
+        JSONArray migrations = snapshot.getJSONArray(SchemaSnapshot.Json.MIGRATIONS);
+        for (int i = 0; i < migrations.length(); i++) {
+            JSONObject migration = migrations.getJSONObject(i);
+            if (migration.getInt(SchemaSnapshot.Json.VERSION) != version) continue;
+            List<String> res = new ArrayList<String>();
+            JSONArray statements = migration.getJSONArray(SchemaSnapshot.Json.STATEMENTS);
+            for (int j = 0; j < statements.length(); j++) {
+                res.add(statements.getString(j));
+            }
+            return res;
+        }
+        throw new AssertionError("No migration to version " + version);
+    }
+
+    /**
+     * Returns the type, name and SQL of all the objects of the given database, by name, with their SQL normalized so
+     * that only its whitespace may differ.
+     */
+    private static List<String> getSchema(Connection connection) throws Exception {
+        List<String> res = new ArrayList<String>();
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT type, name, sql FROM sqlite_master WHERE name NOT LIKE 'sqlite_%' ORDER BY name");
+            try {
+                while (resultSet.next()) {
+                    String sql = resultSet.getString(3);
+                    if (sql != null) sql = sql.replaceAll("\\s+", " ").replaceAll(" ?([(),;]) ?", "$1").replaceAll(";$", "");
+                    res.add(resultSet.getString(1) + " " + resultSet.getString(2) + ": " + sql);
+                }
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+        assertFalse(res.isEmpty());
+        return res;
+    }
+
+    private static String queryString(Statement statement, String sql) throws Exception {
+        ResultSet resultSet = statement.executeQuery(sql);
+        try {
+            assertTrue(sql, resultSet.next());
+            return resultSet.getString(1);
+        } finally {
+            resultSet.close();
+        }
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the generated {@code SyncEngine} with sources reading a local HTTP server: batching, backpressure, errors and
+ * interruption.
+ */
+public class SyncEngineTest {
+    private static final int FETCH_THREADS = 2;
+    private static final int BATCH_SIZE = 100;
+    private static final int QUEUE_CAPACITY = 3;
+    private static final long TIMEOUT_S = 10;
+
+    @ClassRule
+    public static TemporaryFolder sTemporaryFolder = new TemporaryFolder();
+
+    private static Class<?> sEngineClass;
+    private static Class<?> sSourceClass;
+    private static Class<?> sSinkClass;
+    private static Method sAccept;
+    private static Method sOnWritten;
+    private static HttpServer sServer;
+    private static ExecutorService sServerExecutor;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        File inputDir = new File("etc/sample");
+        File outputDir = sTemporaryFolder.newFolder("generated");
+        Main main = new Main();
+        main.go(new String[] { "-i", inputDir.getPath(), "-o", outputDir.getPath() });
+        String apiPackage = main.getConfig(inputDir).getString(Main.Json.PROJECT_PACKAGE_ID) + ".api";
+        File source = new File(outputDir, apiPackage.replace('.', '/') + "/SyncEngine.java");
+        ClassLoader classLoader = TestCompiler.compile(sTemporaryFolder.newFolder("classes"), Collections.singletonList(source));
+        sEngineClass = classLoader.loadClass(apiPackage + ".SyncEngine");
+        sSourceClass = classLoader.loadClass(apiPackage + ".SyncEngine$Source");
+        sSinkClass = classLoader.loadClass(apiPackage + ".SyncEngine$Sink");
+        Class<?> consumerClass = classLoader.loadClass(apiPackage + ".SyncEngine$Consumer");
+        sAccept = consumerClass.getMethod("accept", Object.class);
+        sOnWritten = consumerClass.getMethod("onWritten", Runnable.class);
+
+        sServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        sServer.createContext("/items", new ItemsHandler());
+        sServer.createContext("/error", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+            }
+        });
+        sServerExecutor = Executors.newCachedThreadPool();
+        sServer.setExecutor(sServerExecutor);
+        sServer.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sServer.stop(0);
+        sServerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void batching() throws Exception {
+        HttpSource a = new HttpSource("/items?count=1050");
+        HttpSource b = new HttpSource("/items?count=230");
+        HttpSource empty = new HttpSource("/items?count=0");
+        final RecordingSink sinkA = new RecordingSink();
+        RecordingSink sinkB = new RecordingSink();
+        RecordingSink emptySink = new RecordingSink();
+        final AtomicInteger writtenBeforeAction = new AtomicInteger(-1);
+        a.mOnWritten = new Runnable() {
+            @Override
+            public void run() {
+                writtenBeforeAction.set(sinkA.mItems.size());
+            }
+        };
+
+        Map<String, Integer> res = new Engine().add("a", a, sinkA).add("b", b, sinkB).add("empty", empty, emptySink).run();
+
+        Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+        expected.put("a", 1050);
+        expected.put("b", 230);
+        expected.put("empty", 0);
+        assertEquals(expected, res);
+        assertEquals(Arrays.asList(100, 100, 100, 100, 100, 100, 100, 100, 100, 100, 50), sinkA.mBatchSizes);
+        assertEquals(Arrays.asList(100, 100, 30), sinkB.mBatchSizes);
+        assertTrue(emptySink.mBatchSizes.isEmpty());
+        // In the order of the source
+        assertEquals(items(1050), sinkA.mItems);
+        // The action runs after the last batch
+        assertEquals(1050, writtenBeforeAction.get());
+        // All the batches are written by the thread running the sync
+        assertEquals(Collections.singleton(Thread.currentThread()), sinkA.mThreads);
+        assertEquals(Collections.singleton(Thread.currentThread()), sinkB.mThreads);
+    }
+
+    @Test
+    public void backpressure() throws Exception {
+        Flow flow = new Flow();
+        Engine engine = new Engine();
+        List<RecordingSink> sinks = new ArrayList<RecordingSink>();
+        for (int i = 0; i < FETCH_THREADS; i++) {
+            RecordingSink sink = new RecordingSink(flow);
+            // Writing is much slower than reading
+            sink.mDelayMs = 5;
+            sinks.add(sink);
+            engine.add("task" + i, new HttpSource("/items?count=3000", flow), sink);
+        }
+
+        engine.run();
+
+        for (RecordingSink sink : sinks) {
+            assertEquals(3000, sink.mItems.size());
+        }
+        // The batches waiting in the queue, the one being written and the one being filled by each source
+        int maxInFlight = (QUEUE_CAPACITY + 1 + FETCH_THREADS) * BATCH_SIZE;
+        assertTrue(flow.mMaxInFlight.get() + " > " + maxInFlight, flow.mMaxInFlight.get() <= maxInFlight);
+        // The sources did wait for the queue
+        assertTrue(String.valueOf(flow.mMaxInFlight.get()), flow.mMaxInFlight.get() >= QUEUE_CAPACITY * BATCH_SIZE);
+    }
+
+    @Test
+    public void errors() throws Exception {
+        HttpSource ok = new HttpSource("/items?count=500");
+        HttpSource httpError = new HttpSource("/error");
+        // Never ends, unless cancelled
+        HttpSource failing = new HttpSource("/items");
+        RecordingSink okSink = new RecordingSink();
+        RecordingSink failingSink = new RecordingSink();
+        failingSink.mFailure = new IllegalStateException("disk full");
+        final AtomicInteger actions = new AtomicInteger();
+        failing.mOnWritten = new Runnable() {
+            @Override
+            public void run() {
+                actions.incrementAndGet();
+            }
+        };
+
+        try {
+            new Engine().add("ok", ok, okSink).add("httpError", httpError, new RecordingSink()).add("failing", failing, failingSink).run();
+            fail();
+        } catch (Exception e) {
+            assertEquals("SyncException", e.getClass().getSimpleName());
+            @SuppressWarnings("unchecked")
+            Map<String, Throwable> errors = (Map<String, Throwable>) invoke(e, e.getClass().getMethod("getErrors"));
+            assertEquals(Arrays.asList("httpError", "failing"), new ArrayList<String>(errors.keySet()));
+            assertTrue(String.valueOf(errors.get("httpError")), errors.get("httpError") instanceof IOException);
+            assertSame(failingSink.mFailure, errors.get("failing"));
+        }
+        // The other tasks are not affected
+        assertEquals(items(500), okSink.mItems);
+        // The failed task was cancelled: its source stopped, and its next batches were not written
+        assertEquals(1, failingSink.mWrites.get());
+        assertTrue(failing.mDone.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(0, actions.get());
+    }
+
+    @Test
+    public void interrupted() throws Exception {
+        HttpSource endless = new HttpSource("/items");
+        RecordingSink sink = new RecordingSink();
+        SyncThread thread = new SyncThread(new Engine().add("endless", endless, sink));
+        thread.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_S);
+        while (sink.mWrites.get() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(sink.mWrites.get() >= 5);
+
+        thread.interrupt();
+
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_S));
+        assertFalse(thread.isAlive());
+        assertTrue(String.valueOf(thread.mError.get()), thread.mError.get() instanceof InterruptedException);
+        // The source was interrupted too
+        assertTrue(endless.mDone.await(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void interruptedWhileWriting() throws Exception {
+        HttpSource endless = new HttpSource("/items");
+        RecordingSink sink = new RecordingSink();
+        sink.mBlock = new CountDownLatch(1);
+        SyncThread thread = new SyncThread(new Engine().add("endless", endless, sink));
+        thread.start();
+        assertTrue(sink.mBlocked.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        thread.interrupt();
+
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_S));
+        assertFalse(thread.isAlive());
+        assertTrue(String.valueOf(thread.mError.get()), thread.mError.get() instanceof InterruptedException);
+        assertTrue(endless.mDone.await(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    private static List<String> items(int count) {
+        List<String> res = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            res.add("item" + i);
+        }
+        return res;
+    }
+
+    /**
+     * Calls the given method, rethrowing the exception it threw.
+     */
+    private static Object invoke(Object target, Method method, Object... args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Answers {@code /items?count=<count>} with that many lines, or with lines until the client disconnects when there is
+     * no count.
+     */
+    private static class ItemsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            int count = query == null ? Integer.MAX_VALUE : Integer.parseInt(query.substring("count=".length()));
+            // Chunked
+            exchange.sendResponseHeaders(200, 0);
+            try {
+                Writer writer = new OutputStreamWriter(exchange.getResponseBody(), "UTF-8");
+                for (int i = 0; i < count; i++) {
+                    writer.write("item" + i + "\n");
+                }
+                writer.close();
+            } catch (IOException e) {
+                // The client disconnected
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Counts the items read and not written yet.
+     */
+    private static class Flow {
+        final AtomicInteger mRead = new AtomicInteger();
+        final AtomicInteger mWritten = new AtomicInteger();
+        final AtomicInteger mMaxInFlight = new AtomicInteger();
+
+        void onRead() {
+            int inFlight = mRead.incrementAndGet() - mWritten.get();
+            int max;
+            while (inFlight > (max = mMaxInFlight.get()) && !mMaxInFlight.compareAndSet(max, inFlight)) {
+                // Retry
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a path of the server.
+     */
+    private static class HttpSource {
+        final String mPath;
+        final Flow mFlow;
+        // Counted down once the source returned
+        final CountDownLatch mDone = new CountDownLatch(1);
+        Runnable mOnWritten;
+
+        HttpSource(String path) {
+            this(path, new Flow());
+        }
+
+        HttpSource(String path, Flow flow) {
+            mPath = path;
+            mFlow = flow;
+        }
+
+        void read(Object consumer) throws Exception {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + sServer.getAddress().getPort() + mPath).openConnection();
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException(mPath + ": " + connection.getResponseCode());
+                }
+                if (mOnWritten != null) invoke(consumer, sOnWritten, mOnWritten);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    mFlow.onRead();
+                    invoke(consumer, sAccept, line);
+                }
+            } finally {
+                connection.disconnect();
+                mDone.countDown();
+            }
+        }
+    }
+
+    private static class RecordingSink {
+        final Flow mFlow;
+        final List<String> mItems = new ArrayList<String>();
+        final List<Integer> mBatchSizes = new ArrayList<Integer>();
+        final Set<Thread> mThreads = new HashSet<Thread>();
+        final AtomicInteger mWrites = new AtomicInteger();
+        long mDelayMs;
+        // Thrown by each write, if not null
+        Exception mFailure;
+        // Awaited by each write, if not null
+        CountDownLatch mBlock;
+        final CountDownLatch mBlocked = new CountDownLatch(1);
+
+        RecordingSink() {
+            this(new Flow());
+        }
+
+        RecordingSink(Flow flow) {
+            mFlow = flow;
+        }
+
+        void write(List<String> batch) throws Exception {
+            mWrites.incrementAndGet();
+            mThreads.add(Thread.currentThread());
+            if (mFailure != null) throw mFailure;
+            if (mBlock != null) {
+                mBlocked.countDown();
+                mBlock.await();
+            }
+            if (mDelayMs > 0) Thread.sleep(mDelayMs);
+            mItems.addAll(batch);
+            mBatchSizes.add(batch.size());
+            mFlow.mWritten.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * A generated {@code SyncEngine}, with {@link HttpSource} sources and {@link RecordingSink} sinks.
+     */
+    private static class Engine {
+        private final Object mEngine;
+
+        Engine() throws Exception {
+            mEngine = sEngineClass.getConstructor(int.class, int.class, int.class).newInstance(FETCH_THREADS, BATCH_SIZE, QUEUE_CAPACITY);
+        }
+
+        Engine add(String name, final HttpSource source, final RecordingSink sink) throws Exception {
+            Object sourceProxy = Proxy.newProxyInstance(sSourceClass.getClassLoader(), new Class<?>[] { sSourceClass }, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+                    source.read(args[0]);
+                    return null;
+                }
+            });
+            Object sinkProxy = Proxy.newProxyInstance(sSinkClass.getClassLoader(), new Class<?>[] { sSinkClass }, new InvocationHandler() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+                    sink.write((List<String>) args[0]);
+                    return null;
+                }
+            });
+            SyncEngineTest.invoke(mEngine, sEngineClass.getMethod("add", String.class, sSourceClass, sSinkClass), name, sourceProxy, sinkProxy);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> run() throws Exception {
+            return (Map<String, Integer>) SyncEngineTest.invoke(mEngine, sEngineClass.getMethod("run"));
+        }
+    }
+
+    /**
+     * Runs a sync, keeping what it threw.
+     */
+    private static class SyncThread extends Thread {
+        private final Engine mEngine;
+        final AtomicReference<Throwable> mError = new AtomicReference<Throwable>();
+
+        SyncThread(Engine engine) {
+            mEngine = engine;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mEngine.run();
+            } catch (Throwable t) {
+                mError.set(t);
+            }
+        }
+    }
+}
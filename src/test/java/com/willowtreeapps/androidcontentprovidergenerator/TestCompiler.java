@@ -0,0 +1,83 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles generated sources, so that the tests can run the generated code.
+ */
+class TestCompiler {
+    private TestCompiler() {}
+
+    /**
+     * Compiles the given sources into the given folder, against the classpath of the tests, and returns a class loader
+     * for them.
+     */
+    static ClassLoader compile(File outputDir, List<File> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("The tests must run on a JDK", compiler);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            StringWriter errors = new StringWriter();
+            List<String> options = Arrays.asList("-nowarn", "-encoding", "UTF-8", "-d", outputDir.getPath(), "-classpath",
+                    System.getProperty("java.class.path"));
+            boolean compiled = compiler.getTask(errors, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            assertTrue(errors.toString(), compiled);
+        } finally {
+            fileManager.close();
+        }
+        return new URLClassLoader(new URL[] { outputDir.toURI().toURL() }, TestCompiler.class.getClassLoader());
+    }
+
+    /**
+     * Returns the Java sources of the given folder and its sub-folders.
+     */
+    static List<File> listSources(File dir) {
+        List<File> res = new ArrayList<File>();
+        for (File file : dir.listFiles()) {
+            if (file.isDirectory()) {
+                res.addAll(listSources(file));
+            } else if (file.getName().endsWith(".java")) {
+                res.add(file);
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * This source is part of the
+ *      _____  ___   ____
+ *  __ / / _ \/ _ | / __/___  _______ _
+ * / // / , _/ __ |/ _/_/ _ \/ __/ _ `/
+ * \___/_/|_/_/ |_/_/ (_)___/_/  \_, /
+ *                              /___/
+ * repository.
+ * 
+ * Copyright 2013 Benoit 'BoD' Lubek (BoD@JRAF.org).  All Rights Reserved.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.willowtreeapps.androidcontentprovidergenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Upserts and syncs a parent table of the sample, in an SQLite database accessed through JDBC, with and without
+ * {@code ON CONFLICT} support, and checks that the existing rows are updated in place: they keep their {@code _id} and the
+ * rows of the child table referencing them (with {@code ON DELETE CASCADE}).
+ */
+public class UpsertTest {
+    private static final String ACME = "acme";
+
+    @ClassRule
+    public static TemporaryFolder sTemporaryFolder = new TemporaryFolder();
+
+    private static Field sOnConflictSupported;
+    private static Method sNewHelper;
+    private static Class<?> sCompanyModelClass;
+    private static Method sSync;
+    private static Method sUpsert;
+    private static Method sProviderInsert;
+
+    private Connection mConnection;
+    private SQLiteDatabase mDb;
+    private long mAcmeId;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        File inputDir = new File("etc/sample");
+        File outputDir = sTemporaryFolder.newFolder("generated");
+        Main main = new Main();
+        main.go(new String[] { "-i", inputDir.getPath(), "-o", outputDir.getPath() });
+        String projectPackage = main.getConfig(inputDir).getString(Main.Json.PROJECT_PACKAGE_ID);
+        File projectDir = new File(outputDir, projectPackage.replace('.', '/'));
+        // Normally generated by the Android build
+        Writer writer = new FileWriter(new File(projectDir, "BuildConfig.java"));
+        try {
+            writer.write("package " + projectPackage + ";\n\npublic final class BuildConfig {\n    public static final boolean DEBUG = false;\n}\n");
+        } finally {
+            writer.close();
+        }
+        List<File> sources = new ArrayList<File>();
+        sources.add(new File(projectDir, "BuildConfig.java"));
+        sources.addAll(TestCompiler.listSources(new File(projectDir, "provider")));
+        sources.addAll(TestCompiler.listSources(new File(projectDir, "model")));
+        ClassLoader classLoader = TestCompiler.compile(sTemporaryFolder.newFolder("classes"), sources);
+
+        String providerPackage = projectPackage + ".provider";
+        Class<?> providerClass = null;
+        Class<?> helperClass = null;
+        for (File file : new File(projectDir, "provider").listFiles()) {
+            if (file.getName().endsWith("Provider.java")) providerClass = classLoader.loadClass(providerPackage + "." + file.getName().replace(".java", ""));
+            if (file.getName().endsWith("SQLiteOpenHelper.java")) helperClass = classLoader.loadClass(providerPackage + "." + file.getName().replace(".java", ""));
+        }
+        sOnConflictSupported = providerClass.getDeclaredField("sOnConflictSupported");
+        sOnConflictSupported.setAccessible(true);
+        sProviderInsert = providerClass.getDeclaredMethod("insert", SQLiteDatabase.class, String.class, String[].class, String[].class,
+                boolean.class, Map.class, ContentValues.class);
+        sProviderInsert.setAccessible(true);
+        sNewHelper = helperClass.getMethod("newInstance", classLoader.loadClass("android.content.Context"));
+
+        sCompanyModelClass = classLoader.loadClass(projectPackage + ".model.CompanyModel");
+        Class<?> inserterClass = classLoader.loadClass(providerPackage + ".company.CompanyModelInserter");
+        sSync = inserterClass.getMethod("sync", SQLiteDatabase.class, List.class);
+        sUpsert = inserterClass.getMethod("upsert", SQLiteDatabase.class, List.class);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        mConnection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        mDb = new SQLiteDatabase(mConnection);
+        SQLiteOpenHelper helper = (SQLiteOpenHelper) sNewHelper.invoke(null, (Object) null);
+        helper.onCreate(mDb);
+        helper.onOpen(mDb);
+
+        mDb.execSQL("INSERT INTO company (name, address) VALUES ('" + ACME + "', 'old address')");
+        mAcmeId = queryLong("SELECT _id FROM company WHERE name = '" + ACME + "'");
+        mDb.execSQL("INSERT INTO person (first_name, last_name, age, company_id, gender) VALUES ('John', 'Doe', 30, " + mAcmeId + ", 0)");
+        mDb.execSQL("INSERT INTO person (first_name, last_name, age, company_id, gender) VALUES ('Jane', 'Doe', 32, " + mAcmeId + ", 1)");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sOnConflictSupported.set(null, null);
+        mConnection.close();
+    }
+
+    @Test
+    public void syncWithOnConflict() throws Exception {
+        sync(true);
+    }
+
+    @Test
+    public void syncWithoutOnConflict() throws Exception {
+        sync(false);
+    }
+
+    @Test
+    public void upsertWithOnConflict() throws Exception {
+        upsert(true);
+    }
+
+    @Test
+    public void upsertWithoutOnConflict() throws Exception {
+        upsert(false);
+    }
+
+    @Test
+    public void providerUpsertWithOnConflict() throws Exception {
+        providerUpsert(true);
+    }
+
+    @Test
+    public void providerUpsertWithoutOnConflict() throws Exception {
+        providerUpsert(false);
+    }
+
+    private void sync(boolean onConflictSupported) throws Exception {
+        mDb.execSQL("INSERT INTO company (name, address) VALUES ('gone', 'address')");
+        sOnConflictSupported.set(null, onConflictSupported);
+
+        int res = (Integer) sSync.invoke(null, mDb, Arrays.asList(newCompany(ACME, "new address", false), newCompany("new", "address", false),
+                newCompany("gone", null, true)));
+
+        assertEquals(3, res);
+        assertUpdated();
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM company WHERE name = 'new'"));
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM company WHERE name = 'gone'"));
+    }
+
+    private void upsert(boolean onConflictSupported) throws Exception {
+        sOnConflictSupported.set(null, onConflictSupported);
+
+        int res = (Integer) sUpsert.invoke(null, mDb, Arrays.asList(newCompany(ACME, "new address", false), newCompany("new", "address", false)));
+
+        assertEquals(2, res);
+        assertUpdated();
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM company WHERE name = 'new'"));
+    }
+
+    private void providerUpsert(boolean onConflictSupported) throws Exception {
+        String[] columns = { "_id", "name", "address", "version", "deleted" };
+        String[] naturalKey = { "name" };
+        ContentValues acme = new ContentValues();
+        acme.put("name", ACME);
+        acme.put("address", "new address");
+        ContentValues newCompany = new ContentValues();
+        newCompany.put("name", "new");
+        Map<?, ?> statements = new HashMap<Object, Object>();
+
+        assertTrue((Long) sProviderInsert.invoke(null, mDb, "company", columns, naturalKey, onConflictSupported, statements, acme) != -1);
+        assertTrue((Long) sProviderInsert.invoke(null, mDb, "company", columns, naturalKey, onConflictSupported, statements, newCompany) != -1);
+
+        assertUpdated();
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM company WHERE name = 'new'"));
+
+        // Only the natural key: the existing row is upserted, not reported as an error
+        ContentValues keyOnly = new ContentValues();
+        keyOnly.put("name", ACME);
+        assertTrue((Long) sProviderInsert.invoke(null, mDb, "company", columns, naturalKey, onConflictSupported, statements, keyOnly) != -1);
+        // A column unknown to the table: an error, not an exception aborting the batch
+        ContentValues unknownColumn = new ContentValues();
+        unknownColumn.put("name", ACME);
+        unknownColumn.put("unknown", 1);
+        assertEquals(-1L, sProviderInsert.invoke(null, mDb, "company", columns, naturalKey, onConflictSupported, statements, unknownColumn));
+        assertUpdated();
+    }
+
+    private Object newCompany(String name, String address, boolean deleted) throws Exception {
+        Object res = sCompanyModelClass.newInstance();
+        sCompanyModelClass.getField("name").set(res, name);
+        sCompanyModelClass.getField("address").set(res, address);
+        sCompanyModelClass.getField("deleted").set(res, deleted);
+        return res;
+    }
+
+    /**
+     * Checks that the existing company was updated in place, and still has its employees.
+     */
+    private void assertUpdated() throws Exception {
+        assertEquals(mAcmeId, queryLong("SELECT _id FROM company WHERE name = '" + ACME + "'"));
+        assertEquals("new address", queryString("SELECT address FROM company WHERE name = '" + ACME + "'"));
+        assertEquals(2, queryLong("SELECT COUNT(*) FROM person WHERE company_id = " + mAcmeId));
+        assertFalse(mDb.inTransaction());
+    }
+
+    private long queryLong(String sql) throws Exception {
+        Statement statement = mConnection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            assertTrue(sql, resultSet.next());
+            return resultSet.getLong(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private String queryString(String sql) throws Exception {
+        Statement statement = mConnection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            assertTrue(sql, resultSet.next());
+            return resultSet.getString(1);
+        } finally {
+            statement.close();
+        }
+    }
+}